@@ -9,8 +9,6 @@ import androidx.appcompat.app.AppCompatActivity;
 
 import com.sd.lib.selectmanager.SelectManager;
 
-import java.util.List;
-
 public class ListDemoActivity extends AppCompatActivity {
     private ListView mListView;
     private final ListDemoAdapter mAdapter = new ListDemoAdapter();
@@ -34,9 +32,8 @@ public class ListDemoActivity extends AppCompatActivity {
                         tv_selected_info.setText(selectedItem.toString());
                     }
                 } else {
-                    // 得到当前选中的item数据
-                    final List<DataModel> listSelected = mAdapter.getSelectManager().getSelectedItems();
-                    tv_selected_info.setText(TextUtils.join(",", listSelected));
+                    // 选中item的只读视图，不会拷贝数据
+                    tv_selected_info.setText(TextUtils.join(",", mAdapter.getSelectManager().selectedView()));
                 }
             }
         });
@@ -0,0 +1,111 @@
+package com.sd.lib.selectmanager.benchmark;
+
+import com.sd.lib.selectmanager.FSelectManager;
+import com.sd.lib.selectmanager.SelectManager;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 基准测试的公共状态，子类决定测试哪些选择模式
+ */
+public abstract class BaseState
+{
+    private static final int RANDOM_SIZE = 1 << 12;
+
+    @Param({"100", "1000", "10000", "100000", "1000000"})
+    public int size;
+
+    /**
+     * 回调和拦截对象的数量，分别添加这么多个{@link SelectManager.Callback}和{@link SelectManager.StateInterceptor}
+     */
+    @Param({"0", "1", "8"})
+    public int listeners;
+
+    public FSelectManager<Item> manager;
+    public List<Item> items;
+    /** 另一组数量相同的item，用来测试{@link SelectManager#setItems(List)} */
+    public List<Item> otherItems;
+
+    private int[] mRandomIndexes;
+    private int mCursor;
+
+    /** 回调中累加，防止回调被优化掉 */
+    public long callbackCount;
+
+    protected abstract SelectManager.Mode mode();
+
+    @Setup(Level.Trial)
+    public void setup()
+    {
+        items = newItems(size);
+        otherItems = newItems(size);
+
+        manager = new FSelectManager<>();
+        manager.setMode(mode());
+        for (int i = 0; i < listeners; i++)
+        {
+            manager.addCallback(new SelectManager.Callback<Item>()
+            {
+                @Override
+                public void onSelectedChanged(boolean selected, Item item)
+                {
+                    callbackCount++;
+                }
+            });
+            manager.addStateInterceptor(new SelectManager.StateInterceptor<Item>()
+            {
+                @Override
+                public boolean interceptItem(Item item, boolean selected)
+                {
+                    return item.id < 0;
+                }
+            });
+        }
+        manager.setItems(items);
+
+        final Random random = new Random(size);
+        mRandomIndexes = new int[RANDOM_SIZE];
+        for (int i = 0; i < RANDOM_SIZE; i++)
+        {
+            mRandomIndexes[i] = random.nextInt(size);
+        }
+    }
+
+    /**
+     * 返回下一个随机位置，预先生成，不影响测试结果
+     *
+     * @return
+     */
+    public int nextIndex()
+    {
+        final int index = mRandomIndexes[mCursor];
+        mCursor = (mCursor + 1) & (RANDOM_SIZE - 1);
+        return index;
+    }
+
+    private static List<Item> newItems(int size)
+    {
+        final List<Item> list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++)
+        {
+            list.add(new Item(i));
+        }
+        return list;
+    }
+
+    public static final class Item
+    {
+        public final int id;
+
+        public Item(int id)
+        {
+            this.id = id;
+        }
+    }
+}
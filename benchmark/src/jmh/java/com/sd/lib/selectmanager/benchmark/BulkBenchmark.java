@@ -0,0 +1,18 @@
+package com.sd.lib.selectmanager.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+
+/**
+ * 全选和清空，成对执行保证每次操作的起始状态相同
+ */
+public class BulkBenchmark
+{
+    @Benchmark
+    public int selectAllThenClear(MultiManagerState state)
+    {
+        state.manager.selectAll();
+        final int count = state.manager.getSelectedCount();
+        state.manager.clearSelected();
+        return count;
+    }
+}
@@ -0,0 +1,27 @@
+package com.sd.lib.selectmanager.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+
+/**
+ * 单个item的选中操作和位置查找
+ */
+public class ClickBenchmark
+{
+    @Benchmark
+    public void performClickIndex(ManagerState state)
+    {
+        state.manager.performClick(state.nextIndex());
+    }
+
+    @Benchmark
+    public void performClickItem(ManagerState state)
+    {
+        state.manager.performClick(state.items.get(state.nextIndex()));
+    }
+
+    @Benchmark
+    public int indexOf(ManagerState state)
+    {
+        return state.manager.indexOf(state.items.get(state.nextIndex()));
+    }
+}
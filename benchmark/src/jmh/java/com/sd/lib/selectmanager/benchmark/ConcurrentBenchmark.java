@@ -0,0 +1,109 @@
+package com.sd.lib.selectmanager.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+
+/**
+ * 多线程查询的吞吐量，分别用-Pjmh.threads=1,2,4,8运行，比较随核心数的扩展情况，
+ * locked开头的是在同一个锁内访问{@link com.sd.lib.selectmanager.FSelectManager}作为对比
+ */
+public class ConcurrentBenchmark
+{
+    @Benchmark
+    public boolean isSelected(ConcurrentState state, Cursor cursor)
+    {
+        return state.manager.isSelected(state.items.get(cursor.nextIndex(state.size)));
+    }
+
+    @Benchmark
+    public int getSelectedCount(ConcurrentState state)
+    {
+        return state.manager.getSelectedCount();
+    }
+
+    @Benchmark
+    public boolean lockedIsSelected(ConcurrentState state, Cursor cursor)
+    {
+        synchronized (state.lockedManager)
+        {
+            return state.lockedManager.isSelected(state.items.get(cursor.nextIndex(state.size)));
+        }
+    }
+
+    /**
+     * 3个读线程和1个写线程同时运行
+     */
+    @Benchmark
+    @Group("readWrite")
+    @GroupThreads(3)
+    public boolean readWhileWriting(ConcurrentState state, Cursor cursor)
+    {
+        return state.manager.isSelected(state.items.get(cursor.nextIndex(state.size)));
+    }
+
+    @Benchmark
+    @Group("readWrite")
+    @GroupThreads(1)
+    public void writeWhileReading(ConcurrentState state, Cursor cursor)
+    {
+        state.manager.performClick(cursor.nextIndex(state.size));
+    }
+
+    @Benchmark
+    @Group("lockedReadWrite")
+    @GroupThreads(3)
+    public boolean lockedReadWhileWriting(ConcurrentState state, Cursor cursor)
+    {
+        synchronized (state.lockedManager)
+        {
+            return state.lockedManager.isSelected(state.items.get(cursor.nextIndex(state.size)));
+        }
+    }
+
+    @Benchmark
+    @Group("lockedReadWrite")
+    @GroupThreads(1)
+    public void lockedWriteWhileReading(ConcurrentState state, Cursor cursor)
+    {
+        synchronized (state.lockedManager)
+        {
+            state.lockedManager.performClick(cursor.nextIndex(state.size));
+        }
+    }
+
+    /**
+     * 每个线程自己的随机位置，预先生成，不影响测试结果
+     */
+    @State(Scope.Thread)
+    public static class Cursor
+    {
+        private static final int RANDOM_SIZE = 1 << 12;
+
+        private final int[] mRandom = new int[RANDOM_SIZE];
+        private int mCursor;
+
+        @Setup(Level.Trial)
+        public void setup()
+        {
+            final Random random = new Random(Thread.currentThread().getId());
+            for (int i = 0; i < RANDOM_SIZE; i++)
+            {
+                mRandom[i] = random.nextInt(Integer.MAX_VALUE);
+            }
+        }
+
+        public int nextIndex(int size)
+        {
+            final int index = mRandom[mCursor] % size;
+            mCursor = (mCursor + 1) & (RANDOM_SIZE - 1);
+            return index;
+        }
+    }
+}
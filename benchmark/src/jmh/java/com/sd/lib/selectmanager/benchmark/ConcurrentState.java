@@ -0,0 +1,53 @@
+package com.sd.lib.selectmanager.benchmark;
+
+import com.sd.lib.selectmanager.ConcurrentSelectManager;
+import com.sd.lib.selectmanager.FSelectManager;
+import com.sd.lib.selectmanager.SelectManager;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 多个线程共享的选择管理器，同时创建一个加锁访问的{@link FSelectManager}作为对比
+ */
+@State(Scope.Benchmark)
+public class ConcurrentState
+{
+    @Param({"1000", "100000"})
+    public int size;
+
+    public ConcurrentSelectManager<BaseState.Item> manager;
+    public FSelectManager<BaseState.Item> lockedManager;
+    public List<BaseState.Item> items;
+
+    @Setup(Level.Trial)
+    public void setup()
+    {
+        items = new ArrayList<>(size);
+        for (int i = 0; i < size; i++)
+        {
+            items.add(new BaseState.Item(i));
+        }
+
+        manager = new ConcurrentSelectManager<>();
+        manager.setMode(SelectManager.Mode.MULTI);
+        manager.setItems(items);
+
+        lockedManager = new FSelectManager<>();
+        lockedManager.setMode(SelectManager.Mode.MULTI);
+        lockedManager.setItems(items);
+
+        // 选中一半，查询结果不会全部相同
+        for (int i = 0; i < size; i += 2)
+        {
+            manager.setSelected(i, true);
+            lockedManager.setSelected(i, true);
+        }
+    }
+}
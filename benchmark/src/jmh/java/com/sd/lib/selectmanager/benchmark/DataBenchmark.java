@@ -0,0 +1,43 @@
+package com.sd.lib.selectmanager.benchmark;
+
+import com.sd.lib.selectmanager.benchmark.BaseState.Item;
+
+import org.openjdk.jmh.annotations.Benchmark;
+
+import java.util.List;
+
+/**
+ * 数据变化，操作之后数据的数量和顺序保持不变
+ */
+public class DataBenchmark
+{
+    @Benchmark
+    public void removeThenAddItem(ManagerState state)
+    {
+        final int index = state.nextIndex();
+        final Item item = state.items.get(index);
+        state.manager.removeItem(item);
+        state.manager.addItem(index, item);
+    }
+
+    /**
+     * 在头部插入之后按item点击，插入会让后面所有的位置平移，然后移除插入的item
+     */
+    @Benchmark
+    public void addHeadThenClick(ManagerState state)
+    {
+        final Item head = state.otherItems.get(0);
+        state.manager.addItem(0, head);
+        state.manager.performClick(state.items.get(state.nextIndex()));
+        state.manager.removeItem(head);
+    }
+
+    @Benchmark
+    public void setItems(ManagerState state)
+    {
+        final List<Item> items = state.items;
+        state.items = state.otherItems;
+        state.otherItems = items;
+        state.manager.setItems(state.items);
+    }
+}
@@ -0,0 +1,23 @@
+package com.sd.lib.selectmanager.benchmark;
+
+import com.sd.lib.selectmanager.SelectManager;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * 多选模式，{@link SelectManager#selectAll()}等方法只支持多选模式
+ */
+@State(Scope.Thread)
+public class MultiManagerState extends BaseState
+{
+    @Param({"MULTI_MUST_ONE_SELECTED", "MULTI"})
+    public SelectManager.Mode mode;
+
+    @Override
+    protected SelectManager.Mode mode()
+    {
+        return mode;
+    }
+}
@@ -0,0 +1,176 @@
+package com.sd.lib.selectmanager;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 批量模式下记录的选中状态变化，同一个item的多次变化只保留最初和最后的状态
+ *
+ * @param <T>
+ */
+final class BatchChanges<T>
+{
+    private final Map<T, Change<T>> mMapChange = new IdentityHashMap<>();
+    /** [0, mSize)区间内是有效的记录，之后的对象在{@link #clear()}之后复用 */
+    private final List<Change<T>> mListChange = new ArrayList<>();
+    private int mSize;
+
+    private boolean mHasCurrentItem;
+    private T mOriginCurrentItem;
+
+    /**
+     * 记录item的状态变化
+     *
+     * @param selected 变化后的状态
+     * @param item
+     */
+    public void record(boolean selected, T item)
+    {
+        record(selected, item, false);
+    }
+
+    /**
+     * 记录item的状态变化
+     *
+     * @param selected 变化后的状态
+     * @param item
+     * @param silent   true-不触发单个item的回调，只通过批量变化回调通知，以最后一次记录为准
+     */
+    public void record(boolean selected, T item, boolean silent)
+    {
+        Change<T> change = mMapChange.get(item);
+        if (change == null)
+        {
+            if (mSize < mListChange.size())
+            {
+                change = mListChange.get(mSize);
+            } else
+            {
+                change = new Change<>();
+                mListChange.add(change);
+            }
+            mSize++;
+
+            change.item = item;
+            change.origin = !selected;
+            mMapChange.put(item, change);
+        }
+        change.latest = selected;
+        change.silent = silent;
+    }
+
+    /**
+     * 记录单选模式下变化前的选中项，只有第一次记录有效
+     *
+     * @param item
+     */
+    public void recordCurrentItem(T item)
+    {
+        if (mHasCurrentItem)
+            return;
+
+        mHasCurrentItem = true;
+        mOriginCurrentItem = item;
+    }
+
+    /**
+     * 单选模式下的选中项是否发生了变化
+     *
+     * @param current 当前选中项
+     * @return
+     */
+    public boolean isCurrentItemChanged(T current)
+    {
+        return mHasCurrentItem && mOriginCurrentItem != current;
+    }
+
+    /**
+     * 返回单选模式下变化前的选中项
+     *
+     * @return
+     */
+    public T getOriginCurrentItem()
+    {
+        return mOriginCurrentItem;
+    }
+
+    /**
+     * 返回最终发生了变化的数量
+     *
+     * @return
+     */
+    public int size()
+    {
+        return mSize;
+    }
+
+    /**
+     * 清空记录，清空之后可以复用
+     */
+    public void clear()
+    {
+        for (int i = 0; i < mSize; i++)
+        {
+            mListChange.get(i).item = null;
+        }
+        mMapChange.clear();
+        mSize = 0;
+        mHasCurrentItem = false;
+        mOriginCurrentItem = null;
+    }
+
+    /**
+     * 返回第index个变化的item
+     *
+     * @param index
+     * @return
+     */
+    public T getItem(int index)
+    {
+        return mListChange.get(index).item;
+    }
+
+    /**
+     * 第index个item是否真正发生了变化，即最终状态和最初状态不同
+     *
+     * @param index
+     * @return
+     */
+    public boolean isChanged(int index)
+    {
+        final Change<T> change = mListChange.get(index);
+        return change.origin != change.latest;
+    }
+
+    /**
+     * 第index个item是否不触发单个item的回调
+     *
+     * @param index
+     * @return
+     */
+    public boolean isSilent(int index)
+    {
+        return mListChange.get(index).silent;
+    }
+
+    /**
+     * 返回第index个item的最终状态
+     *
+     * @param index
+     * @return
+     */
+    public boolean getLatest(int index)
+    {
+        return mListChange.get(index).latest;
+    }
+
+    private static final class Change<T>
+    {
+        T item;
+        boolean origin;
+        boolean latest;
+        boolean silent;
+    }
+}
@@ -0,0 +1,221 @@
+package com.sd.lib.selectmanager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * 回调分发，按{@link SelectManager.CallbackDelivery}把回调投递到{@link Executor}中执行
+ *
+ * @param <T>
+ */
+final class CallbackDispatcher<T>
+{
+    private final Target<T> mTarget;
+    private final SelectManager.CallbackDelivery mDelivery;
+    private final Executor mExecutor;
+
+    /** 合并模式下还没有投递的变化 */
+    private BatchChanges<T> mPendingChanges;
+    private boolean mHasPendingSingle;
+    private T mPendingSingle;
+    /** 最近一次分发的单选选中项，合并模式下用来判断一次投递前后选中项是否真正发生了变化 */
+    private T mLatestSingle;
+
+    /**
+     * @param target
+     * @param delivery
+     * @param executor
+     * @param currentItem 单选模式下当前的选中项
+     */
+    public CallbackDispatcher(Target<T> target, SelectManager.CallbackDelivery delivery, Executor executor, T currentItem)
+    {
+        if (delivery != SelectManager.CallbackDelivery.SYNC && executor == null)
+            throw new NullPointerException("executor is null");
+
+        mTarget = target;
+        mDelivery = delivery;
+        mExecutor = executor;
+        mLatestSingle = currentItem;
+    }
+
+    public void dispatchSelectedChanged(final boolean selected, final T item)
+    {
+        switch (mDelivery)
+        {
+            case POST:
+                mExecutor.execute(new Runnable()
+                {
+                    @Override
+                    public void run()
+                    {
+                        mTarget.deliverSelectedChanged(selected, item);
+                    }
+                });
+                break;
+            case CONFLATE:
+                synchronized (this)
+                {
+                    getPendingChanges().record(selected, item);
+                }
+                scheduleIfNeed();
+                break;
+            default:
+                mTarget.deliverSelectedChanged(selected, item);
+                break;
+        }
+    }
+
+    /**
+     * 不触发单个item回调的变化，只有合并模式需要记录下来，在投递的时候计算批量变化回调
+     *
+     * @param selected
+     * @param item
+     */
+    public void dispatchSilentChanged(boolean selected, T item)
+    {
+        if (mDelivery != SelectManager.CallbackDelivery.CONFLATE)
+            return;
+
+        synchronized (this)
+        {
+            getPendingChanges().record(selected, item, true);
+        }
+        scheduleIfNeed();
+    }
+
+    public void dispatchSingleSelectChanged(final T item)
+    {
+        switch (mDelivery)
+        {
+            case POST:
+                mExecutor.execute(new Runnable()
+                {
+                    @Override
+                    public void run()
+                    {
+                        mTarget.deliverSingleSelectChanged(item);
+                    }
+                });
+                break;
+            case CONFLATE:
+                synchronized (this)
+                {
+                    getPendingChanges().recordCurrentItem(mLatestSingle);
+                    mHasPendingSingle = true;
+                    mPendingSingle = item;
+                    mLatestSingle = item;
+                }
+                scheduleIfNeed();
+                break;
+            default:
+                mTarget.deliverSingleSelectChanged(item);
+                break;
+        }
+    }
+
+    public void dispatchSelectionChanged(final List<T> listSelected, final List<T> listNormal)
+    {
+        switch (mDelivery)
+        {
+            case POST:
+                mExecutor.execute(new Runnable()
+                {
+                    @Override
+                    public void run()
+                    {
+                        mTarget.deliverSelectionChanged(listSelected, listNormal);
+                    }
+                });
+                break;
+            case CONFLATE:
+                // 合并模式下在投递的时候根据item的变化重新计算
+                break;
+            default:
+                mTarget.deliverSelectionChanged(listSelected, listNormal);
+                break;
+        }
+    }
+
+    private BatchChanges<T> getPendingChanges()
+    {
+        if (mPendingChanges == null)
+            mPendingChanges = new BatchChanges<>();
+        return mPendingChanges;
+    }
+
+    private boolean mScheduled;
+
+    private void scheduleIfNeed()
+    {
+        synchronized (this)
+        {
+            if (mScheduled)
+                return;
+            mScheduled = true;
+        }
+
+        mExecutor.execute(mDrainRunnable);
+    }
+
+    private final Runnable mDrainRunnable = new Runnable()
+    {
+        @Override
+        public void run()
+        {
+            final BatchChanges<T> changes;
+            final boolean hasSingle;
+            final T single;
+            synchronized (CallbackDispatcher.this)
+            {
+                changes = mPendingChanges;
+                hasSingle = mHasPendingSingle;
+                single = mPendingSingle;
+
+                mPendingChanges = null;
+                mHasPendingSingle = false;
+                mPendingSingle = null;
+                mScheduled = false;
+            }
+
+            if (changes == null)
+                return;
+
+            // 例如A->B->A，选中项最终没有变化
+            if (hasSingle && changes.isCurrentItemChanged(single))
+                mTarget.deliverSingleSelectChanged(single);
+
+            final List<T> listSelected = new ArrayList<>();
+            final List<T> listNormal = new ArrayList<>();
+
+            final int size = changes.size();
+            for (int i = 0; i < size; i++)
+            {
+                if (!changes.isChanged(i))
+                    continue;
+
+                final boolean selected = changes.getLatest(i);
+                final T item = changes.getItem(i);
+                if (!changes.isSilent(i))
+                    mTarget.deliverSelectedChanged(selected, item);
+
+                if (selected)
+                    listSelected.add(item);
+                else
+                    listNormal.add(item);
+            }
+
+            if (!listSelected.isEmpty() || !listNormal.isEmpty())
+                mTarget.deliverSelectionChanged(listSelected, listNormal);
+        }
+    };
+
+    interface Target<T>
+    {
+        void deliverSelectedChanged(boolean selected, T item);
+
+        void deliverSingleSelectChanged(T item);
+
+        void deliverSelectionChanged(List<T> listSelected, List<T> listNormal);
+    }
+}
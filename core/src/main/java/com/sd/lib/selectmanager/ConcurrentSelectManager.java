@@ -0,0 +1,810 @@
+package com.sd.lib.selectmanager;
+
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * 线程安全的选择管理器
+ * <br>
+ * 所有写操作在同一个锁内串行执行(单选，多选必选等规则依赖全局状态，所以没有拆分成多个锁)，
+ * 每个写操作结束的时候在锁内发布一份不可变的状态：选中状态的{@link SelectionSnapshot}，开启了选中顺序的时候还有选中顺序，
+ * 查询方法只读取最新发布的状态，不需要加锁，也不会等待正在执行的写操作，批量操作期间的修改在批量操作结束的时候一起发布
+ * <br>
+ * 快照和内部的选择管理器共享数据(写时复制)，发布的开销是O(1)，之后的写操作修改选中状态或者数据的时候各拷贝一次；
+ * 选中顺序在选中状态或者数据变化之后发布的时候拷贝一次(O(选中数量))；
+ * 位置索引，key索引和选中顺序的排名索引在发布之后第一次查询的时候在锁外创建
+ * <br>
+ * 设置了{@link ItemSource}的时候数据源本身不是快照，{@link #indexOfKey(Object)}在锁内查询
+ * <br>
+ * 回调默认在执行写操作的线程中触发，并且触发的时候持有锁，不要在回调中等待其他线程的写操作，
+ * 可以通过{@link #setCallbackExecutor(Executor, CallbackDelivery)}把回调投递到锁外执行，
+ * 在同步回调中查询的时候读取的是写操作执行过程中的最新状态，和{@link FSelectManager}一致
+ *
+ * @param <T>
+ */
+public class ConcurrentSelectManager<T> implements SelectManager<T>
+{
+    private final FSelectManager<T> mManager = new FSelectManager<>();
+    private final Object mLock = new Object();
+
+    /** 最新发布的状态 */
+    private volatile Published<T> mPublished;
+
+    private final SnapshotView mListView = new SnapshotView(false);
+    private final SnapshotView mSelectionView = new SnapshotView(true);
+
+    public ConcurrentSelectManager()
+    {
+        synchronized (mLock)
+        {
+            publish();
+        }
+    }
+
+    @Override
+    public final void addCallback(Callback<T> callback)
+    {
+        synchronized (mLock)
+        {
+            mManager.addCallback(callback);
+        }
+    }
+
+    @Override
+    public final void removeCallback(Callback<T> callback)
+    {
+        synchronized (mLock)
+        {
+            mManager.removeCallback(callback);
+        }
+    }
+
+    @Override
+    public final void setOnItemInitCallback(OnItemInitCallback<T> callback)
+    {
+        synchronized (mLock)
+        {
+            mManager.setOnItemInitCallback(callback);
+        }
+    }
+
+    @Deprecated
+    @Override
+    public final void setSelectedInterceptor(SelectedInterceptor<T> interceptor)
+    {
+        synchronized (mLock)
+        {
+            mManager.setSelectedInterceptor(interceptor);
+        }
+    }
+
+    @Override
+    public final void addStateInterceptor(StateInterceptor<T> interceptor)
+    {
+        synchronized (mLock)
+        {
+            mManager.addStateInterceptor(interceptor);
+        }
+    }
+
+    @Override
+    public final void removeStateInterceptor(StateInterceptor<T> interceptor)
+    {
+        synchronized (mLock)
+        {
+            mManager.removeStateInterceptor(interceptor);
+        }
+    }
+
+    @Override
+    public final void addSingleSelectCallback(SingleSelectCallback<T> callback)
+    {
+        synchronized (mLock)
+        {
+            mManager.addSingleSelectCallback(callback);
+        }
+    }
+
+    @Override
+    public final void removeSingleSelectCallback(SingleSelectCallback<T> callback)
+    {
+        synchronized (mLock)
+        {
+            mManager.removeSingleSelectCallback(callback);
+        }
+    }
+
+    @Override
+    public final void addSelectionChangeCallback(SelectionChangeCallback<T> callback)
+    {
+        synchronized (mLock)
+        {
+            mManager.addSelectionChangeCallback(callback);
+        }
+    }
+
+    @Override
+    public final void removeSelectionChangeCallback(SelectionChangeCallback<T> callback)
+    {
+        synchronized (mLock)
+        {
+            mManager.removeSelectionChangeCallback(callback);
+        }
+    }
+
+    @Override
+    public final void setCallbackExecutor(Executor executor, CallbackDelivery delivery)
+    {
+        synchronized (mLock)
+        {
+            mManager.setCallbackExecutor(executor, delivery);
+        }
+    }
+
+    @Override
+    public final void setMode(Mode mode)
+    {
+        synchronized (mLock)
+        {
+            mManager.setMode(mode);
+            publish();
+        }
+    }
+
+    @Override
+    public final void setKeyExtractor(KeyExtractor<T, ?> extractor)
+    {
+        synchronized (mLock)
+        {
+            mManager.setKeyExtractor(extractor);
+            publish();
+        }
+    }
+
+    @Override
+    public final void setSelectionOrderEnabled(boolean enabled)
+    {
+        synchronized (mLock)
+        {
+            mManager.setSelectionOrderEnabled(enabled);
+            publish();
+        }
+    }
+
+    @Override
+    public final void setMaxSelected(int max, OverflowPolicy policy)
+    {
+        synchronized (mLock)
+        {
+            mManager.setMaxSelected(max, policy);
+        }
+    }
+
+    @Override
+    public final void setSelectableFilter(SelectableFilter<T> filter)
+    {
+        synchronized (mLock)
+        {
+            mManager.setSelectableFilter(filter);
+        }
+    }
+
+    //---------- read start ----------
+
+    @Override
+    public final Mode getMode()
+    {
+        return readSnapshot().getMode();
+    }
+
+    @Override
+    public final boolean isSelected(T item)
+    {
+        return readSnapshot().contains(item);
+    }
+
+    @Override
+    public final int getSelectedIndex()
+    {
+        final SelectionSnapshot<T> snapshot = readSnapshot();
+        return snapshot.indexOf(snapshot.getSelectedItem());
+    }
+
+    @Override
+    public final List<Integer> getSelectedIndexs()
+    {
+        final SelectionSnapshot<T> snapshot = readSnapshot();
+        checkMulti(snapshot);
+
+        final int[] array = snapshot.getSelectedIndexArray();
+        final List<Integer> list = new ArrayList<>(array.length);
+        for (int index : array)
+        {
+            list.add(index);
+        }
+        return list;
+    }
+
+    @Override
+    public final int getSelectedCount()
+    {
+        return readSnapshot().size();
+    }
+
+    @Override
+    public final int[] getSelectedIndexArray()
+    {
+        return readSnapshot().getSelectedIndexArray();
+    }
+
+    @Override
+    public final int getSelectedIndexes(int[] out)
+    {
+        return readSnapshot().getSelectedIndexes(out);
+    }
+
+    @Override
+    public final T getSelectedItem()
+    {
+        return readSnapshot().getSelectedItem();
+    }
+
+    @Override
+    public final List<T> getSelectedItems()
+    {
+        final SelectionSnapshot<T> snapshot = readSnapshot();
+        checkMulti(snapshot);
+        return snapshot.toList();
+    }
+
+    @Override
+    public final int indexOf(T item)
+    {
+        return readSnapshot().indexOf(item);
+    }
+
+    @Override
+    public final SelectionSnapshot<T> snapshot()
+    {
+        return readSnapshot();
+    }
+
+    /**
+     * 没有设置{@link KeyExtractor}或者设置了数据源的时候在锁内查询
+     */
+    @Override
+    public final int indexOfKey(Object key)
+    {
+        final Published<T> published = mPublished;
+        if (published.keyExtractor == null || Thread.holdsLock(mLock))
+        {
+            synchronized (mLock)
+            {
+                return mManager.indexOfKey(key);
+            }
+        }
+        return published.snapshot.indexOfKey(key, published.keyExtractor);
+    }
+
+    @Override
+    public final List<T> getSelectedItems(Order order)
+    {
+        if (order == Order.LIST)
+            return getSelectedItems();
+
+        final Published<T> published = mPublished;
+        if (order == null || published.order == null || Thread.holdsLock(mLock))
+        {
+            // 不支持的情况在锁内按内部选择管理器的规则抛出异常
+            synchronized (mLock)
+            {
+                return mManager.getSelectedItems(order);
+            }
+        }
+        return new ArrayList<>(published.order.list);
+    }
+
+    @Override
+    public final int getSelectionRank(T item)
+    {
+        final Published<T> published = mPublished;
+        if (published.order == null || Thread.holdsLock(mLock))
+        {
+            synchronized (mLock)
+            {
+                return mManager.getSelectionRank(item);
+            }
+        }
+        return published.order.rankOf(item);
+    }
+
+    @Override
+    public final Iterable<T> selectedView()
+    {
+        return selectedItemsView(Order.LIST);
+    }
+
+    @Override
+    public final Collection<T> selectedItemsView()
+    {
+        return selectedItemsView(Order.LIST);
+    }
+
+    @Override
+    public final Collection<T> selectedItemsView(Order order)
+    {
+        if (order == null)
+            throw new NullPointerException("order is null");
+
+        return order == Order.LIST ? mListView : mSelectionView;
+    }
+
+    @Override
+    public final void forEachSelected(SelectedVisitor<T> visitor)
+    {
+        readSnapshot().forEachSelected(visitor);
+    }
+
+    //---------- read end ----------
+
+    @Override
+    public final void selectAll()
+    {
+        synchronized (mLock)
+        {
+            mManager.selectAll();
+            publish();
+        }
+    }
+
+    @Override
+    public final void performClick(int index)
+    {
+        synchronized (mLock)
+        {
+            mManager.performClick(index);
+            publish();
+        }
+    }
+
+    @Override
+    public final void performClick(T item)
+    {
+        synchronized (mLock)
+        {
+            mManager.performClick(item);
+            publish();
+        }
+    }
+
+    @Override
+    public final void setSelected(int index, boolean selected)
+    {
+        synchronized (mLock)
+        {
+            mManager.setSelected(index, selected);
+            publish();
+        }
+    }
+
+    @Override
+    public final void setSelected(T item, boolean selected)
+    {
+        synchronized (mLock)
+        {
+            mManager.setSelected(item, selected);
+            publish();
+        }
+    }
+
+    @Override
+    public final void clearSelected()
+    {
+        synchronized (mLock)
+        {
+            mManager.clearSelected();
+            publish();
+        }
+    }
+
+    @Override
+    public final void setSelected(int fromIndex, int toIndex, boolean selected)
+    {
+        synchronized (mLock)
+        {
+            mManager.setSelected(fromIndex, toIndex, selected);
+            publish();
+        }
+    }
+
+    @Override
+    public final void toggleRange(int fromIndex, int toIndex)
+    {
+        synchronized (mLock)
+        {
+            mManager.toggleRange(fromIndex, toIndex);
+            publish();
+        }
+    }
+
+    @Override
+    public final void invertSelection()
+    {
+        synchronized (mLock)
+        {
+            mManager.invertSelection();
+            publish();
+        }
+    }
+
+    @Override
+    public final void setSelectedByKey(Object key, boolean selected)
+    {
+        synchronized (mLock)
+        {
+            mManager.setSelectedByKey(key, selected);
+            publish();
+        }
+    }
+
+    /**
+     * 批量操作期间其他线程的写操作也会被合并到本次批量操作中，建议使用{@link #runInBatch(Runnable)}
+     */
+    @Override
+    public final void beginBatch()
+    {
+        synchronized (mLock)
+        {
+            mManager.beginBatch();
+        }
+    }
+
+    @Override
+    public final void endBatch()
+    {
+        synchronized (mLock)
+        {
+            mManager.endBatch();
+            publish();
+        }
+    }
+
+    /**
+     * 执行期间持有锁，其他线程的写操作会等待本次批量操作结束
+     */
+    @Override
+    public final void runInBatch(Runnable runnable)
+    {
+        synchronized (mLock)
+        {
+            mManager.runInBatch(runnable);
+            publish();
+        }
+    }
+
+    @Override
+    public final byte[] saveState()
+    {
+        synchronized (mLock)
+        {
+            return mManager.saveState();
+        }
+    }
+
+    @Override
+    public final void restoreState(byte[] state)
+    {
+        synchronized (mLock)
+        {
+            mManager.restoreState(state);
+            publish();
+        }
+    }
+
+    @Override
+    public final void setUndoLimit(int maxLevels, int maxBytes)
+    {
+        synchronized (mLock)
+        {
+            mManager.setUndoLimit(maxLevels, maxBytes);
+        }
+    }
+
+    @Override
+    public final boolean canUndo()
+    {
+        synchronized (mLock)
+        {
+            return mManager.canUndo();
+        }
+    }
+
+    @Override
+    public final boolean canRedo()
+    {
+        synchronized (mLock)
+        {
+            return mManager.canRedo();
+        }
+    }
+
+    @Override
+    public final boolean undo()
+    {
+        synchronized (mLock)
+        {
+            final boolean result = mManager.undo();
+            publish();
+            return result;
+        }
+    }
+
+    @Override
+    public final boolean redo()
+    {
+        synchronized (mLock)
+        {
+            final boolean result = mManager.redo();
+            publish();
+            return result;
+        }
+    }
+
+    //---------- data start ----------
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final void setItems(T... items)
+    {
+        synchronized (mLock)
+        {
+            mManager.setItems(items);
+            publish();
+        }
+    }
+
+    @Override
+    public final void setItems(List<T> items)
+    {
+        synchronized (mLock)
+        {
+            mManager.setItems(items);
+            publish();
+        }
+    }
+
+    @Override
+    public final void submitItems(List<T> items)
+    {
+        synchronized (mLock)
+        {
+            mManager.submitItems(items);
+            publish();
+        }
+    }
+
+    /**
+     * 数据源会在多个线程中被访问，需要是线程安全的
+     */
+    @Override
+    public final void setItemSource(ItemSource<T> source)
+    {
+        synchronized (mLock)
+        {
+            mManager.setItemSource(source);
+            publish();
+        }
+    }
+
+    @Override
+    public final void addItem(T item)
+    {
+        synchronized (mLock)
+        {
+            mManager.addItem(item);
+            publish();
+        }
+    }
+
+    @Override
+    public final void addItems(List<T> items)
+    {
+        synchronized (mLock)
+        {
+            mManager.addItems(items);
+            publish();
+        }
+    }
+
+    @Override
+    public final void addItem(int index, T item)
+    {
+        synchronized (mLock)
+        {
+            mManager.addItem(index, item);
+            publish();
+        }
+    }
+
+    @Override
+    public final void addItems(int index, List<T> items)
+    {
+        synchronized (mLock)
+        {
+            mManager.addItems(index, items);
+            publish();
+        }
+    }
+
+    @Override
+    public final void removeItem(T item)
+    {
+        synchronized (mLock)
+        {
+            mManager.removeItem(item);
+            publish();
+        }
+    }
+
+    @Override
+    public final void updateItem(int index, T item)
+    {
+        synchronized (mLock)
+        {
+            mManager.updateItem(index, item);
+            publish();
+        }
+    }
+
+    //---------- data end ----------
+
+    /**
+     * 写操作结束之后发布最新的状态，需要在锁内调用，批量操作期间不发布，批量操作结束的时候一起发布
+     */
+    private void publish()
+    {
+        if (mManager.isInBatch())
+            return;
+
+        final SelectionSnapshot<T> snapshot = mManager.snapshot();
+        final Published<T> last = mPublished;
+
+        OrderTable<T> order = null;
+        if (mManager.hasSelectionOrder())
+        {
+            // 选中状态和数据都没有变化的时候选中顺序也没有变化
+            if (last != null && last.order != null && snapshot.sharesSelection(last.snapshot))
+                order = last.order;
+            else
+                order = new OrderTable<>(mManager.getSelectedItems(Order.SELECTION));
+        }
+
+        final KeyExtractor<T, ?> keyExtractor = mManager.hasItemSource() ? null : mManager.getKeyExtractor();
+        mPublished = new Published<>(snapshot, keyExtractor, order);
+    }
+
+    /**
+     * 返回最新发布的快照
+     * <br>
+     * 在锁内查询(例如同步回调中)的时候写操作可能还没有结束，返回内部选择管理器当前状态的快照
+     */
+    private SelectionSnapshot<T> readSnapshot()
+    {
+        if (Thread.holdsLock(mLock))
+            return mManager.snapshot();
+
+        return mPublished.snapshot;
+    }
+
+    /**
+     * 读取最新发布的状态，遍历的是遍历开始时发布的状态，不会抛出{@link java.util.ConcurrentModificationException}
+     */
+    private final class SnapshotView extends AbstractCollection<T>
+    {
+        private final boolean mBySelection;
+
+        SnapshotView(boolean bySelection)
+        {
+            mBySelection = bySelection;
+        }
+
+        @Override
+        public int size()
+        {
+            return readSnapshot().size();
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public boolean contains(Object o)
+        {
+            return readSnapshot().contains((T) o);
+        }
+
+        @Override
+        public Iterator<T> iterator()
+        {
+            final SelectionSnapshot<T> snapshot = readSnapshot();
+            if (!mBySelection || snapshot.getMode().isSingleType())
+                return snapshot.iterator();
+
+            final Published<T> published = mPublished;
+            final List<T> list;
+            if (published.order == null || Thread.holdsLock(mLock))
+            {
+                synchronized (mLock)
+                {
+                    list = mManager.getSelectedItems(Order.SELECTION);
+                }
+            } else
+            {
+                list = published.order.list;
+            }
+            return Collections.unmodifiableList(list).iterator();
+        }
+    }
+
+    /**
+     * 一次写操作之后发布的状态，创建之后不会再变化
+     */
+    private static final class Published<T>
+    {
+        final SelectionSnapshot<T> snapshot;
+        /** 没有设置或者设置了数据源的时候为null */
+        final KeyExtractor<T, ?> keyExtractor;
+        /** 单选模式或者没有开启选中顺序的时候为null */
+        final OrderTable<T> order;
+
+        Published(SelectionSnapshot<T> snapshot, KeyExtractor<T, ?> keyExtractor, OrderTable<T> order)
+        {
+            this.snapshot = snapshot;
+            this.keyExtractor = keyExtractor;
+            this.order = order;
+        }
+    }
+
+    /**
+     * 发布的选中顺序，排名索引在第一次查询的时候创建
+     */
+    private static final class OrderTable<T>
+    {
+        final List<T> list;
+        private volatile Map<T, Integer> mRanks;
+
+        OrderTable(List<T> list)
+        {
+            this.list = list;
+        }
+
+        int rankOf(T item)
+        {
+            Map<T, Integer> ranks = mRanks;
+            if (ranks == null)
+            {
+                // 多个线程同时创建的结果是一样的，不需要加锁
+                ranks = new IdentityHashMap<>(list.size());
+                for (int i = 0; i < list.size(); i++)
+                {
+                    ranks.put(list.get(i), i);
+                }
+                mRanks = ranks;
+            }
+
+            final Integer rank = ranks.get(item);
+            return rank == null ? -1 : rank;
+        }
+    }
+
+    private static void checkMulti(SelectionSnapshot<?> snapshot)
+    {
+        if (snapshot.getMode().isSingleType())
+            throw new UnsupportedOperationException("this method is not supported for single mode");
+    }
+}
@@ -0,0 +1,583 @@
+package com.sd.lib.selectmanager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 分区选择管理器，所有分区共用一个数据列表和一套回调，每个分区可以设置不同的选择模式
+ * <br>
+ * 分区的item数量和选中数量用树状数组维护，按位置查找所在分区，查询分区的起始位置，
+ * 添加移除item的时候更新分区数量都是O(log n)，分区的选中数量随着选中状态的变化实时更新
+ * <br>
+ * 位置参数都是所有分区依次排开之后的位置
+ *
+ * @param <T>
+ */
+public class FSectionSelectManager<T>
+{
+    private final Store mStore = new Store();
+
+    /** 每个分区的item数量 */
+    private final SectionIndex mSections = new SectionIndex();
+    /** 每个分区的选中数量 */
+    private final SectionIndex mSelectedCounts = new SectionIndex();
+    private SelectManager.Mode[] mSectionModes = new SelectManager.Mode[0];
+
+    private SelectManager.Mode mDefaultMode = SelectManager.Mode.MULTI;
+    /** 为true的时候不统计选中数量的变化，由调用的地方自己处理 */
+    private boolean mIgnoreChange;
+
+    public FSectionSelectManager()
+    {
+        mStore.setMode(SelectManager.Mode.MULTI);
+    }
+
+    /**
+     * 添加回调对象
+     *
+     * @param callback
+     */
+    public final void addCallback(SelectManager.Callback<T> callback)
+    {
+        mStore.addCallback(callback);
+    }
+
+    /**
+     * 移除回调对象
+     *
+     * @param callback
+     */
+    public final void removeCallback(SelectManager.Callback<T> callback)
+    {
+        mStore.removeCallback(callback);
+    }
+
+    /**
+     * 添加批量变化回调对象，见{@link SelectManager#addSelectionChangeCallback(SelectManager.SelectionChangeCallback)}
+     *
+     * @param callback
+     */
+    public final void addSelectionChangeCallback(SelectManager.SelectionChangeCallback<T> callback)
+    {
+        mStore.addSelectionChangeCallback(callback);
+    }
+
+    /**
+     * 移除批量变化回调对象
+     *
+     * @param callback
+     */
+    public final void removeSelectionChangeCallback(SelectManager.SelectionChangeCallback<T> callback)
+    {
+        mStore.removeSelectionChangeCallback(callback);
+    }
+
+    /**
+     * 添加拦截对象
+     *
+     * @param interceptor
+     */
+    public final void addStateInterceptor(SelectManager.StateInterceptor<T> interceptor)
+    {
+        mStore.addStateInterceptor(interceptor);
+    }
+
+    /**
+     * 移除拦截对象
+     *
+     * @param interceptor
+     */
+    public final void removeStateInterceptor(SelectManager.StateInterceptor<T> interceptor)
+    {
+        mStore.removeStateInterceptor(interceptor);
+    }
+
+    /**
+     * 设置{@link #setSections(List)}的时候每个分区默认的选择模式，默认{@link SelectManager.Mode#MULTI}
+     *
+     * @param mode
+     */
+    public final void setDefaultMode(SelectManager.Mode mode)
+    {
+        if (mode == null)
+            throw new NullPointerException("mode is null");
+
+        mDefaultMode = mode;
+    }
+
+    /**
+     * 设置分区的选择模式，模式变化的时候清空该分区的选中状态
+     *
+     * @param section
+     * @param mode
+     */
+    public final void setSectionMode(int section, SelectManager.Mode mode)
+    {
+        if (mode == null)
+            throw new NullPointerException("mode is null");
+
+        checkSection(section);
+        if (mSectionModes[section] != mode)
+        {
+            clearSection(section);
+            mSectionModes[section] = mode;
+        }
+    }
+
+    /**
+     * 返回分区的选择模式
+     *
+     * @param section
+     * @return
+     */
+    public final SelectManager.Mode getSectionMode(int section)
+    {
+        checkSection(section);
+        return mSectionModes[section];
+    }
+
+    /**
+     * 返回分区数量
+     *
+     * @return
+     */
+    public final int getSectionCount()
+    {
+        return mSections.size();
+    }
+
+    /**
+     * 返回分区的item数量
+     *
+     * @param section
+     * @return
+     */
+    public final int getSectionSize(int section)
+    {
+        checkSection(section);
+        return mSections.get(section);
+    }
+
+    /**
+     * 返回分区第一个item的位置
+     *
+     * @param section
+     * @return
+     */
+    public final int getSectionStart(int section)
+    {
+        checkSection(section);
+        return mSections.prefix(section);
+    }
+
+    /**
+     * 返回位置所在的分区
+     *
+     * @param index
+     * @return -1表示位置不合法
+     */
+    public final int getSectionOf(int index)
+    {
+        return mSections.find(index);
+    }
+
+    /**
+     * 返回item所在的分区
+     *
+     * @param item
+     * @return -1表示不存在
+     */
+    public final int getSectionOf(T item)
+    {
+        return mSections.find(mStore.indexOf(item));
+    }
+
+    /**
+     * 返回分区的选中数量
+     *
+     * @param section
+     * @return
+     */
+    public final int getSectionSelectedCount(int section)
+    {
+        checkSection(section);
+        return mSelectedCounts.get(section);
+    }
+
+    /**
+     * 返回所有分区的选中数量
+     *
+     * @return
+     */
+    public final int getSelectedCount()
+    {
+        return mSelectedCounts.total();
+    }
+
+    /**
+     * 返回item数量
+     *
+     * @return
+     */
+    public final int getItemCount()
+    {
+        return mStore.itemCount();
+    }
+
+    /**
+     * 返回某个位置的item
+     *
+     * @param index
+     * @return
+     */
+    public final T getItem(int index)
+    {
+        return mStore.itemAt(index);
+    }
+
+    /**
+     * 返回item的位置
+     *
+     * @param item
+     * @return -1表示不存在
+     */
+    public final int indexOf(T item)
+    {
+        return mStore.indexOf(item);
+    }
+
+    /**
+     * item是否被选中
+     *
+     * @param item
+     * @return
+     */
+    public final boolean isSelected(T item)
+    {
+        return mStore.isSelected(item);
+    }
+
+    /**
+     * 返回所有选中的item
+     *
+     * @return
+     */
+    public final List<T> getSelectedItems()
+    {
+        return mStore.getSelectedItems();
+    }
+
+    /**
+     * 返回分区内选中的item
+     *
+     * @param section
+     * @return
+     */
+    public final List<T> getSelectedItems(int section)
+    {
+        checkSection(section);
+        final int start = mSections.prefix(section);
+        final int end = start + mSections.get(section);
+
+        final List<T> list = new ArrayList<>(mSelectedCounts.get(section));
+        for (int i = mStore.nextSelectedIndex(start); i >= 0 && i < end; i = mStore.nextSelectedIndex(i + 1))
+        {
+            list.add(mStore.itemAt(i));
+        }
+        return list;
+    }
+
+    /**
+     * 模拟点击某个位置，按所在分区的选择模式处理
+     *
+     * @param index
+     */
+    public final void performClick(int index)
+    {
+        if (index < 0 || index >= getItemCount())
+            return;
+
+        final boolean selected = mStore.isSelected(mStore.itemAt(index));
+        setSelectedInternal(index, !selected, SelectMetrics.Operation.CLICK);
+    }
+
+    /**
+     * 模拟点击item，按所在分区的选择模式处理
+     *
+     * @param item
+     */
+    public final void performClick(T item)
+    {
+        final int index = mStore.indexOf(item);
+        if (index < 0)
+            return;
+
+        setSelectedInternal(index, !mStore.isSelected(item), SelectMetrics.Operation.CLICK);
+    }
+
+    /**
+     * 设置某个位置的选中状态，按所在分区的选择模式处理
+     *
+     * @param index
+     * @param selected
+     */
+    public final void setSelected(int index, boolean selected)
+    {
+        if (index < 0 || index >= getItemCount())
+            return;
+
+        setSelectedInternal(index, selected, SelectMetrics.Operation.SET_SELECTED);
+    }
+
+    /**
+     * 设置item的选中状态，按所在分区的选择模式处理
+     *
+     * @param item
+     * @param selected
+     */
+    public final void setSelected(T item, boolean selected)
+    {
+        final int index = mStore.indexOf(item);
+        if (index < 0)
+            return;
+
+        setSelectedInternal(index, selected, SelectMetrics.Operation.SET_SELECTED);
+    }
+
+    private void setSelectedInternal(int index, boolean selected, SelectMetrics.Operation operation)
+    {
+        final int section = mSections.find(index);
+        final T item = mStore.itemAt(index);
+        if (mStore.isSelected(item) == selected)
+            return;
+
+        switch (mSectionModes[section])
+        {
+            case SINGLE_MUST_ONE_SELECTED:
+                if (selected)
+                    selectSingle(section, index, operation);
+                break;
+            case SINGLE:
+                if (selected)
+                    selectSingle(section, index, operation);
+                else
+                    mStore.setSelected(index, false);
+                break;
+            case MULTI_MUST_ONE_SELECTED:
+                if (selected || mSelectedCounts.get(section) > 1)
+                    mStore.setSelected(index, selected);
+                break;
+            case MULTI:
+                mStore.setSelected(index, selected);
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void selectSingle(int section, int index, SelectMetrics.Operation operation)
+    {
+        final int start = mSections.prefix(section);
+        mStore.selectInRange(index, start, start + mSections.get(section), operation);
+    }
+
+    /**
+     * 选中分区内所有item，只支持多选模式的分区
+     *
+     * @param section
+     */
+    public final void selectAllInSection(int section)
+    {
+        checkSection(section);
+        if (mSectionModes[section].isSingleType())
+            throw new UnsupportedOperationException("this method is not supported for single mode");
+
+        final int start = mSections.prefix(section);
+        mStore.setSelected(start, start + mSections.get(section), true);
+    }
+
+    /**
+     * 取消选中分区内所有item，和{@link SelectManager#clearSelected()}一样不经过拦截对象，也不受必选模式的限制
+     *
+     * @param section
+     */
+    public final void clearSection(int section)
+    {
+        checkSection(section);
+        final int start = mSections.prefix(section);
+        mStore.clearSelected(start, start + mSections.get(section));
+    }
+
+    /**
+     * 取消选中所有item
+     */
+    public final void clearSelected()
+    {
+        mStore.clearSelected();
+    }
+
+    /**
+     * 开始批量操作，见{@link SelectManager#beginBatch()}
+     */
+    public final void beginBatch()
+    {
+        mStore.beginBatch();
+    }
+
+    /**
+     * 结束批量操作，必须和{@link #beginBatch()}成对调用
+     */
+    public final void endBatch()
+    {
+        mStore.endBatch();
+    }
+
+    /**
+     * 以批量操作的方式执行runnable
+     *
+     * @param runnable
+     */
+    public final void runInBatch(Runnable runnable)
+    {
+        mStore.runInBatch(runnable);
+    }
+
+    //---------- data start ----------
+
+    /**
+     * 设置分区数据，每个分区的选择模式重置为{@link #setDefaultMode(SelectManager.Mode)}设置的模式
+     *
+     * @param sections
+     */
+    public final void setSections(List<? extends List<T>> sections)
+    {
+        final int size = sections == null ? 0 : sections.size();
+        final int[] sizes = new int[size];
+        final List<T> listItem = new ArrayList<>();
+        for (int i = 0; i < size; i++)
+        {
+            final List<T> section = sections.get(i);
+            if (section != null)
+            {
+                listItem.addAll(section);
+                sizes[i] = section.size();
+            }
+        }
+
+        // 回调延迟到分区和选中数量都更新之后再触发
+        mStore.beginBatch();
+        try
+        {
+            mIgnoreChange = true;
+            try
+            {
+                mStore.setItems(listItem);
+            } finally
+            {
+                mIgnoreChange = false;
+            }
+
+            mSections.reset(sizes);
+            mSectionModes = new SelectManager.Mode[size];
+            Arrays.fill(mSectionModes, mDefaultMode);
+            recountSelected();
+        } finally
+        {
+            mStore.endBatch();
+        }
+    }
+
+    /**
+     * 添加item到分区末尾
+     *
+     * @param section
+     * @param item
+     */
+    public final void addItem(int section, T item)
+    {
+        checkSection(section);
+        addItem(section, mSections.get(section), item);
+    }
+
+    /**
+     * 添加item到分区内的某个位置
+     *
+     * @param section
+     * @param position 分区内的位置
+     * @param item
+     */
+    public final void addItem(int section, int position, T item)
+    {
+        checkSection(section);
+        if (position < 0 || position > mSections.get(section))
+            throw new IndexOutOfBoundsException("position:" + position + " size:" + mSections.get(section));
+
+        if (item == null)
+            return;
+
+        mStore.addItem(mSections.prefix(section) + position, item);
+        mSections.add(section, 1);
+    }
+
+    /**
+     * 移除item
+     *
+     * @param item
+     */
+    public final void removeItem(T item)
+    {
+        final int index = mStore.indexOf(item);
+        if (index < 0)
+            return;
+
+        final int section = mSections.find(index);
+
+        // 取消选中的时候item还在原来的位置上，由回调统计选中数量，被拦截之后清空选中也会逐个统计；
+        // 在批量操作中移除，回调触发的时候分区数量已经更新
+        mStore.beginBatch();
+        try
+        {
+            mStore.removeItem(item);
+            mSections.add(section, -1);
+        } finally
+        {
+            mStore.endBatch();
+        }
+    }
+
+    //---------- data end ----------
+
+    /**
+     * 按当前的选中状态重新统计每个分区的选中数量
+     */
+    private void recountSelected()
+    {
+        final int[] counts = new int[mSections.size()];
+        for (int i = mStore.nextSelectedIndex(0); i >= 0; i = mStore.nextSelectedIndex(i + 1))
+        {
+            counts[mSections.find(i)]++;
+        }
+        mSelectedCounts.reset(counts);
+    }
+
+    private void checkSection(int section)
+    {
+        if (section < 0 || section >= mSections.size())
+            throw new IndexOutOfBoundsException("section:" + section + " count:" + mSections.size());
+    }
+
+    private final class Store extends FSelectManager<T>
+    {
+        @Override
+        void onSelectedChangedImmediately(boolean selected, T item)
+        {
+            if (mIgnoreChange)
+                return;
+
+            final int section = mSections.find(indexOf(item));
+            if (section >= 0)
+                mSelectedCounts.add(section, selected ? 1 : -1);
+        }
+    }
+}
@@ -0,0 +1,2885 @@
+package com.sd.lib.selectmanager;
+
+import java.util.AbstractCollection;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.ConcurrentModificationException;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+import java.util.concurrent.Executor;
+
+/**
+ * 选择管理器
+ *
+ * @param <T>
+ */
+public class FSelectManager<T> implements SelectManager<T>
+{
+    private Mode mMode = Mode.SINGLE_MUST_ONE_SELECTED;
+    private List<T> mListItem = new ArrayList<>();
+    private ItemSource<T> mItemSource;
+
+    private final ItemSource<T> mItems = new ItemSource<T>()
+    {
+        @Override
+        public int size()
+        {
+            return itemCount();
+        }
+
+        @Override
+        public T get(int index)
+        {
+            return itemAt(index);
+        }
+
+        @Override
+        public int indexOf(T item)
+        {
+            return FSelectManager.this.indexOf(item);
+        }
+    };
+    private final ItemIndex<T> mItemIndex = new ItemIndex<>(mItems);
+    private ItemIndex<T> mKeyIndex;
+
+    private T mCurrentItem;
+    private PositionBitmap mSelected = new PositionBitmap();
+
+    /** 多选模式下最多可以选中的数量，小于等于0表示不限制 */
+    private int mMaxSelected;
+    private OverflowPolicy mOverflowPolicy = OverflowPolicy.REJECT;
+    private boolean mSelectionOrderEnabled;
+    /** 多选模式下按选中顺序保存的item，开启了选中顺序或者{@link OverflowPolicy#EVICT_OLDEST}的时候才不为null */
+    private SelectionOrder<T> mSelectionOrder;
+
+    private SelectableFilter<T> mSelectableFilter;
+    /** 不可选中的位置，和数据一起平移，不会被快照共享 */
+    private PositionBitmap mDisabled = new PositionBitmap();
+
+    /** 选中状态的修改次数，视图遍历的时候用来检查选中状态是否发生了变化 */
+    private int mSelectionModCount;
+    private SelectedView mListView;
+    private SelectedView mSelectionView;
+
+    /** mSelected是否被快照共享，共享的话修改之前要先拷贝 */
+    private boolean mSelectedShared;
+    /** 不为null表示mListItem被快照共享，共享的话修改之前要先拷贝 */
+    private SelectionSnapshot.Items<T> mSnapshotItems;
+
+    /**
+     * 回调和拦截对象保存在写时复制的数组中，为null表示没有，遍历的时候不需要创建迭代器，
+     * 添加和移除的时候在mHolderLock内创建新的数组
+     */
+    private final Object mHolderLock = new Object();
+    private volatile Object[] mCallbackHolder;
+    private OnItemInitCallback<T> mOnItemInitCallback;
+    private volatile Object[] mStateInterceptorHolder;
+
+    private volatile Object[] mSingleSelectCallbackHolder;
+    private volatile Object[] mSelectionChangeCallbackHolder;
+
+    private SelectedInterceptor<T> mSelectedInterceptor;
+
+    /** 为null表示同步回调 */
+    private CallbackDispatcher<T> mCallbackDispatcher;
+
+    private volatile SelectMetrics mMetrics;
+    /** 统计中的操作嵌套深度，大于0表示正在统计 */
+    private int mMetricsDepth;
+    private long mMetricsStartTime;
+    private int mMetricsCallbackCount;
+
+    /** 撤销记录，为null表示没有开启 */
+    private SelectionJournal mJournal;
+    /** 本次批量操作是否不记录到撤销记录中，最外层的{@link #endBatch()}的时候重置 */
+    private boolean mJournalSkip;
+
+    private static final int MAX_RECYCLE_BATCH_SIZE = 64;
+
+    private int mBatchCount;
+    private BatchChanges<T> mBatchChanges;
+    /** 为true的时候取消选中只记录到批量变化回调中，不触发单个item的回调 */
+    private boolean mSilentNormal;
+    /** 回收的批量变化记录，下次批量操作时复用 */
+    private BatchChanges<T> mRecycledBatchChanges;
+
+    /** 同步回调批量变化的时候复用的列表，回调结束之后清空，回调中再次触发的时候创建新的列表 */
+    private final List<T> mBufferSelected = new ArrayList<>();
+    private final List<T> mBufferNormal = new ArrayList<>();
+    private final List<T> mBufferSelectedView = Collections.unmodifiableList(mBufferSelected);
+    private final List<T> mBufferNormalView = Collections.unmodifiableList(mBufferNormal);
+    private boolean mBufferInUse;
+
+    @Override
+    public final void addCallback(final Callback<T> callback)
+    {
+        if (callback == null)
+            return;
+
+        synchronized (mHolderLock)
+        {
+            mCallbackHolder = addHolder(mCallbackHolder, callback);
+        }
+    }
+
+    @Override
+    public final void removeCallback(final Callback<T> callback)
+    {
+        if (callback == null)
+            return;
+
+        synchronized (mHolderLock)
+        {
+            mCallbackHolder = removeHolder(mCallbackHolder, callback);
+        }
+    }
+
+    @Override
+    public final void setOnItemInitCallback(OnItemInitCallback<T> callback)
+    {
+        mOnItemInitCallback = callback;
+    }
+
+    @Override
+    public final void setSelectedInterceptor(SelectedInterceptor<T> interceptor)
+    {
+        mSelectedInterceptor = interceptor;
+    }
+
+    @Override
+    public final void addStateInterceptor(StateInterceptor<T> interceptor)
+    {
+        if (interceptor == null)
+            return;
+
+        synchronized (mHolderLock)
+        {
+            mStateInterceptorHolder = addHolder(mStateInterceptorHolder, interceptor);
+        }
+    }
+
+    @Override
+    public final void removeStateInterceptor(StateInterceptor<T> interceptor)
+    {
+        if (interceptor == null)
+            return;
+
+        synchronized (mHolderLock)
+        {
+            mStateInterceptorHolder = removeHolder(mStateInterceptorHolder, interceptor);
+        }
+    }
+
+    @Override
+    public void addSingleSelectCallback(SingleSelectCallback<T> callback)
+    {
+        if (callback == null)
+            return;
+
+        synchronized (mHolderLock)
+        {
+            mSingleSelectCallbackHolder = addHolder(mSingleSelectCallbackHolder, callback);
+        }
+    }
+
+    @Override
+    public void removeSingleSelectCallback(SingleSelectCallback<T> callback)
+    {
+        if (callback == null)
+            return;
+
+        synchronized (mHolderLock)
+        {
+            mSingleSelectCallbackHolder = removeHolder(mSingleSelectCallbackHolder, callback);
+        }
+    }
+
+    @Override
+    public final void addSelectionChangeCallback(SelectionChangeCallback<T> callback)
+    {
+        if (callback == null)
+            return;
+
+        synchronized (mHolderLock)
+        {
+            mSelectionChangeCallbackHolder = addHolder(mSelectionChangeCallbackHolder, callback);
+        }
+    }
+
+    @Override
+    public final void removeSelectionChangeCallback(SelectionChangeCallback<T> callback)
+    {
+        if (callback == null)
+            return;
+
+        synchronized (mHolderLock)
+        {
+            mSelectionChangeCallbackHolder = removeHolder(mSelectionChangeCallbackHolder, callback);
+        }
+    }
+
+    @Override
+    public final void setCallbackExecutor(Executor executor, CallbackDelivery delivery)
+    {
+        if (delivery == null)
+            throw new NullPointerException("delivery is null");
+
+        if (delivery == CallbackDelivery.SYNC)
+            mCallbackDispatcher = null;
+        else
+            mCallbackDispatcher = new CallbackDispatcher<>(mCallbackTarget, delivery, executor, mCurrentItem);
+    }
+
+    /**
+     * 设置统计对象
+     *
+     * @param metrics null-不统计
+     */
+    public final void setMetrics(SelectMetrics metrics)
+    {
+        mMetrics = metrics;
+    }
+
+    @Override
+    public final void setKeyExtractor(KeyExtractor<T, ?> extractor)
+    {
+        mKeyIndex = extractor == null ? null : new ItemIndex<>(mItems, extractor);
+    }
+
+    @Override
+    public final void setMaxSelected(int max, OverflowPolicy policy)
+    {
+        if (policy == null)
+            throw new NullPointerException("policy is null");
+
+        mMaxSelected = max;
+        mOverflowPolicy = policy;
+        updateSelectionOrder();
+    }
+
+    @Override
+    public final void setSelectionOrderEnabled(boolean enabled)
+    {
+        mSelectionOrderEnabled = enabled;
+        updateSelectionOrder();
+    }
+
+    /**
+     * 根据配置创建或者释放选中顺序
+     */
+    private void updateSelectionOrder()
+    {
+        final boolean need = mSelectionOrderEnabled || (mMaxSelected > 0 && mOverflowPolicy == OverflowPolicy.EVICT_OLDEST);
+        if (need)
+        {
+            if (mSelectionOrder == null)
+            {
+                // 已经选中的item没有选中顺序，按列表顺序作为初始顺序
+                mSelectionOrder = new SelectionOrder<>();
+                for (int i = mSelected.nextSetBit(0); i >= 0; i = mSelected.nextSetBit(i + 1))
+                {
+                    mSelectionOrder.add(itemAt(i));
+                }
+            }
+        } else
+        {
+            mSelectionOrder = null;
+        }
+    }
+
+    @Override
+    public final void setSelectableFilter(SelectableFilter<T> filter)
+    {
+        mSelectableFilter = filter;
+        refreshSelectable();
+    }
+
+    @Override
+    public final void setMode(final Mode mode)
+    {
+        if (mode == null)
+            throw new NullPointerException("mode is null");
+
+        if (mMode != mode)
+        {
+            final boolean metrics = beginOperation();
+            try
+            {
+                clearSelected();
+                mMode = mode;
+                invalidateJournal();
+            } finally
+            {
+                endOperation(metrics, SelectMetrics.Operation.SET_MODE);
+            }
+        }
+    }
+
+    @Override
+    public final Mode getMode()
+    {
+        return mMode;
+    }
+
+    @Override
+    public final boolean isSelected(final T item)
+    {
+        if (item == null)
+            return false;
+
+        if (getMode().isSingleType())
+            return item == mCurrentItem;
+        else
+            return mSelected.contains(indexOf(item));
+    }
+
+    @Override
+    public final int getSelectedIndex()
+    {
+        final T item = getSelectedItem();
+        return indexOf(item);
+    }
+
+    @Override
+    public final List<Integer> getSelectedIndexs()
+    {
+        if (getMode().isSingleType())
+            throw new UnsupportedOperationException("this method is not supported for single mode");
+
+        final List<Integer> list = new ArrayList<>(mSelected.cardinality());
+        for (int i = mSelected.nextSetBit(0); i >= 0; i = mSelected.nextSetBit(i + 1))
+        {
+            list.add(i);
+        }
+        return list;
+    }
+
+    @Override
+    public final int getSelectedCount()
+    {
+        if (getMode().isSingleType())
+            return mCurrentItem == null ? 0 : 1;
+        else
+            return mSelected.cardinality();
+    }
+
+    @Override
+    public final int[] getSelectedIndexArray()
+    {
+        final int[] array = new int[getSelectedCount()];
+        final int count = getSelectedIndexes(array);
+        return count == array.length ? array : Arrays.copyOf(array, count);
+    }
+
+    @Override
+    public final int getSelectedIndexes(int[] out)
+    {
+        if (out == null)
+            throw new NullPointerException("out is null");
+
+        if (getMode().isSingleType())
+        {
+            if (mCurrentItem == null || out.length <= 0)
+                return 0;
+
+            final int index = indexOf(mCurrentItem);
+            if (index < 0)
+                return 0;
+
+            out[0] = index;
+            return 1;
+        } else
+        {
+            return mSelected.copyTo(out);
+        }
+    }
+
+    @Override
+    public final T getSelectedItem()
+    {
+        if (getMode().isSingleType())
+            return mCurrentItem;
+        else
+            throw new UnsupportedOperationException("this method is not supported for multi mode");
+
+    }
+
+    @Override
+    public final List<T> getSelectedItems()
+    {
+        if (getMode().isSingleType())
+            throw new UnsupportedOperationException("this method is not supported for single mode");
+
+        final List<T> list = new ArrayList<>(mSelected.cardinality());
+        for (int i = mSelected.nextSetBit(0); i >= 0; i = mSelected.nextSetBit(i + 1))
+        {
+            list.add(itemAt(i));
+        }
+        return list;
+    }
+
+    @Override
+    public final List<T> getSelectedItems(Order order)
+    {
+        if (order == null)
+            throw new NullPointerException("order is null");
+
+        if (order == Order.LIST)
+            return getSelectedItems();
+
+        if (getMode().isSingleType())
+            throw new UnsupportedOperationException("this method is not supported for single mode");
+
+        return checkSelectionOrder().toList();
+    }
+
+    @Override
+    public final int getSelectionRank(T item)
+    {
+        if (getMode().isSingleType())
+            throw new UnsupportedOperationException("this method is not supported for single mode");
+
+        return checkSelectionOrder().rankOf(item);
+    }
+
+    @Override
+    public final Iterable<T> selectedView()
+    {
+        return selectedItemsView(Order.LIST);
+    }
+
+    @Override
+    public final Collection<T> selectedItemsView()
+    {
+        return selectedItemsView(Order.LIST);
+    }
+
+    @Override
+    public final Collection<T> selectedItemsView(Order order)
+    {
+        if (order == null)
+            throw new NullPointerException("order is null");
+
+        if (order == Order.LIST)
+        {
+            if (mListView == null)
+                mListView = new SelectedView(false);
+            return mListView;
+        } else
+        {
+            if (mSelectionView == null)
+                mSelectionView = new SelectedView(true);
+            return mSelectionView;
+        }
+    }
+
+    @Override
+    public final void forEachSelected(SelectedVisitor<T> visitor)
+    {
+        if (visitor == null)
+            throw new NullPointerException("visitor is null");
+
+        if (getMode().isSingleType())
+        {
+            final T item = mCurrentItem;
+            if (item != null)
+                visitor.visit(indexOf(item), item);
+            return;
+        }
+
+        final int expectedModCount = mSelectionModCount;
+        for (int index = mSelected.nextSetBit(0); index >= 0; index = mSelected.nextSetBit(index + 1))
+        {
+            visitor.visit(index, itemAt(index));
+            if (mSelectionModCount != expectedModCount)
+                throw new ConcurrentModificationException();
+        }
+    }
+
+    private SelectionOrder<T> checkSelectionOrder()
+    {
+        if (!mSelectionOrderEnabled || mSelectionOrder == null)
+            throw new IllegalStateException("selection order is not enabled");
+        return mSelectionOrder;
+    }
+
+    @Override
+    public final void selectAll()
+    {
+        if (getMode().isSingleType())
+            throw new UnsupportedOperationException("this method is not supported for single mode");
+
+        final boolean metrics = beginOperation();
+        try
+        {
+            selectRangeMulti(0, itemCount());
+        } finally
+        {
+            endOperation(metrics, SelectMetrics.Operation.SELECT_ALL);
+        }
+    }
+
+    private boolean isIndexLegal(int index)
+    {
+        return index >= 0 && index < itemCount();
+    }
+
+    @Override
+    public final void performClick(int index)
+    {
+        if (!isIndexLegal(index))
+            return;
+
+        final T item = itemAt(index);
+        final boolean isSelected = isSelected(index, item);
+        setSelectedOperation(index, item, !isSelected, SelectMetrics.Operation.CLICK);
+    }
+
+    @Override
+    public final void performClick(T item)
+    {
+        final int index = indexOf(item);
+        if (index < 0)
+            return;
+
+        final boolean isSelected = isSelected(index, item);
+        setSelectedOperation(index, item, !isSelected, SelectMetrics.Operation.CLICK);
+    }
+
+    @Override
+    public final void setSelected(int index, boolean selected)
+    {
+        if (!isIndexLegal(index))
+            return;
+
+        final T item = itemAt(index);
+        setSelectedOperation(index, item, selected, SelectMetrics.Operation.SET_SELECTED);
+    }
+
+    @Override
+    public final void setSelected(T item, boolean selected)
+    {
+        final int index = indexOf(item);
+        if (index < 0)
+            return;
+
+        setSelectedOperation(index, item, selected, SelectMetrics.Operation.SET_SELECTED);
+    }
+
+    @Override
+    public final void clearSelected()
+    {
+        if (getMode().isSingleType())
+        {
+            if (mCurrentItem == null)
+                return;
+        } else
+        {
+            if (mSelected.cardinality() <= 0)
+                return;
+        }
+
+        final boolean metrics = beginOperation();
+        try
+        {
+            if (getMode().isSingleType())
+            {
+                final T old = mCurrentItem;
+                setCurrentItem(null);
+
+                notifyNormal(old);
+            } else
+            {
+                final List<T> listItem = getSelectedItems();
+                clearSelectedPositions();
+
+                for (T item : listItem)
+                {
+                    notifyNormal(item);
+                }
+            }
+        } finally
+        {
+            endOperation(metrics, SelectMetrics.Operation.CLEAR_SELECTED);
+        }
+    }
+
+    @Override
+    public final void setSelected(int fromIndex, int toIndex, boolean selected)
+    {
+        if (getMode().isSingleType())
+            throw new UnsupportedOperationException("this method is not supported for single mode");
+
+        final int from = Math.max(fromIndex, 0);
+        final int to = Math.min(toIndex, itemCount());
+        if (from >= to)
+            return;
+
+        final boolean metrics = beginOperation();
+        try
+        {
+            if (selected)
+                selectRangeMulti(from, to);
+            else
+                normalRangeMulti(from, to, null);
+        } finally
+        {
+            endOperation(metrics, SelectMetrics.Operation.SET_RANGE);
+        }
+    }
+
+    @Override
+    public final void toggleRange(int fromIndex, int toIndex)
+    {
+        if (getMode().isSingleType())
+            throw new UnsupportedOperationException("this method is not supported for single mode");
+
+        final int from = Math.max(fromIndex, 0);
+        final int to = Math.min(toIndex, itemCount());
+        if (from >= to)
+            return;
+
+        // 先记录区间内原来选中的位置
+        final int[] selectedIndexes = selectedIndexesInRange(from, to);
+
+        final boolean metrics = beginOperation();
+        try
+        {
+            if (mMaxSelected > 0)
+            {
+                // 有数量上限的时候先取消选中腾出数量，只选中原来未选中的位置；
+                // 多选必选模式下最后一个取消不了，选中之后再取消一次，再选中因为它超出上限的位置
+                final int[] normalIndexes = normalIndexesInRange(from, to);
+                normalRangeMulti(from, to, selectedIndexes);
+                selectIndexesMulti(normalIndexes);
+                if (mMode == Mode.MULTI_MUST_ONE_SELECTED)
+                {
+                    normalRangeMulti(from, to, retainState(selectedIndexes, true));
+                    selectIndexesMulti(retainState(normalIndexes, false));
+                }
+            } else
+            {
+                // 先选中再取消选中，保证多选必选模式下不会因为顺序问题被拦截
+                selectRangeMulti(from, to);
+                normalRangeMulti(from, to, selectedIndexes);
+            }
+        } finally
+        {
+            endOperation(metrics, SelectMetrics.Operation.SET_RANGE);
+        }
+    }
+
+    @Override
+    public final void invertSelection()
+    {
+        toggleRange(0, itemCount());
+    }
+
+    private int[] selectedIndexesInRange(int from, int to)
+    {
+        int count = 0;
+        for (int i = mSelected.nextSetBit(from); i >= 0 && i < to; i = mSelected.nextSetBit(i + 1))
+        {
+            count++;
+        }
+
+        final int[] array = new int[count];
+        int index = 0;
+        for (int i = mSelected.nextSetBit(from); index < count; i = mSelected.nextSetBit(i + 1))
+        {
+            array[index++] = i;
+        }
+        return array;
+    }
+
+    /**
+     * 返回indexes中当前选中状态等于selected的位置
+     */
+    private int[] retainState(int[] indexes, boolean selected)
+    {
+        int count = 0;
+        for (int index : indexes)
+        {
+            if (mSelected.contains(index) == selected)
+                count++;
+        }
+
+        final int[] array = new int[count];
+        int i = 0;
+        for (int index : indexes)
+        {
+            if (mSelected.contains(index) == selected)
+                array[i++] = index;
+        }
+        return array;
+    }
+
+    /**
+     * 选中指定的位置
+     *
+     * @param indexes 未选中并且可以选中的位置，升序
+     */
+    private void selectIndexesMulti(int[] indexes)
+    {
+        if (hasBulkInterceptor())
+        {
+            setSelectedBulk(indexes, true);
+            return;
+        }
+
+        for (int index : indexes)
+        {
+            if (isCapacityRejected())
+                break;
+
+            setSelectedInternal(index, itemAt(index), true);
+        }
+    }
+
+    private void selectRangeMulti(int from, int to)
+    {
+        if (hasBulkInterceptor())
+        {
+            setSelectedBulk(normalIndexesInRange(from, to), true);
+            return;
+        }
+
+        if (canFillRange())
+        {
+            fillRangeMulti(from, to);
+            return;
+        }
+
+        for (int i = nextSelectableIndex(from); i < to; i = nextSelectableIndex(i + 1))
+        {
+            if (isCapacityRejected())
+                break;
+
+            setSelectedInternal(i, itemAt(i), true);
+        }
+    }
+
+    /**
+     * 没有拦截对象和数量上限，并且可以选中的位置都在{@link #mDisabled}中的时候，区间选中可以直接按字填充
+     */
+    private boolean canFillRange()
+    {
+        return mStateInterceptorHolder == null
+                && mSelectedInterceptor == null
+                && mMaxSelected <= 0
+                && (mSelectableFilter == null || mItemSource == null);
+    }
+
+    /**
+     * 是否需要逐个通知选中状态的变化，子类可能重写了{@link #onSelectedChangedImmediately(boolean, Object)}
+     */
+    private boolean needNotifyEach()
+    {
+        return mCallbackHolder != null
+                || mSelectionChangeCallbackHolder != null
+                || mCallbackDispatcher != null
+                || mSelectionOrder != null
+                || mJournal != null
+                || getClass() != FSelectManager.class;
+    }
+
+    /**
+     * 按字填充区间内可以选中的位置，跳过不可选中的位置，有需要的话再逐个通知
+     */
+    private void fillRangeMulti(int from, int to)
+    {
+        final int[] indexes = needNotifyEach() ? normalIndexesInRange(from, to) : null;
+
+        int start = from;
+        while (start < to)
+        {
+            final int disabled = mDisabled.nextSetBit(start);
+            final int end = disabled < 0 ? to : Math.min(disabled, to);
+            if (start < end)
+                writableSelected().addRange(start, end);
+
+            if (end >= to)
+                break;
+            start = mDisabled.nextClearBit(end);
+        }
+
+        if (indexes != null)
+        {
+            for (int index : indexes)
+            {
+                notifySelected(itemAt(index));
+            }
+        }
+    }
+
+    /**
+     * 返回区间内未选中并且可以选中的位置
+     */
+    private int[] normalIndexesInRange(int from, int to)
+    {
+        int count = 0;
+        for (int i = nextSelectableIndex(from); i < to; i = nextSelectableIndex(i + 1))
+        {
+            count++;
+        }
+
+        final int[] array = new int[count];
+        int index = 0;
+        for (int i = nextSelectableIndex(from); index < count; i = nextSelectableIndex(i + 1))
+        {
+            array[index++] = i;
+        }
+        return array;
+    }
+
+    /**
+     * 返回from及之后第一个未选中并且可以选中的位置，按位跳过已选中和不可选中的位置
+     */
+    private int nextSelectableIndex(int from)
+    {
+        int index = from;
+        while (true)
+        {
+            index = mSelected.nextClearBit(index);
+            if (!mDisabled.contains(index))
+                return index;
+
+            index = mDisabled.nextClearBit(index);
+        }
+    }
+
+    /**
+     * 位置上的item是否可以被选中
+     */
+    private boolean isSelectable(int index, T item)
+    {
+        if (mSelectableFilter == null)
+            return true;
+
+        if (mItemSource != null)
+            return mSelectableFilter.isSelectable(item);
+
+        return !mDisabled.contains(index);
+    }
+
+    /**
+     * 重新判断所有item是否可以被选中
+     */
+    private void refreshSelectable()
+    {
+        mDisabled.clear();
+        if (mSelectableFilter == null || mItemSource != null)
+            return;
+
+        for (int i = 0; i < mListItem.size(); i++)
+        {
+            if (!mSelectableFilter.isSelectable(mListItem.get(i)))
+                mDisabled.add(i);
+        }
+    }
+
+    /**
+     * 判断某个位置的item是否可以被选中
+     */
+    private void refreshSelectable(int index, T item)
+    {
+        if (mSelectableFilter == null || mItemSource != null)
+            return;
+
+        if (mSelectableFilter.isSelectable(item))
+            mDisabled.remove(index);
+        else
+            mDisabled.add(index);
+    }
+
+    /**
+     * 取消选中区间内的位置
+     *
+     * @param indexes 要取消选中的位置，为null的话取消选中区间内所有选中的位置
+     */
+    private void normalRangeMulti(int from, int to, int[] indexes)
+    {
+        if (indexes == null)
+            indexes = selectedIndexesInRange(from, to);
+
+        if (hasBulkInterceptor())
+        {
+            setSelectedBulk(indexes, false);
+            return;
+        }
+
+        for (int index : indexes)
+        {
+            setSelectedInternal(index, itemAt(index), false);
+        }
+    }
+
+    /**
+     * 多选模式下批量改变位置的选中状态，拦截对象一次性检查所有位置
+     *
+     * @param indexes  要改变状态的位置，升序
+     * @param selected
+     */
+    private void setSelectedBulk(int[] indexes, boolean selected)
+    {
+        final BitSet intercepted = interceptIndexes(indexes, selected);
+        for (int i = 0; i < indexes.length; i++)
+        {
+            if (intercepted != null && intercepted.get(i))
+                continue;
+
+            final int index = indexes[i];
+            final T item = itemAt(index);
+            if (item == null)
+                continue;
+
+            if (selected)
+            {
+                if (mSelected.contains(index))
+                    continue;
+
+                if (!ensureCapacity())
+                    break;
+
+                writableSelected().add(index);
+                notifySelected(item);
+            } else
+            {
+                if (!mSelected.contains(index))
+                    continue;
+
+                if (mMode == Mode.MULTI_MUST_ONE_SELECTED && mSelected.cardinality() <= 1)
+                    break;
+
+                writableSelected().remove(index);
+                notifyNormal(item);
+            }
+        }
+    }
+
+    @Override
+    public final int indexOf(T item)
+    {
+        if (mItemSource != null)
+            return item == null ? -1 : mItemSource.indexOf(item);
+        else
+            return mItemIndex.indexOf(item);
+    }
+
+    @Override
+    public final int indexOfKey(Object key)
+    {
+        if (mKeyIndex == null)
+            throw new IllegalStateException("KeyExtractor is not set");
+
+        return mKeyIndex.indexOfKey(key);
+    }
+
+    @Override
+    public final void setSelectedByKey(Object key, boolean selected)
+    {
+        final int index = indexOfKey(key);
+        if (index < 0)
+            return;
+
+        setSelected(index, selected);
+    }
+
+    @Override
+    public final SelectionSnapshot<T> snapshot()
+    {
+        final SelectionSnapshot.Items<T> items;
+        if (mItemSource != null)
+        {
+            // 数据源会继续变化，拷贝选中的item
+            final int[] positions;
+            if (getMode().isSingleType())
+            {
+                final int index = mCurrentItem == null ? -1 : indexOf(mCurrentItem);
+                positions = index < 0 ? new int[0] : new int[]{index};
+            } else
+            {
+                positions = mSelected.toArray();
+            }
+            items = new SelectionSnapshot.Items<>(mItemSource, positions);
+        } else
+        {
+            if (mSnapshotItems == null)
+                mSnapshotItems = new SelectionSnapshot.Items<>(mListItem);
+            items = mSnapshotItems;
+        }
+
+        if (getMode().isSingleType())
+            return new SelectionSnapshot<>(mMode, mCurrentItem, null, items);
+
+        mSelectedShared = true;
+        return new SelectionSnapshot<>(mMode, null, mSelected, items);
+    }
+
+    @Override
+    public final void beginBatch()
+    {
+        mBatchCount++;
+    }
+
+    @Override
+    public final void endBatch()
+    {
+        if (mBatchCount <= 0)
+            throw new IllegalStateException("endBatch() called without beginBatch()");
+
+        mBatchCount--;
+        if (mBatchCount > 0)
+            return;
+
+        final BatchChanges<T> changes = mBatchChanges;
+        mBatchChanges = null;
+        final boolean journalSkip = mJournalSkip;
+        mJournalSkip = false;
+        if (changes == null)
+            return;
+
+        if (mJournal != null && !journalSkip)
+            recordJournal(changes);
+
+        if (changes.isCurrentItemChanged(mCurrentItem))
+            notifySingleSelectCallback(mCurrentItem);
+
+        final int size = changes.size();
+        final boolean holder = mSelectionChangeCallbackHolder != null;
+        // 异步投递的时候列表会被保存到回调执行，变化较多的时候不复用，避免一直占用扩容的内存
+        final boolean reuse = holder && !mBufferInUse && mCallbackDispatcher == null && size <= MAX_RECYCLE_BATCH_SIZE;
+        final List<T> listSelected = reuse ? mBufferSelected : holder ? new ArrayList<T>() : null;
+        final List<T> listNormal = reuse ? mBufferNormal : holder ? new ArrayList<T>() : null;
+        if (reuse)
+            mBufferInUse = true;
+
+        try
+        {
+            for (int i = 0; i < size; i++)
+            {
+                if (!changes.isChanged(i))
+                    continue;
+
+                final boolean selected = changes.getLatest(i);
+                final T item = changes.getItem(i);
+                if (!changes.isSilent(i))
+                    dispatchSelectedChanged(selected, item);
+                else if (mCallbackDispatcher != null)
+                    mCallbackDispatcher.dispatchSilentChanged(selected, item);
+
+                if (holder)
+                {
+                    if (selected)
+                        listSelected.add(item);
+                    else
+                        listNormal.add(item);
+                }
+            }
+
+            if (holder && (!listSelected.isEmpty() || !listNormal.isEmpty()))
+            {
+                countCallbacks(mSelectionChangeCallbackHolder);
+
+                if (mCallbackDispatcher == null)
+                {
+                    if (reuse)
+                        mCallbackTarget.deliverSelectionChanged(mBufferSelectedView, mBufferNormalView);
+                    else
+                        mCallbackTarget.deliverSelectionChanged(listSelected, listNormal);
+                } else
+                {
+                    mCallbackDispatcher.dispatchSelectionChanged(listSelected, listNormal);
+                }
+            }
+        } finally
+        {
+            if (reuse)
+            {
+                mBufferSelected.clear();
+                mBufferNormal.clear();
+                mBufferInUse = false;
+            }
+        }
+
+        // 只回收变化较少的记录，避免一直占用大批量操作时扩容的内存
+        if (size <= MAX_RECYCLE_BATCH_SIZE)
+        {
+            changes.clear();
+            mRecycledBatchChanges = changes;
+        }
+    }
+
+    @Override
+    public final void runInBatch(Runnable runnable)
+    {
+        if (runnable == null)
+            return;
+
+        beginBatch();
+        try
+        {
+            runnable.run();
+        } finally
+        {
+            endBatch();
+        }
+    }
+
+    @Override
+    public final byte[] saveState()
+    {
+        final int currentIndex = mCurrentItem == null ? -1 : indexOf(mCurrentItem);
+        return SelectionStateCodec.encode(mMode, itemCount(), currentIndex, mSelected);
+    }
+
+    @Override
+    public final void restoreState(byte[] state)
+    {
+        final SelectionStateCodec.State decode = SelectionStateCodec.decode(state);
+        // 不经过拦截对象，数据不同的时候不能按位置恢复
+        if (decode.itemCount != itemCount())
+            throw new IllegalArgumentException("item count mismatch, state:" + decode.itemCount + " current:" + itemCount());
+
+        final boolean metrics = beginOperation();
+        try
+        {
+            setMode(decode.mode);
+            clearSelected();
+
+            final int count = itemCount();
+            if (decode.mode.isSingleType())
+            {
+                final int index = decode.currentIndex;
+                if (index >= 0 && index < count)
+                {
+                    final T item = itemAt(index);
+                    if (item != null && isSelectable(index, item))
+                    {
+                        setCurrentItem(item);
+                        notifySelected(item);
+                    }
+                }
+            } else
+            {
+                selectRuns(decode.runs);
+            }
+        } finally
+        {
+            endOperation(metrics, SelectMetrics.Operation.RESTORE_STATE);
+        }
+    }
+
+    /**
+     * 多选模式下直接选中区间内的位置，不经过拦截对象和数量上限，跳过不可选中的位置
+     *
+     * @param runs 依次是[start, end)
+     */
+    private void selectRuns(int[] runs)
+    {
+        final int count = itemCount();
+        for (int i = 0; i < runs.length; i += 2)
+        {
+            final int end = Math.min(runs[i + 1], count);
+            for (int index = nextSelectableIndex(runs[i]); index < end; index = nextSelectableIndex(index + 1))
+            {
+                final T item = itemAt(index);
+                if (item == null)
+                    continue;
+
+                writableSelected().add(index);
+                notifySelected(item);
+            }
+        }
+    }
+
+    /**
+     * 多选模式下直接取消选中区间内的位置，不经过拦截对象
+     *
+     * @param runs 依次是[start, end)
+     */
+    private void normalRuns(int[] runs)
+    {
+        for (int i = 0; i < runs.length; i += 2)
+        {
+            final int end = runs[i + 1];
+            for (int index = mSelected.nextSetBit(runs[i]); index >= 0 && index < end; index = mSelected.nextSetBit(index + 1))
+            {
+                writableSelected().remove(index);
+                notifyNormal(itemAt(index));
+            }
+        }
+    }
+
+    @Override
+    public final void setUndoLimit(int maxLevels, int maxBytes)
+    {
+        if (maxLevels <= 0)
+        {
+            mJournal = null;
+            return;
+        }
+
+        final int bytes = maxBytes <= 0 ? Integer.MAX_VALUE : maxBytes;
+        if (mJournal == null)
+            mJournal = new SelectionJournal(maxLevels, bytes);
+        else
+            mJournal.setLimit(maxLevels, bytes);
+    }
+
+    @Override
+    public final boolean canUndo()
+    {
+        return mJournal != null && mJournal.canUndo();
+    }
+
+    @Override
+    public final boolean canRedo()
+    {
+        return mJournal != null && mJournal.canRedo();
+    }
+
+    @Override
+    public final boolean undo()
+    {
+        return replayJournal(true);
+    }
+
+    @Override
+    public final boolean redo()
+    {
+        return replayJournal(false);
+    }
+
+    /**
+     * 撤销或者重做一次操作，恢复的是原有的选中状态，所以不经过拦截对象和数量上限
+     */
+    private boolean replayJournal(boolean undo)
+    {
+        if (mJournal == null)
+            return false;
+
+        if (mBatchCount > 0)
+            throw new IllegalStateException("undo() and redo() are not supported in batch");
+
+        final SelectionJournal.Entry entry = undo ? mJournal.undo() : mJournal.redo();
+        if (entry == null)
+            return false;
+
+        final int[][] data = entry.decode();
+        final boolean metrics = beginOperation();
+        try
+        {
+            mJournalSkip = true;
+            if (entry.single)
+            {
+                replaySingle(data[undo ? 0 : 1][0]);
+            } else
+            {
+                normalRuns(data[undo ? 0 : 1]);
+                selectRuns(data[undo ? 1 : 0]);
+            }
+        } finally
+        {
+            endOperation(metrics, undo ? SelectMetrics.Operation.UNDO : SelectMetrics.Operation.REDO);
+        }
+        return true;
+    }
+
+    private void replaySingle(int index)
+    {
+        final T item = isIndexLegal(index) ? itemAt(index) : null;
+        if (item == mCurrentItem)
+            return;
+
+        if (item != null && !isSelectable(index, item))
+            return;
+
+        final T old = mCurrentItem;
+        setCurrentItem(item);
+
+        notifyNormal(old);
+        notifySelected(item);
+    }
+
+    /**
+     * 把本次批量操作中最终发生了变化的位置记录到撤销记录中
+     */
+    private void recordJournal(BatchChanges<T> changes)
+    {
+        if (getMode().isSingleType())
+        {
+            if (changes.isCurrentItemChanged(mCurrentItem))
+            {
+                final T origin = changes.getOriginCurrentItem();
+                final int oldIndex = origin == null ? -1 : indexOf(origin);
+                final int newIndex = mCurrentItem == null ? -1 : indexOf(mCurrentItem);
+                mJournal.push(SelectionJournal.single(oldIndex, newIndex));
+            }
+            return;
+        }
+
+        final int size = changes.size();
+        final int[] selected = new int[size];
+        final int[] normal = new int[size];
+        int selectedCount = 0;
+        int normalCount = 0;
+        for (int i = 0; i < size; i++)
+        {
+            if (!changes.isChanged(i))
+                continue;
+
+            final int index = indexOf(changes.getItem(i));
+            if (index < 0)
+                continue;
+
+            if (changes.getLatest(i))
+                selected[selectedCount++] = index;
+            else
+                normal[normalCount++] = index;
+        }
+
+        if (selectedCount <= 0 && normalCount <= 0)
+            return;
+
+        Arrays.sort(selected, 0, selectedCount);
+        Arrays.sort(normal, 0, normalCount);
+        mJournal.push(SelectionJournal.multi(selected, selectedCount, normal, normalCount));
+    }
+
+    /**
+     * 选择模式或者数据发生变化，已有的撤销记录不再有效
+     */
+    private void invalidateJournal()
+    {
+        if (mJournal == null)
+            return;
+
+        mJournal.clear();
+        if (mBatchCount > 0)
+            mJournalSkip = true;
+    }
+
+    private BatchChanges<T> getBatchChanges()
+    {
+        if (mBatchChanges == null)
+        {
+            if (mRecycledBatchChanges != null)
+            {
+                mBatchChanges = mRecycledBatchChanges;
+                mRecycledBatchChanges = null;
+            } else
+            {
+                mBatchChanges = new BatchChanges<>();
+            }
+        }
+        return mBatchChanges;
+    }
+
+    private boolean isSelected(int index, T item)
+    {
+        if (getMode().isSingleType())
+            return item == mCurrentItem;
+        else
+            return mSelected.contains(index);
+    }
+
+    /**
+     * 单个item的选中操作，有批量变化回调，统计对象或者撤销记录的时候以批量操作的方式执行，保证批量变化回调只触发一次
+     */
+    private void setSelectedOperation(int index, T item, boolean selected, SelectMetrics.Operation operation)
+    {
+        if (mSelectionChangeCallbackHolder == null && mMetrics == null && mJournal == null)
+        {
+            setSelectedInternal(index, item, selected);
+            return;
+        }
+
+        final boolean metrics = beginOperation();
+        try
+        {
+            setSelectedInternal(index, item, selected);
+        } finally
+        {
+            endOperation(metrics, operation);
+        }
+    }
+
+    /**
+     * 开始一次以批量方式执行的操作
+     *
+     * @return 是否需要统计本次操作
+     */
+    private boolean beginOperation()
+    {
+        beginBatch();
+        return beginMetrics();
+    }
+
+    private void endOperation(boolean metrics, SelectMetrics.Operation operation)
+    {
+        try
+        {
+            endBatch();
+        } finally
+        {
+            if (metrics)
+                endMetrics(operation);
+        }
+    }
+
+    /**
+     * 开始统计操作
+     *
+     * @return false-没有设置统计对象
+     */
+    private boolean beginMetrics()
+    {
+        if (mMetrics == null)
+            return false;
+
+        if (mMetricsDepth == 0)
+        {
+            mMetricsStartTime = System.nanoTime();
+            mMetricsCallbackCount = 0;
+        }
+        mMetricsDepth++;
+        return true;
+    }
+
+    /**
+     * 结束统计操作，只有最外层的操作才会提交
+     */
+    private void endMetrics(SelectMetrics.Operation operation)
+    {
+        mMetricsDepth--;
+        if (mMetricsDepth > 0)
+            return;
+
+        final SelectMetrics metrics = mMetrics;
+        if (metrics != null)
+            metrics.onOperation(operation, mMetricsCallbackCount, System.nanoTime() - mMetricsStartTime);
+    }
+
+    /**
+     * 统计本次操作派发的回调次数
+     */
+    private void countCallbacks(Object[] holder)
+    {
+        if (mMetricsDepth > 0 && holder != null)
+            mMetricsCallbackCount += holder.length;
+    }
+
+    private void setSelectedInternal(int index, T item, boolean selected)
+    {
+        if (item == null)
+            return;
+
+        switch (mMode)
+        {
+            case SINGLE_MUST_ONE_SELECTED:
+                if (selected)
+                {
+                    if (isSelectable(index, item))
+                        selectItemSingle(item);
+                }
+                break;
+            case SINGLE:
+                if (selected)
+                {
+                    if (isSelectable(index, item))
+                        selectItemSingle(item);
+                } else
+                {
+                    if (mCurrentItem == item)
+                    {
+                        if (interceptItemInternal(item, false))
+                            return;
+
+                        final T old = mCurrentItem;
+                        setCurrentItem(null);
+
+                        notifyNormal(old);
+                    }
+                }
+                break;
+            case MULTI_MUST_ONE_SELECTED:
+                if (selected)
+                {
+                    selectItemMulti(index, item);
+                } else
+                {
+                    if (mSelected.cardinality() > 1)
+                        normalItemMulti(index, item);
+                }
+                break;
+            case MULTI:
+                if (selected)
+                {
+                    selectItemMulti(index, item);
+                } else
+                {
+                    normalItemMulti(index, item);
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    private boolean interceptItemInternal(T item, boolean selected)
+    {
+        final boolean intercept = interceptItem(item, selected);
+
+        final SelectMetrics metrics = mMetrics;
+        if (metrics != null)
+            metrics.onIntercept(intercept);
+
+        return intercept;
+    }
+
+    private boolean hasBulkInterceptor()
+    {
+        final Object[] holder = mStateInterceptorHolder;
+        if (holder != null)
+        {
+            for (Object interceptor : holder)
+            {
+                if (interceptor instanceof BulkStateInterceptor)
+                    return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 批量拦截，{@link BulkStateInterceptor}一次性检查，其他拦截对象逐个检查，被拦截的位置不会再交给后面的拦截对象
+     *
+     * @param indexes
+     * @param selected
+     * @return 被拦截的位置在indexes中的下标，null表示都没有被拦截
+     */
+    @SuppressWarnings({"unchecked", "deprecation"})
+    private BitSet interceptIndexes(int[] indexes, boolean selected)
+    {
+        BitSet result = null;
+
+        // 还没有被拦截的位置，以及它们在indexes中的下标
+        int[] remaining = indexes;
+        int[] remainingOrigin = null;
+
+        final Object[] holder = mStateInterceptorHolder;
+        final int count = (holder == null ? 0 : holder.length) + 1;
+        for (int k = 0; k < count && remaining.length > 0; k++)
+        {
+            final Object interceptor = k == 0 ? mSelectedInterceptor : holder[k - 1];
+            if (interceptor == null)
+                continue;
+
+            BitSet intercepted = null;
+            if (interceptor instanceof BulkStateInterceptor)
+            {
+                intercepted = ((BulkStateInterceptor<T>) interceptor).interceptItems(new IndexItemList(remaining), selected);
+            } else
+            {
+                for (int i = 0; i < remaining.length; i++)
+                {
+                    final T item = itemAt(remaining[i]);
+                    final boolean intercept = k == 0 ?
+                            ((SelectedInterceptor<T>) interceptor).interceptItem(item, selected) :
+                            ((StateInterceptor<T>) interceptor).interceptItem(item, selected);
+                    if (intercept)
+                    {
+                        if (intercepted == null)
+                            intercepted = new BitSet(remaining.length);
+                        intercepted.set(i);
+                    }
+                }
+            }
+
+            if (intercepted == null || intercepted.isEmpty())
+                continue;
+
+            if (result == null)
+                result = new BitSet(indexes.length);
+
+            final int[] nextRemaining = new int[remaining.length];
+            final int[] nextOrigin = new int[remaining.length];
+            int size = 0;
+            for (int i = 0; i < remaining.length; i++)
+            {
+                final int origin = remainingOrigin == null ? i : remainingOrigin[i];
+                if (intercepted.get(i))
+                {
+                    result.set(origin);
+                } else
+                {
+                    nextRemaining[size] = remaining[i];
+                    nextOrigin[size] = origin;
+                    size++;
+                }
+            }
+            remaining = Arrays.copyOf(nextRemaining, size);
+            remainingOrigin = Arrays.copyOf(nextOrigin, size);
+        }
+
+        final SelectMetrics metrics = mMetrics;
+        if (metrics != null)
+        {
+            for (int i = 0; i < indexes.length; i++)
+            {
+                metrics.onIntercept(result != null && result.get(i));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 按位置访问item的只读列表，交给{@link BulkStateInterceptor}
+     */
+    private final class IndexItemList extends AbstractList<T> implements RandomAccess
+    {
+        private final int[] mIndexes;
+
+        IndexItemList(int[] indexes)
+        {
+            mIndexes = indexes;
+        }
+
+        @Override
+        public T get(int index)
+        {
+            return itemAt(mIndexes[index]);
+        }
+
+        @Override
+        public int size()
+        {
+            return mIndexes.length;
+        }
+    }
+
+    /**
+     * 选中item的只读视图，直接读取当前的选中状态，不拷贝数据
+     * <br>
+     * 遍历期间选中状态发生变化的时候抛出{@link ConcurrentModificationException}
+     */
+    private final class SelectedView extends AbstractCollection<T>
+    {
+        /** true-按选中顺序遍历 */
+        private final boolean mBySelection;
+
+        SelectedView(boolean bySelection)
+        {
+            mBySelection = bySelection;
+        }
+
+        @Override
+        public int size()
+        {
+            if (getMode().isSingleType())
+                return mCurrentItem == null ? 0 : 1;
+            else
+                return mSelected.cardinality();
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public boolean contains(Object o)
+        {
+            return o != null && isSelected((T) o);
+        }
+
+        @Override
+        public Iterator<T> iterator()
+        {
+            if (getMode().isSingleType())
+                return new ViewIterator(-1, null, mCurrentItem);
+
+            if (mBySelection)
+                return new ViewIterator(-1, checkSelectionOrder().first(), null);
+            else
+                return new ViewIterator(mSelected.nextSetBit(0), null, null);
+        }
+    }
+
+    private final class ViewIterator implements Iterator<T>
+    {
+        private final int mExpectedModCount = mSelectionModCount;
+
+        /** 按列表顺序遍历的时候下一个选中的位置 */
+        private int mNextIndex;
+        /** 按选中顺序遍历的时候下一个节点 */
+        private SelectionOrder.Node<T> mNextNode;
+        /** 单选模式下的选中项 */
+        private T mNextItem;
+
+        ViewIterator(int nextIndex, SelectionOrder.Node<T> nextNode, T nextItem)
+        {
+            mNextIndex = nextIndex;
+            mNextNode = nextNode;
+            mNextItem = nextItem;
+        }
+
+        @Override
+        public boolean hasNext()
+        {
+            checkModCount();
+            return mNextIndex >= 0 || mNextNode != null || mNextItem != null;
+        }
+
+        @Override
+        public T next()
+        {
+            checkModCount();
+
+            if (mNextIndex >= 0)
+            {
+                final T item = itemAt(mNextIndex);
+                mNextIndex = mSelected.nextSetBit(mNextIndex + 1);
+                return item;
+            }
+
+            if (mNextNode != null)
+            {
+                final T item = mNextNode.item;
+                mNextNode = mNextNode.next;
+                return item;
+            }
+
+            if (mNextItem != null)
+            {
+                final T item = mNextItem;
+                mNextItem = null;
+                return item;
+            }
+
+            throw new NoSuchElementException();
+        }
+
+        @Override
+        public void remove()
+        {
+            throw new UnsupportedOperationException("view is read only");
+        }
+
+        private void checkModCount()
+        {
+            if (mSelectionModCount != mExpectedModCount)
+                throw new ConcurrentModificationException();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private boolean interceptItem(T item, boolean selected)
+    {
+        if (mSelectedInterceptor != null)
+        {
+            if (mSelectedInterceptor.interceptItem(item, selected))
+                return true;
+        }
+
+        final Object[] holder = mStateInterceptorHolder;
+        if (holder != null)
+        {
+            for (Object interceptor : holder)
+            {
+                if (((StateInterceptor<T>) interceptor).interceptItem(item, selected))
+                    return true;
+            }
+        }
+
+        return false;
+    }
+
+    private void selectItemSingle(T item)
+    {
+        if (mCurrentItem == item)
+            return;
+
+        if (interceptItemInternal(item, true))
+            return;
+
+        final T old = mCurrentItem;
+        setCurrentItem(item);
+
+        notifyNormal(old);
+        notifySelected(item);
+    }
+
+    private void selectItemMulti(int index, T item)
+    {
+        if (mSelected.contains(index))
+            return;
+
+        if (!isSelectable(index, item))
+            return;
+
+        if (isCapacityRejected())
+            return;
+
+        if (interceptItemInternal(item, true))
+            return;
+
+        if (!ensureCapacity())
+            return;
+
+        writableSelected().add(index);
+        notifySelected(item);
+    }
+
+    /**
+     * 多选模式下已经达到数量上限，并且超出上限的时候拒绝选中
+     */
+    private boolean isCapacityRejected()
+    {
+        return mMaxSelected > 0
+                && mOverflowPolicy == OverflowPolicy.REJECT
+                && mSelected.cardinality() >= mMaxSelected;
+    }
+
+    /**
+     * 多选模式下选中之前检查数量上限，{@link OverflowPolicy#EVICT_OLDEST}的时候取消选中最早选中的item
+     *
+     * @return false-拒绝选中
+     */
+    private boolean ensureCapacity()
+    {
+        if (mMaxSelected <= 0)
+            return true;
+
+        while (mSelected.cardinality() >= mMaxSelected)
+        {
+            if (mSelectionOrder == null || !evictOldest())
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * 取消选中最早选中的item，不经过拦截对象
+     */
+    private boolean evictOldest()
+    {
+        final T oldest = mSelectionOrder.oldest();
+        if (oldest == null)
+            return false;
+
+        final int index = indexOf(oldest);
+        if (index >= 0)
+            writableSelected().remove(index);
+
+        mSelectionOrder.remove(oldest);
+        notifyNormal(oldest);
+        return true;
+    }
+
+    private void normalItemMulti(int index, T item)
+    {
+        if (!mSelected.contains(index))
+            return;
+
+        if (interceptItemInternal(item, false))
+            return;
+
+        writableSelected().remove(index);
+        notifyNormal(item);
+    }
+
+    private void notifyNormal(T item)
+    {
+        if (item == null)
+            return;
+
+        onSelectedChangedImmediately(false, item);
+
+        if (mSelectionOrder != null && !mMode.isSingleType())
+            mSelectionOrder.remove(item);
+
+        if (mBatchCount > 0)
+            getBatchChanges().record(false, item, mSilentNormal);
+        else
+            dispatchSelectedChanged(false, item);
+    }
+
+    private void notifySelected(T item)
+    {
+        if (item == null)
+            return;
+
+        onSelectedChangedImmediately(true, item);
+
+        if (mSelectionOrder != null && !mMode.isSingleType())
+            mSelectionOrder.add(item);
+
+        if (mBatchCount > 0)
+            getBatchChanges().record(true, item);
+        else
+            dispatchSelectedChanged(true, item);
+    }
+
+    private void dispatchSelectedChanged(boolean selected, T item)
+    {
+        onSelectedChanged(selected, item);
+        countCallbacks(mCallbackHolder);
+
+        if (mCallbackDispatcher == null)
+            mCallbackTarget.deliverSelectedChanged(selected, item);
+        else
+            mCallbackDispatcher.dispatchSelectedChanged(selected, item);
+    }
+
+    /**
+     * 选中状态变化，不受{@link #setCallbackExecutor(Executor, CallbackDelivery)}影响，总是同步回调
+     *
+     * @param selected
+     * @param item
+     */
+    protected void onSelectedChanged(boolean selected, T item)
+    {
+
+    }
+
+    /**
+     * 选中状态变化的时候立即调用，批量操作中也不会延迟，调用的时候item还在原来的位置上，包内使用
+     *
+     * @param selected
+     * @param item
+     */
+    void onSelectedChangedImmediately(boolean selected, T item)
+    {
+
+    }
+
+    /**
+     * 返回设置的{@link KeyExtractor}，包内使用
+     *
+     * @return null表示没有设置
+     */
+    final KeyExtractor<T, ?> getKeyExtractor()
+    {
+        return mKeyIndex == null ? null : mKeyIndex.getKeyExtractor();
+    }
+
+    /**
+     * 是否在批量操作中，包内使用
+     *
+     * @return
+     */
+    final boolean isInBatch()
+    {
+        return mBatchCount > 0;
+    }
+
+    /**
+     * 是否设置了{@link ItemSource}，包内使用
+     *
+     * @return
+     */
+    final boolean hasItemSource()
+    {
+        return mItemSource != null;
+    }
+
+    /**
+     * 是否可以查询选中顺序，多选模式下开启了选中顺序的时候才可以，包内使用
+     *
+     * @return
+     */
+    final boolean hasSelectionOrder()
+    {
+        return !getMode().isSingleType() && mSelectionOrderEnabled && mSelectionOrder != null;
+    }
+
+    /**
+     * 返回from及之后第一个选中的位置，包内使用
+     *
+     * @param from
+     * @return -1表示没有
+     */
+    final int nextSelectedIndex(int from)
+    {
+        return mSelected.nextSetBit(from);
+    }
+
+    /**
+     * 多选模式下位置是否被选中，包内使用
+     *
+     * @param index
+     * @return
+     */
+    final boolean isSelectedAt(int index)
+    {
+        return mSelected.contains(index);
+    }
+
+    /**
+     * 多选模式下直接修改位置的选中状态，不经过拦截对象和数量上限，包内使用
+     *
+     * @param index
+     * @param selected
+     */
+    final void setSelectedDirectly(int index, boolean selected)
+    {
+        if (getMode().isSingleType())
+            throw new UnsupportedOperationException("this method is not supported for single mode");
+
+        if (!isIndexLegal(index) || mSelected.contains(index) == selected)
+            return;
+
+        if (selected)
+        {
+            writableSelected().add(index);
+            notifySelected(itemAt(index));
+        } else
+        {
+            writableSelected().remove(index);
+            notifyNormal(itemAt(index));
+        }
+    }
+
+    /**
+     * 多选模式下在[from, to)区间内单选index，和单选模式的规则一致：只检查新选中的item是否被拦截，
+     * 区间内其他选中的位置直接取消选中，所有变化合并后一起回调，包内使用
+     *
+     * @param index
+     * @param from
+     * @param to
+     * @param operation
+     */
+    final void selectInRange(int index, int from, int to, SelectMetrics.Operation operation)
+    {
+        if (getMode().isSingleType())
+            throw new UnsupportedOperationException("this method is not supported for single mode");
+
+        if (!isIndexLegal(index) || mSelected.contains(index))
+            return;
+
+        final T item = itemAt(index);
+        if (item == null || !isSelectable(index, item))
+            return;
+
+        final boolean metrics = beginOperation();
+        try
+        {
+            if (interceptItemInternal(item, true))
+                return;
+
+            normalRuns(new int[]{from, to});
+            writableSelected().add(index);
+            notifySelected(item);
+        } finally
+        {
+            endOperation(metrics, operation);
+        }
+    }
+
+    /**
+     * 多选模式下取消选中[from, to)区间内所有位置，和{@link #clearSelected()}一样不经过拦截对象，包内使用
+     *
+     * @param from
+     * @param to
+     */
+    final void clearSelected(int from, int to)
+    {
+        if (getMode().isSingleType())
+            throw new UnsupportedOperationException("this method is not supported for single mode");
+
+        final int next = mSelected.nextSetBit(from);
+        if (next < 0 || next >= to)
+            return;
+
+        final boolean metrics = beginOperation();
+        try
+        {
+            normalRuns(new int[]{from, to});
+        } finally
+        {
+            endOperation(metrics, SelectMetrics.Operation.CLEAR_SELECTED);
+        }
+    }
+
+    private void setCurrentItem(final T item)
+    {
+        if (mCurrentItem != item)
+        {
+            mSelectionModCount++;
+            if (mBatchCount > 0)
+            {
+                getBatchChanges().recordCurrentItem(mCurrentItem);
+                mCurrentItem = item;
+                return;
+            }
+
+            mCurrentItem = item;
+            notifySingleSelectCallback(item);
+        }
+    }
+
+    private void notifySingleSelectCallback(T item)
+    {
+        countCallbacks(mSingleSelectCallbackHolder);
+
+        if (mCallbackDispatcher == null)
+            mCallbackTarget.deliverSingleSelectChanged(item);
+        else
+            mCallbackDispatcher.dispatchSingleSelectChanged(item);
+    }
+
+    /**
+     * 真正执行回调的地方，异步投递的时候在Executor中执行
+     */
+    private final CallbackDispatcher.Target<T> mCallbackTarget = new CallbackDispatcher.Target<T>()
+    {
+        @SuppressWarnings("unchecked")
+        @Override
+        public void deliverSelectedChanged(boolean selected, T item)
+        {
+            final Object[] holder = mCallbackHolder;
+            if (holder != null)
+            {
+                final SelectMetrics metrics = mMetrics;
+                final long start = metrics == null ? 0 : System.nanoTime();
+
+                for (Object callback : holder)
+                {
+                    ((Callback<T>) callback).onSelectedChanged(selected, item);
+                }
+
+                if (metrics != null)
+                    metrics.onCallback(holder.length, System.nanoTime() - start);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public void deliverSingleSelectChanged(T item)
+        {
+            final Object[] holder = mSingleSelectCallbackHolder;
+            if (holder != null)
+            {
+                final SelectMetrics metrics = mMetrics;
+                final long start = metrics == null ? 0 : System.nanoTime();
+
+                for (Object callback : holder)
+                {
+                    ((SingleSelectCallback<T>) callback).onSelectedChanged(item);
+                }
+
+                if (metrics != null)
+                    metrics.onCallback(holder.length, System.nanoTime() - start);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public void deliverSelectionChanged(List<T> listSelected, List<T> listNormal)
+        {
+            final Object[] holder = mSelectionChangeCallbackHolder;
+            if (holder != null)
+            {
+                final SelectMetrics metrics = mMetrics;
+                final long start = metrics == null ? 0 : System.nanoTime();
+
+                for (Object callback : holder)
+                {
+                    ((SelectionChangeCallback<T>) callback).onSelectionChanged(listSelected, listNormal);
+                }
+
+                if (metrics != null)
+                    metrics.onCallback(holder.length, System.nanoTime() - start);
+            }
+        }
+    };
+
+    /**
+     * 返回添加了item的新数组，已经存在的话返回原数组
+     */
+    static Object[] addHolder(Object[] holder, Object item)
+    {
+        if (holder == null)
+            return new Object[]{item};
+
+        for (Object object : holder)
+        {
+            if (object.equals(item))
+                return holder;
+        }
+
+        final Object[] array = Arrays.copyOf(holder, holder.length + 1);
+        array[holder.length] = item;
+        return array;
+    }
+
+    /**
+     * 返回移除了item的新数组，移除之后为空的话返回null
+     */
+    static Object[] removeHolder(Object[] holder, Object item)
+    {
+        if (holder == null)
+            return null;
+
+        for (int i = 0; i < holder.length; i++)
+        {
+            if (holder[i].equals(item))
+            {
+                if (holder.length == 1)
+                    return null;
+
+                final Object[] array = new Object[holder.length - 1];
+                System.arraycopy(holder, 0, array, 0, i);
+                System.arraycopy(holder, i + 1, array, i, holder.length - i - 1);
+                return array;
+            }
+        }
+        return holder;
+    }
+
+    //---------- data start ----------
+
+    @Override
+    public final void setItems(T... items)
+    {
+        List<T> listItem = null;
+        if (items != null && items.length > 0)
+        {
+            listItem = Arrays.asList(items);
+        }
+        setItems(listItem);
+    }
+
+    @Override
+    public final void setItems(List<T> items)
+    {
+        checkDuplicate(items);
+
+        final boolean metrics = beginOperation();
+        try
+        {
+            invalidateJournal();
+            final List<Object> listKey = getSelectedKeys();
+
+            clearSelectedForReplace();
+            mItemSource = null;
+            replaceItems(items);
+            clearIndex();
+            refreshSelectable();
+
+            if (listKey != null)
+                restoreSelectedKeys(listKey);
+
+            for (T item : mListItem)
+            {
+                initItem(item);
+            }
+        } finally
+        {
+            endOperation(metrics, SelectMetrics.Operation.SET_ITEMS);
+        }
+    }
+
+    @Override
+    public final void submitItems(List<T> items)
+    {
+        if (mItemSource != null)
+        {
+            setItems(items);
+            return;
+        }
+
+        checkDuplicate(items);
+
+        final List<T> listNew = items == null ? new ArrayList<T>() : new ArrayList<>(items);
+        final List<T> listOld = new ArrayList<>(mListItem);
+        final ItemIndex<T> index = mKeyIndex != null ? mKeyIndex : mItemIndex;
+
+        // 旧数据每个位置匹配到的新位置，-1表示被移除
+        final int[] arrOldToNew = new int[listOld.size()];
+        Arrays.fill(arrOldToNew, -1);
+        for (int i = 0; i < listNew.size(); i++)
+        {
+            final int oldIndex = index.indexOf(listNew.get(i));
+            if (oldIndex >= 0 && arrOldToNew[oldIndex] < 0)
+                arrOldToNew[oldIndex] = i;
+        }
+
+        // 保留的item是同一个对象，沿用原来的可选中状态和选中状态
+        final boolean[] arrKeep = new boolean[listNew.size()];
+        for (int i = 0; i < arrOldToNew.length; i++)
+        {
+            final int newIndex = arrOldToNew[i];
+            if (newIndex >= 0 && listOld.get(i) == listNew.get(newIndex))
+                arrKeep[newIndex] = true;
+        }
+        final PositionBitmap disabled = submitDisabled(listNew, arrOldToNew, arrKeep);
+
+        // key相同的新对象不可以选中的时候，和setItems一样不保留选中状态，当作被移除
+        for (int i = 0; i < arrOldToNew.length; i++)
+        {
+            final int newIndex = arrOldToNew[i];
+            if (newIndex >= 0 && !arrKeep[newIndex] && disabled.contains(newIndex))
+                arrOldToNew[i] = -1;
+        }
+
+        final boolean single = getMode().isSingleType();
+        final T oldCurrent = mCurrentItem;
+        final int oldCurrentIndex = oldCurrent == null ? -1 : indexOf(oldCurrent);
+        final int newCurrentIndex = oldCurrentIndex >= 0 ? arrOldToNew[oldCurrentIndex] : -1;
+        final T newCurrent = newCurrentIndex >= 0 ? listNew.get(newCurrentIndex) : null;
+        final int[] arrOldSelected = single ? null : mSelected.toArray();
+
+        final boolean metrics = beginOperation();
+        try
+        {
+            invalidateJournal();
+
+            // 在替换数据之前取消选中，回调的时候item还在原来的位置上
+            if (single)
+            {
+                if (oldCurrent != newCurrent)
+                {
+                    setCurrentItem(null);
+                    notifyNormal(oldCurrent);
+                }
+            } else
+            {
+                submitMultiNormal(listOld, listNew, arrOldToNew, arrOldSelected);
+            }
+
+            replaceItems(listNew);
+            clearIndex();
+            mDisabled = disabled;
+
+            // 在替换数据之后选中，回调的时候item已经在新的位置上
+            if (single)
+            {
+                if (oldCurrent != newCurrent)
+                {
+                    setCurrentItem(newCurrent);
+                    notifySelected(newCurrent);
+                }
+            } else
+            {
+                submitMultiSelected(listOld, listNew, arrOldToNew, arrOldSelected);
+            }
+
+            for (int i = 0; i < arrKeep.length; i++)
+            {
+                if (!arrKeep[i])
+                    initItem(listNew.get(i));
+            }
+        } finally
+        {
+            endOperation(metrics, SelectMetrics.Operation.SUBMIT_ITEMS);
+        }
+    }
+
+    /**
+     * 返回新数据中不可以选中的位置，保留的item沿用原来的判断结果，其他item重新判断
+     */
+    private PositionBitmap submitDisabled(List<T> listNew, int[] arrOldToNew, boolean[] arrKeep)
+    {
+        final PositionBitmap disabled = new PositionBitmap();
+        if (mSelectableFilter == null)
+            return disabled;
+
+        for (int oldIndex = mDisabled.nextSetBit(0); oldIndex >= 0; oldIndex = mDisabled.nextSetBit(oldIndex + 1))
+        {
+            final int newIndex = arrOldToNew[oldIndex];
+            if (newIndex >= 0 && arrKeep[newIndex])
+                disabled.add(newIndex);
+        }
+
+        for (int i = 0; i < arrKeep.length; i++)
+        {
+            if (!arrKeep[i] && !mSelectableFilter.isSelectable(listNew.get(i)))
+                disabled.add(i);
+        }
+        return disabled;
+    }
+
+    /**
+     * 多选模式下替换数据之前，取消选中被移除的item和被key相同的新对象替换的item
+     */
+    private void submitMultiNormal(List<T> listOld, List<T> listNew, int[] arrOldToNew, int[] arrOldSelected)
+    {
+        for (int oldIndex : arrOldSelected)
+        {
+            final int newIndex = arrOldToNew[oldIndex];
+            final T old = listOld.get(oldIndex);
+            final T item = newIndex >= 0 ? listNew.get(newIndex) : null;
+            if (old == item)
+                continue;
+
+            // key相同但是对象不同，保留原来的选中顺序
+            if (item != null && mSelectionOrder != null)
+                mSelectionOrder.replace(old, item);
+
+            writableSelected().remove(oldIndex);
+            notifyNormal(old);
+        }
+    }
+
+    /**
+     * 多选模式下替换数据之后，把保留的选中状态平移到新的位置，并通知替换进来的新对象被选中
+     */
+    private void submitMultiSelected(List<T> listOld, List<T> listNew, int[] arrOldToNew, int[] arrOldSelected)
+    {
+        final int[] arrNewSelected = new int[arrOldSelected.length];
+        int count = 0;
+        for (int oldIndex : arrOldSelected)
+        {
+            final int newIndex = arrOldToNew[oldIndex];
+            if (newIndex >= 0)
+                arrNewSelected[count++] = newIndex;
+        }
+
+        // 按位置顺序添加，稀疏模式下每次都是在末尾追加
+        Arrays.sort(arrNewSelected, 0, count);
+        clearSelectedPositions();
+        final PositionBitmap selected = writableSelected();
+        for (int i = 0; i < count; i++)
+        {
+            selected.add(arrNewSelected[i]);
+        }
+
+        for (int oldIndex : arrOldSelected)
+        {
+            final int newIndex = arrOldToNew[oldIndex];
+            if (newIndex < 0)
+                continue;
+
+            final T item = listNew.get(newIndex);
+            if (item != listOld.get(oldIndex))
+                notifySelected(item);
+        }
+    }
+
+    @Override
+    public final void setItemSource(ItemSource<T> source)
+    {
+        if (source == null)
+        {
+            setItems((List<T>) null);
+            return;
+        }
+
+        final boolean metrics = beginOperation();
+        try
+        {
+            invalidateJournal();
+            clearSelectedForReplace();
+            replaceItems(null);
+            clearIndex();
+            mDisabled.clear();
+            mItemSource = source;
+        } finally
+        {
+            endOperation(metrics, SelectMetrics.Operation.SET_ITEMS);
+        }
+    }
+
+    @Override
+    public final void addItem(T item)
+    {
+        checkItemSource();
+        if (item == null)
+            return;
+
+        checkNotExist(item, -1);
+
+        final boolean metrics = beginMetrics();
+        try
+        {
+            invalidateJournal();
+            writableItems().add(item);
+            refreshSelectable(mListItem.size() - 1, item);
+            initItem(item);
+        } finally
+        {
+            if (metrics)
+                endMetrics(SelectMetrics.Operation.ADD_ITEMS);
+        }
+    }
+
+    @Override
+    public final void addItems(List<T> items)
+    {
+        checkItemSource();
+        if (items == null)
+            return;
+
+        checkNotExist(items);
+
+        final boolean metrics = beginMetrics();
+        try
+        {
+            invalidateJournal();
+            final int start = mListItem.size();
+            writableItems().addAll(items);
+            for (int i = 0; i < items.size(); i++)
+            {
+                refreshSelectable(start + i, items.get(i));
+            }
+            for (T item : items)
+            {
+                initItem(item);
+            }
+        } finally
+        {
+            if (metrics)
+                endMetrics(SelectMetrics.Operation.ADD_ITEMS);
+        }
+    }
+
+    @Override
+    public final void addItem(int index, T item)
+    {
+        checkItemSource();
+        if (item == null)
+            return;
+
+        checkNotExist(item, -1);
+
+        final boolean metrics = beginMetrics();
+        try
+        {
+            invalidateJournal();
+            writableItems().add(index, item);
+            onItemsInserted(index, 1);
+            writableSelected().insert(index, 1);
+            mDisabled.insert(index, 1);
+            refreshSelectable(index, item);
+            initItem(item);
+        } finally
+        {
+            if (metrics)
+                endMetrics(SelectMetrics.Operation.ADD_ITEMS);
+        }
+    }
+
+    @Override
+    public final void addItems(int index, List<T> items)
+    {
+        checkItemSource();
+        if (items == null || items.isEmpty())
+            return;
+
+        checkNotExist(items);
+
+        final boolean metrics = beginMetrics();
+        try
+        {
+            invalidateJournal();
+            writableItems().addAll(index, items);
+            onItemsInserted(index, items.size());
+            writableSelected().insert(index, items.size());
+            mDisabled.insert(index, items.size());
+            for (int i = 0; i < items.size(); i++)
+            {
+                refreshSelectable(index + i, items.get(i));
+            }
+            for (T item : items)
+            {
+                initItem(item);
+            }
+        } finally
+        {
+            if (metrics)
+                endMetrics(SelectMetrics.Operation.ADD_ITEMS);
+        }
+    }
+
+    @Override
+    public final void removeItem(T item)
+    {
+        checkItemSource();
+        final int index = indexOf(item);
+        if (index < 0)
+            return;
+
+        final boolean metrics = beginOperation();
+        try
+        {
+            invalidateJournal();
+            if (isSelected(index, item))
+            {
+                if (getMode().isSingleType())
+                {
+                    clearSelected();
+                } else
+                {
+                    setSelectedInternal(index, item, false);
+                    if (isSelected(index, item))
+                    {
+                        // 多选必选模式，并且当前仅有一项item，直接清空选中
+                        clearSelected();
+                    }
+                }
+            }
+
+            writableItems().remove(index);
+            mItemIndex.onRemoved(index, item);
+            if (mKeyIndex != null)
+                mKeyIndex.onRemoved(index, item);
+            writableSelected().delete(index);
+            mDisabled.delete(index);
+        } finally
+        {
+            endOperation(metrics, SelectMetrics.Operation.REMOVE_ITEM);
+        }
+    }
+
+    @Override
+    public final void updateItem(int index, T item)
+    {
+        checkItemSource();
+        if (item == null)
+            return;
+
+        checkNotExist(item, index);
+
+        final boolean metrics = beginOperation();
+        try
+        {
+            invalidateJournal();
+
+            // 选中状态是按位置保存的，新的item默认未选中，在替换之前取消选中，回调的时候旧的item还在原来的位置上
+            final T old = itemAt(index);
+            if (getMode().isSingleType())
+            {
+                if (old != null && old == mCurrentItem)
+                {
+                    setCurrentItem(null);
+                    notifyNormal(old);
+                }
+            } else
+            {
+                if (mSelected.contains(index))
+                {
+                    writableSelected().remove(index);
+                    notifyNormal(old);
+                }
+            }
+
+            writableItems().set(index, item);
+            mItemIndex.onReplaced(index, old, item);
+            if (mKeyIndex != null)
+                mKeyIndex.onReplaced(index, old, item);
+            refreshSelectable(index, item);
+            initItem(item);
+        } finally
+        {
+            endOperation(metrics, SelectMetrics.Operation.UPDATE_ITEM);
+        }
+    }
+
+    //---------- data end ----------
+
+    /**
+     * 替换全部数据之前清空选中，和之前的版本保持一致，不触发单个item的回调，只通过批量变化回调通知
+     */
+    private void clearSelectedForReplace()
+    {
+        mSilentNormal = true;
+        try
+        {
+            clearSelected();
+        } finally
+        {
+            mSilentNormal = false;
+        }
+    }
+
+    private void clearIndex()
+    {
+        mItemIndex.clear();
+        if (mKeyIndex != null)
+            mKeyIndex.clear();
+    }
+
+    private void onItemsInserted(int index, int count)
+    {
+        mItemIndex.onInserted(index, count);
+        if (mKeyIndex != null)
+            mKeyIndex.onInserted(index, count);
+    }
+
+    /**
+     * 返回当前选中item的key，没有设置{@link KeyExtractor}的时候返回null
+     */
+    private List<Object> getSelectedKeys()
+    {
+        if (mKeyIndex == null)
+            return null;
+
+        final List<Object> list = new ArrayList<>();
+        if (getMode().isSingleType())
+        {
+            if (mCurrentItem != null)
+                list.add(mKeyIndex.keyOf(mCurrentItem));
+        } else
+        {
+            for (int i = mSelected.nextSetBit(0); i >= 0; i = mSelected.nextSetBit(i + 1))
+            {
+                list.add(mKeyIndex.keyOf(itemAt(i)));
+            }
+        }
+        return list;
+    }
+
+    /**
+     * 把选中状态恢复到key相同的item上，这里是恢复原有的选中状态，所以不经过拦截器
+     */
+    private void restoreSelectedKeys(List<Object> listKey)
+    {
+        for (Object key : listKey)
+        {
+            final int index = mKeyIndex.indexOfKey(key);
+            if (index < 0)
+                continue;
+
+            final T item = itemAt(index);
+            if (!isSelectable(index, item))
+                continue;
+
+            if (getMode().isSingleType())
+            {
+                setCurrentItem(item);
+                notifySelected(item);
+            } else
+            {
+                if (writableSelected().add(index))
+                    notifySelected(item);
+            }
+        }
+    }
+
+    private PositionBitmap writableSelected()
+    {
+        mSelectionModCount++;
+        if (mSelectedShared)
+        {
+            mSelected = mSelected.copy();
+            mSelectedShared = false;
+        }
+        return mSelected;
+    }
+
+    private void clearSelectedPositions()
+    {
+        mSelectionModCount++;
+        if (mSelectedShared)
+        {
+            mSelected = new PositionBitmap();
+            mSelectedShared = false;
+        } else
+        {
+            mSelected.clear();
+        }
+    }
+
+    private List<T> writableItems()
+    {
+        if (mSnapshotItems != null)
+        {
+            mListItem = new ArrayList<>(mListItem);
+            mSnapshotItems = null;
+        }
+        return mListItem;
+    }
+
+    private void replaceItems(List<T> items)
+    {
+        if (mSnapshotItems != null)
+        {
+            mListItem = new ArrayList<>();
+            mSnapshotItems = null;
+        } else
+        {
+            mListItem.clear();
+        }
+
+        if (items != null)
+            mListItem.addAll(items);
+    }
+
+    private void checkItemSource()
+    {
+        if (mItemSource != null)
+            throw new UnsupportedOperationException("this method is not supported when ItemSource is set");
+    }
+
+    /**
+     * 选中状态是按位置保存的，同一个item对象出现多次的话无法确定对应哪个位置，所以不允许重复
+     */
+    private static <T> void checkDuplicate(List<T> items)
+    {
+        if (items == null || items.size() < 2)
+            return;
+
+        final Map<T, Boolean> map = new IdentityHashMap<>(items.size());
+        for (int i = 0; i < items.size(); i++)
+        {
+            final T item = items.get(i);
+            if (item != null && map.put(item, Boolean.TRUE) != null)
+                throw new IllegalArgumentException("duplicate item at index " + i);
+        }
+    }
+
+    /**
+     * 检查item不在当前数据中
+     *
+     * @param item
+     * @param ignoreIndex 允许item所在的位置，例如替换的时候item可以是原来位置上的对象
+     */
+    private void checkNotExist(T item, int ignoreIndex)
+    {
+        final int index = mItemIndex.indexOf(item);
+        if (index >= 0 && index != ignoreIndex)
+            throw new IllegalArgumentException("item already exists at index " + index);
+    }
+
+    private void checkNotExist(List<T> items)
+    {
+        checkDuplicate(items);
+        for (T item : items)
+        {
+            checkNotExist(item, -1);
+        }
+    }
+
+    final int itemCount()
+    {
+        return mItemSource != null ? mItemSource.size() : mListItem.size();
+    }
+
+    final T itemAt(int index)
+    {
+        return mItemSource != null ? mItemSource.get(index) : mListItem.get(index);
+    }
+
+    private void initItem(T item)
+    {
+        if (item == null)
+            throw new NullPointerException("item is null");
+
+        onInitItem(item);
+
+        if (mOnItemInitCallback != null)
+            mOnItemInitCallback.onInitItem(item);
+    }
+
+    protected void onInitItem(T item)
+    {
+
+    }
+}
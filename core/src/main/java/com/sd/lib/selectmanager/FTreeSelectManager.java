@@ -0,0 +1,727 @@
+package com.sd.lib.selectmanager;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * 树形数据的三态选择管理器，没有子节点的节点是叶子节点，父节点的状态由子树中叶子节点的选中数量决定
+ * <br>
+ * 所有节点按先序排开保存，每个节点的子树是连续的区间，每个节点记录子树中叶子节点的数量和选中的数量，
+ * 选中或者取消选中一个节点的子树是O(子树大小)，更新祖先节点是O(深度)，移除一个节点的子树是O(子树大小 × 节点数量)
+ * <br>
+ * 父节点在子树中所有叶子节点都被选中的时候自动变为选中，回调对象和拦截对象和{@link SelectManager}的规则一致，
+ * 拦截对象只检查叶子节点，父节点的状态变化不经过拦截对象，每次操作所有变化合并后一起回调
+ *
+ * @param <T>
+ */
+public class FTreeSelectManager<T>
+{
+    private final FSelectManager<T> mStore = new FSelectManager<>();
+
+    /** 父节点的位置，-1表示根节点 */
+    private int[] mParent = new int[0];
+    /** 子树的节点数量，包括自己 */
+    private int[] mSubtreeSize = new int[0];
+    /** 子树中叶子节点的数量 */
+    private int[] mLeafCount = new int[0];
+    /** 子树中选中的叶子节点数量 */
+    private int[] mSelectedLeafCount = new int[0];
+    private int mSelectedCount;
+
+    private Object[] mStateChangeCallbackHolder;
+
+    private int mBatchCount;
+    /** 批量操作期间状态可能发生变化的节点，在最外层的{@link #endBatch()}的时候比较是否真正发生了变化 */
+    private int[] mChangedIndexes = new int[16];
+    private int mChangedSize;
+    /** 状态可能发生变化的节点在变化之前的状态，为null表示没有记录 */
+    private CheckState[] mOriginStates = new CheckState[0];
+
+    public FTreeSelectManager()
+    {
+        mStore.setMode(SelectManager.Mode.MULTI);
+    }
+
+    /**
+     * 添加回调对象，父节点自动选中或者取消选中的时候也会回调
+     *
+     * @param callback
+     */
+    public final void addCallback(SelectManager.Callback<T> callback)
+    {
+        mStore.addCallback(callback);
+    }
+
+    /**
+     * 移除回调对象
+     *
+     * @param callback
+     */
+    public final void removeCallback(SelectManager.Callback<T> callback)
+    {
+        mStore.removeCallback(callback);
+    }
+
+    /**
+     * 添加批量变化回调对象，见{@link SelectManager#addSelectionChangeCallback(SelectManager.SelectionChangeCallback)}
+     *
+     * @param callback
+     */
+    public final void addSelectionChangeCallback(SelectManager.SelectionChangeCallback<T> callback)
+    {
+        mStore.addSelectionChangeCallback(callback);
+    }
+
+    /**
+     * 移除批量变化回调对象
+     *
+     * @param callback
+     */
+    public final void removeSelectionChangeCallback(SelectManager.SelectionChangeCallback<T> callback)
+    {
+        mStore.removeSelectionChangeCallback(callback);
+    }
+
+    /**
+     * 添加三态变化回调对象
+     *
+     * @param callback
+     */
+    public final void addStateChangeCallback(StateChangeCallback<T> callback)
+    {
+        if (callback == null)
+            return;
+
+        mStateChangeCallbackHolder = FSelectManager.addHolder(mStateChangeCallbackHolder, callback);
+    }
+
+    /**
+     * 移除三态变化回调对象
+     *
+     * @param callback
+     */
+    public final void removeStateChangeCallback(StateChangeCallback<T> callback)
+    {
+        if (callback == null)
+            return;
+
+        mStateChangeCallbackHolder = FSelectManager.removeHolder(mStateChangeCallbackHolder, callback);
+    }
+
+    /**
+     * 添加拦截对象，只有叶子节点会被检查
+     *
+     * @param interceptor
+     */
+    public final void addStateInterceptor(SelectManager.StateInterceptor<T> interceptor)
+    {
+        mStore.addStateInterceptor(interceptor);
+    }
+
+    /**
+     * 移除拦截对象
+     *
+     * @param interceptor
+     */
+    public final void removeStateInterceptor(SelectManager.StateInterceptor<T> interceptor)
+    {
+        mStore.removeStateInterceptor(interceptor);
+    }
+
+    /**
+     * 返回节点的状态
+     *
+     * @param item
+     * @return 节点不存在的时候返回{@link CheckState#UNCHECKED}
+     */
+    public final CheckState getState(T item)
+    {
+        final int index = mStore.indexOf(item);
+        if (index < 0)
+            return CheckState.UNCHECKED;
+
+        return stateOf(index);
+    }
+
+    /**
+     * 节点是否被选中，即状态为{@link CheckState#CHECKED}
+     *
+     * @param item
+     * @return
+     */
+    public final boolean isSelected(T item)
+    {
+        return mStore.isSelected(item);
+    }
+
+    /**
+     * 返回节点子树中选中的叶子节点数量
+     *
+     * @param item
+     * @return
+     */
+    public final int getSelectedLeafCount(T item)
+    {
+        final int index = mStore.indexOf(item);
+        return index < 0 ? 0 : mSelectedLeafCount[index];
+    }
+
+    /**
+     * 返回节点子树中叶子节点的数量
+     *
+     * @param item
+     * @return
+     */
+    public final int getLeafCount(T item)
+    {
+        final int index = mStore.indexOf(item);
+        return index < 0 ? 0 : mLeafCount[index];
+    }
+
+    /**
+     * 返回所有选中的叶子节点数量
+     *
+     * @return
+     */
+    public final int getSelectedCount()
+    {
+        return mSelectedCount;
+    }
+
+    /**
+     * 返回所有选中的节点，包括自动选中的父节点，按先序排列
+     *
+     * @return
+     */
+    public final List<T> getSelectedItems()
+    {
+        return mStore.getSelectedItems();
+    }
+
+    /**
+     * 返回选中的叶子节点，按先序排列
+     *
+     * @return
+     */
+    public final List<T> getSelectedLeaves()
+    {
+        final List<T> list = new ArrayList<>(mSelectedCount);
+        for (int i = mStore.nextSelectedIndex(0); i >= 0; i = mStore.nextSelectedIndex(i + 1))
+        {
+            if (mSubtreeSize[i] == 1)
+                list.add(mStore.itemAt(i));
+        }
+        return list;
+    }
+
+    /**
+     * 返回父节点
+     *
+     * @param item
+     * @return null表示是根节点或者节点不存在
+     */
+    public final T getParent(T item)
+    {
+        final int index = mStore.indexOf(item);
+        if (index < 0)
+            return null;
+
+        final int parent = mParent[index];
+        return parent < 0 ? null : mStore.itemAt(parent);
+    }
+
+    /**
+     * 返回节点数量
+     *
+     * @return
+     */
+    public final int getItemCount()
+    {
+        return mStore.itemCount();
+    }
+
+    /**
+     * 返回按先序排开之后某个位置的节点
+     *
+     * @param index
+     * @return
+     */
+    public final T getItem(int index)
+    {
+        return mStore.itemAt(index);
+    }
+
+    /**
+     * 返回节点按先序排开之后的位置
+     *
+     * @param item
+     * @return -1表示不存在
+     */
+    public final int indexOf(T item)
+    {
+        return mStore.indexOf(item);
+    }
+
+    /**
+     * 模拟点击节点，{@link CheckState#CHECKED}的时候取消选中整个子树，否则选中整个子树
+     *
+     * @param item
+     */
+    public final void performClick(T item)
+    {
+        final int index = mStore.indexOf(item);
+        if (index < 0)
+            return;
+
+        setSubtreeSelected(index, stateOf(index) != CheckState.CHECKED);
+    }
+
+    /**
+     * 设置节点整个子树的选中状态
+     *
+     * @param item
+     * @param selected
+     */
+    public final void setSelected(T item, boolean selected)
+    {
+        final int index = mStore.indexOf(item);
+        if (index < 0)
+            return;
+
+        setSubtreeSelected(index, selected);
+    }
+
+    /**
+     * 取消选中所有节点，不经过拦截对象
+     */
+    public final void clearSelected()
+    {
+        if (mStore.getSelectedCount() <= 0)
+            return;
+
+        beginBatch();
+        try
+        {
+            if (mStateChangeCallbackHolder != null)
+            {
+                // 祖先节点已经记录过的时候，更上层的节点也已经记录过了
+                for (int i = mStore.nextSelectedIndex(0); i >= 0; i = mStore.nextSelectedIndex(i + 1))
+                {
+                    for (int index = i; index >= 0 && mOriginStates[index] == null; index = mParent[index])
+                    {
+                        recordState(index);
+                    }
+                }
+            }
+            mStore.clearSelected();
+            Arrays.fill(mSelectedLeafCount, 0);
+            mSelectedCount = 0;
+        } finally
+        {
+            endBatch();
+        }
+    }
+
+    /**
+     * 开始批量操作，见{@link SelectManager#beginBatch()}，三态变化回调也会合并到最外层的{@link #endBatch()}
+     */
+    public final void beginBatch()
+    {
+        mBatchCount++;
+        mStore.beginBatch();
+    }
+
+    /**
+     * 结束批量操作，必须和{@link #beginBatch()}成对调用
+     */
+    public final void endBatch()
+    {
+        if (mBatchCount <= 0)
+            throw new IllegalStateException("endBatch() called without beginBatch()");
+
+        mBatchCount--;
+        try
+        {
+            mStore.endBatch();
+        } finally
+        {
+            if (mBatchCount == 0)
+                notifyStateChanged();
+        }
+    }
+
+    /**
+     * 以批量操作的方式执行runnable
+     *
+     * @param runnable
+     */
+    public final void runInBatch(Runnable runnable)
+    {
+        if (runnable == null)
+            return;
+
+        beginBatch();
+        try
+        {
+            runnable.run();
+        } finally
+        {
+            endBatch();
+        }
+    }
+
+    /**
+     * 设置子树的选中状态，叶子节点经过拦截对象，然后重新统计子树，再把变化的数量更新到祖先节点
+     */
+    private void setSubtreeSelected(int index, boolean selected)
+    {
+        final int end = index + mSubtreeSize[index];
+
+        beginBatch();
+        try
+        {
+            for (int i = index; i < end; i++)
+            {
+                recordState(i);
+            }
+            for (int parent = mParent[index]; parent >= 0; parent = mParent[parent])
+            {
+                recordState(parent);
+            }
+
+            for (int i = index; i < end; i++)
+            {
+                if (mSubtreeSize[i] == 1 && mStore.isSelectedAt(i) != selected)
+                    mStore.setSelected(i, selected);
+            }
+
+            final int delta = recountSubtree(index, end);
+            mSelectedCount += delta;
+            for (int parent = mParent[index]; parent >= 0; parent = mParent[parent])
+            {
+                mSelectedLeafCount[parent] += delta;
+                syncParent(parent);
+            }
+        } finally
+        {
+            endBatch();
+        }
+    }
+
+    /**
+     * 按叶子节点的选中状态重新统计[from, to)子树，同步父节点的选中状态
+     *
+     * @return 子树根节点选中数量的变化
+     */
+    private int recountSubtree(int from, int to)
+    {
+        final int old = mSelectedLeafCount[from];
+        for (int i = from; i < to; i++)
+        {
+            mSelectedLeafCount[i] = mSubtreeSize[i] == 1 && mStore.isSelectedAt(i) ? 1 : 0;
+        }
+
+        // 倒序遍历的时候子节点总是先于父节点
+        for (int i = to - 1; i > from; i--)
+        {
+            mSelectedLeafCount[mParent[i]] += mSelectedLeafCount[i];
+        }
+        for (int i = to - 1; i >= from; i--)
+        {
+            syncParent(i);
+        }
+        return mSelectedLeafCount[from] - old;
+    }
+
+    /**
+     * 父节点在子树中所有叶子节点都被选中的时候选中，否则取消选中
+     */
+    private void syncParent(int index)
+    {
+        if (mSubtreeSize[index] == 1)
+            return;
+
+        final boolean selected = mLeafCount[index] > 0 && mSelectedLeafCount[index] == mLeafCount[index];
+        mStore.setSelectedDirectly(index, selected);
+    }
+
+    private CheckState stateOf(int index)
+    {
+        final int count = mSelectedLeafCount[index];
+        if (count <= 0)
+            return CheckState.UNCHECKED;
+        if (count >= mLeafCount[index])
+            return CheckState.CHECKED;
+        return CheckState.INDETERMINATE;
+    }
+
+    private void recordState(int index)
+    {
+        if (mStateChangeCallbackHolder == null || mOriginStates[index] != null)
+            return;
+
+        mOriginStates[index] = stateOf(index);
+        if (mChangedSize == mChangedIndexes.length)
+            mChangedIndexes = Arrays.copyOf(mChangedIndexes, mChangedSize * 2);
+        mChangedIndexes[mChangedSize++] = index;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void notifyStateChanged()
+    {
+        if (mChangedSize <= 0)
+            return;
+
+        final List<T> list = new ArrayList<>();
+        for (int i = 0; i < mChangedSize; i++)
+        {
+            final int index = mChangedIndexes[i];
+            if (mOriginStates[index] != stateOf(index))
+                list.add(mStore.itemAt(index));
+            mOriginStates[index] = null;
+        }
+        mChangedSize = 0;
+
+        final Object[] holder = mStateChangeCallbackHolder;
+        if (holder == null || list.isEmpty())
+            return;
+
+        final List<T> result = Collections.unmodifiableList(list);
+        for (Object callback : holder)
+        {
+            ((StateChangeCallback<T>) callback).onStateChanged(result);
+        }
+    }
+
+    //---------- data start ----------
+
+    /**
+     * 设置树形数据，同一个节点只能出现一次
+     *
+     * @param roots    根节点
+     * @param provider 返回节点的子节点
+     */
+    public final void setTree(List<T> roots, ChildrenProvider<T> provider)
+    {
+        if (mBatchCount > 0)
+            throw new IllegalStateException("setTree() is not supported in batch");
+
+        clearSelected();
+
+        final List<T> listItem = new ArrayList<>();
+        int[] parents = new int[16];
+
+        // 用栈按先序遍历，子节点倒序入栈保证按原来的顺序出栈
+        final Deque<T> stackItem = new ArrayDeque<>();
+        int[] stackParent = new int[16];
+        if (roots != null)
+        {
+            for (int i = roots.size() - 1; i >= 0; i--)
+            {
+                stackItem.push(roots.get(i));
+                stackParent = push(stackParent, stackItem.size() - 1, -1);
+            }
+        }
+
+        while (!stackItem.isEmpty())
+        {
+            final T item = stackItem.pop();
+            final int parent = stackParent[stackItem.size()];
+            final int index = listItem.size();
+            listItem.add(item);
+            parents = push(parents, index, parent);
+
+            final List<T> children = provider == null ? null : provider.getChildren(item);
+            if (children == null)
+                continue;
+
+            for (int i = children.size() - 1; i >= 0; i--)
+            {
+                stackItem.push(children.get(i));
+                stackParent = push(stackParent, stackItem.size() - 1, index);
+            }
+        }
+
+        final int size = listItem.size();
+        mParent = Arrays.copyOf(parents, size);
+        mSubtreeSize = new int[size];
+        mLeafCount = new int[size];
+        mSelectedLeafCount = new int[size];
+        mSelectedCount = 0;
+        mOriginStates = new CheckState[size];
+        mChangedSize = 0;
+
+        Arrays.fill(mSubtreeSize, 1);
+        for (int i = size - 1; i > 0; i--)
+        {
+            final int parent = mParent[i];
+            if (parent >= 0)
+                mSubtreeSize[parent] += mSubtreeSize[i];
+        }
+        for (int i = size - 1; i >= 0; i--)
+        {
+            if (mSubtreeSize[i] == 1)
+                mLeafCount[i]++;
+
+            final int parent = mParent[i];
+            if (parent >= 0)
+                mLeafCount[parent] += mLeafCount[i];
+        }
+
+        mStore.setItems(listItem);
+    }
+
+    /**
+     * 移除节点和它的子树，子树中选中的节点直接取消选中，不经过拦截对象，祖先节点重新统计状态
+     * <br>
+     * 父节点的子节点全部被移除之后变为未选中的叶子节点
+     *
+     * @param item
+     */
+    public final void removeItem(T item)
+    {
+        if (mBatchCount > 0)
+            throw new IllegalStateException("removeItem() is not supported in batch");
+
+        final int index = mStore.indexOf(item);
+        if (index < 0)
+            return;
+
+        final int size = mSubtreeSize[index];
+        final int end = index + size;
+        final int parentIndex = mParent[index];
+
+        beginBatch();
+        try
+        {
+            // 祖先节点的位置在子树之前，移除之后不变，子树中的节点不回调三态变化
+            for (int parent = parentIndex; parent >= 0; parent = mParent[parent])
+            {
+                recordState(parent);
+            }
+
+            // 先取消选中，回调的时候节点还在原来的位置上
+            for (int i = mStore.nextSelectedIndex(index); i >= 0 && i < end; i = mStore.nextSelectedIndex(i + 1))
+            {
+                mStore.setSelectedDirectly(i, false);
+            }
+            for (int i = end - 1; i >= index; i--)
+            {
+                mStore.removeItem(mStore.itemAt(i));
+            }
+
+            final int leafCount = mLeafCount[index];
+            final int selectedLeafCount = mSelectedLeafCount[index];
+            mSelectedCount -= selectedLeafCount;
+
+            mParent = removeRange(mParent, index, end);
+            mSubtreeSize = removeRange(mSubtreeSize, index, end);
+            mLeafCount = removeRange(mLeafCount, index, end);
+            mSelectedLeafCount = removeRange(mSelectedLeafCount, index, end);
+            mOriginStates = Arrays.copyOf(mOriginStates, mOriginStates.length - size);
+            for (int i = index; i < mParent.length; i++)
+            {
+                if (mParent[i] >= end)
+                    mParent[i] -= size;
+            }
+
+            for (int parent = parentIndex; parent >= 0; parent = mParent[parent])
+            {
+                mSubtreeSize[parent] -= size;
+                mLeafCount[parent] -= leafCount;
+                mSelectedLeafCount[parent] -= selectedLeafCount;
+            }
+
+            if (parentIndex >= 0 && mSubtreeSize[parentIndex] == 1)
+            {
+                // 父节点变为叶子节点
+                mStore.setSelectedDirectly(parentIndex, false);
+                for (int parent = parentIndex; parent >= 0; parent = mParent[parent])
+                {
+                    mLeafCount[parent]++;
+                }
+            }
+
+            for (int parent = parentIndex; parent >= 0; parent = mParent[parent])
+            {
+                syncParent(parent);
+            }
+        } finally
+        {
+            endBatch();
+        }
+    }
+
+    //---------- data end ----------
+
+    /**
+     * 返回移除[from, to)之后的数组
+     */
+    private static int[] removeRange(int[] array, int from, int to)
+    {
+        final int[] result = new int[array.length - (to - from)];
+        System.arraycopy(array, 0, result, 0, from);
+        System.arraycopy(array, to, result, from, array.length - to);
+        return result;
+    }
+
+    private static int[] push(int[] array, int index, int value)
+    {
+        if (index >= array.length)
+            array = Arrays.copyOf(array, Math.max(array.length * 2, index + 1));
+
+        array[index] = value;
+        return array;
+    }
+
+    public enum CheckState
+    {
+        /**
+         * 子树中没有选中的叶子节点
+         */
+        UNCHECKED,
+        /**
+         * 子树中所有叶子节点都被选中
+         */
+        CHECKED,
+        /**
+         * 子树中部分叶子节点被选中
+         */
+        INDETERMINATE
+    }
+
+    /**
+     * 返回节点的子节点
+     *
+     * @param <T>
+     */
+    public interface ChildrenProvider<T>
+    {
+        /**
+         * 返回子节点
+         *
+         * @param item
+         * @return null或者空列表表示没有子节点
+         */
+        List<T> getChildren(T item);
+    }
+
+    /**
+     * 三态变化回调，每次操作只回调一次
+     *
+     * @param <T>
+     */
+    public interface StateChangeCallback<T>
+    {
+        /**
+         * 状态变化回调
+         *
+         * @param items 本次操作{@link CheckState}发生变化的节点
+         */
+        void onStateChanged(List<T> items);
+    }
+}
@@ -0,0 +1,384 @@
+package com.sd.lib.selectmanager;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * item位置索引，没有{@link SelectManager.KeyExtractor}的时候按对象地址(==)查找item的位置，否则按key查找
+ * <br>
+ * 每个位置对应隐式平衡树(treap)中的一个节点，节点在树中的排名就是位置，key映射到节点，
+ * 插入和移除的时候只需要拆分合并树，查找和数据变化都是O(log n)
+ * <br>
+ * 末尾追加的数据不会立即索引，查找未命中的时候再把末尾未索引的数据一次性加入树中
+ * <br>
+ * 同一个key出现多次的时候节点串成链表，查找返回最小的位置
+ *
+ * @param <T>
+ */
+final class ItemIndex<T>
+{
+    private final SelectManager.ItemSource<T> mItems;
+    private final SelectManager.KeyExtractor<T, ?> mKeyExtractor;
+    /** key对应的节点，同一个key的其他节点通过{@link Node#nextSame}连接 */
+    private final Map<Object, Node> mMapNode;
+
+    private Node mRoot;
+    /** 拆分的时候保存右边的部分 */
+    private Node mSplitRight;
+    private int mSeed = 0x2545F491;
+
+    public ItemIndex(SelectManager.ItemSource<T> items)
+    {
+        this(items, null);
+    }
+
+    public ItemIndex(SelectManager.ItemSource<T> items, SelectManager.KeyExtractor<T, ?> keyExtractor)
+    {
+        mItems = items;
+        mKeyExtractor = keyExtractor;
+        mMapNode = keyExtractor == null ? new IdentityHashMap<Object, Node>() : new HashMap<Object, Node>();
+    }
+
+    /**
+     * 返回item的位置
+     *
+     * @param item
+     * @return -1表示不存在
+     */
+    public int indexOf(T item)
+    {
+        if (item == null)
+            return -1;
+
+        return indexOfKey(keyOf(item));
+    }
+
+    /**
+     * 返回key对应item的位置
+     *
+     * @param key
+     * @return -1表示不存在
+     */
+    public int indexOfKey(Object key)
+    {
+        if (key == null)
+            return -1;
+
+        Node node = mMapNode.get(key);
+        if (node == null && indexTail())
+            node = mMapNode.get(key);
+
+        if (node == null)
+            return -1;
+
+        int index = rankOf(node);
+        for (node = node.nextSame; node != null; node = node.nextSame)
+        {
+            index = Math.min(index, rankOf(node));
+        }
+        return index;
+    }
+
+    /**
+     * 返回item的key
+     *
+     * @param item
+     * @return
+     */
+    public Object keyOf(T item)
+    {
+        return mKeyExtractor == null ? item : mKeyExtractor.getKey(item);
+    }
+
+    /**
+     * 返回创建时传入的{@link SelectManager.KeyExtractor}
+     *
+     * @return null表示按对象地址查找
+     */
+    public SelectManager.KeyExtractor<T, ?> getKeyExtractor()
+    {
+        return mKeyExtractor;
+    }
+
+    /**
+     * 在index位置插入了count个数据
+     *
+     * @param index
+     * @param count
+     */
+    public void onInserted(int index, int count)
+    {
+        if (count <= 0 || index >= size(mRoot))
+            return;
+
+        final Node left = split(mRoot, index);
+        final Node right = mSplitRight;
+        setRoot(merge(merge(left, build(index, index + count)), right));
+    }
+
+    /**
+     * item被移除
+     *
+     * @param index item原来的位置
+     * @param item
+     */
+    public void onRemoved(int index, T item)
+    {
+        if (index < 0 || index >= size(mRoot))
+            return;
+
+        final Node left = split(mRoot, index);
+        final Node node = split(mSplitRight, 1);
+        setRoot(merge(left, mSplitRight));
+        unlink(node);
+    }
+
+    /**
+     * index位置的数据被替换
+     *
+     * @param index
+     * @param old
+     * @param item
+     */
+    public void onReplaced(int index, T old, T item)
+    {
+        if (old == item)
+            return;
+
+        if (index < 0 || index >= size(mRoot))
+            return;
+
+        final Node node = nodeAt(index);
+        unlink(node);
+        node.key = keyOf(item);
+        link(node);
+    }
+
+    /**
+     * 清空索引
+     */
+    public void clear()
+    {
+        mMapNode.clear();
+        mRoot = null;
+    }
+
+    /**
+     * 把末尾还没有索引的数据加入索引
+     *
+     * @return true-有新加入的数据
+     */
+    private boolean indexTail()
+    {
+        final int indexed = size(mRoot);
+        final int size = mItems.size();
+        if (indexed >= size)
+            return false;
+
+        setRoot(merge(mRoot, build(indexed, size)));
+        return true;
+    }
+
+    /**
+     * 为[from, to)位置的数据创建节点，按随机的优先级用栈一次性构建成树，O(to - from)
+     */
+    private Node build(int from, int to)
+    {
+        if (to - from == 1)
+            return newNode(from);
+
+        final Node[] stack = new Node[to - from];
+        int top = 0;
+        for (int i = from; i < to; i++)
+        {
+            final Node node = newNode(i);
+            Node last = null;
+            while (top > 0 && stack[top - 1].priority < node.priority)
+            {
+                last = stack[--top];
+                update(last);
+            }
+
+            node.left = last;
+            if (top > 0)
+                stack[top - 1].right = node;
+            stack[top++] = node;
+        }
+
+        while (top > 1)
+        {
+            update(stack[--top]);
+        }
+        update(stack[0]);
+        return stack[0];
+    }
+
+    private Node newNode(int index)
+    {
+        final Node node = new Node(nextPriority());
+        node.key = keyOf(mItems.get(index));
+        link(node);
+        return node;
+    }
+
+    private int nextPriority()
+    {
+        int x = mSeed;
+        x ^= x << 13;
+        x ^= x >>> 17;
+        x ^= x << 5;
+        mSeed = x;
+        return x;
+    }
+
+    private void link(Node node)
+    {
+        if (node.key == null)
+            return;
+
+        node.nextSame = mMapNode.put(node.key, node);
+    }
+
+    private void unlink(Node node)
+    {
+        if (node.key == null)
+            return;
+
+        final Node head = mMapNode.get(node.key);
+        if (head == node)
+        {
+            if (node.nextSame == null)
+                mMapNode.remove(node.key);
+            else
+                mMapNode.put(node.key, node.nextSame);
+        } else
+        {
+            Node prev = head;
+            while (prev != null && prev.nextSame != node)
+            {
+                prev = prev.nextSame;
+            }
+            if (prev != null)
+                prev.nextSame = node.nextSame;
+        }
+        node.nextSame = null;
+    }
+
+    private Node nodeAt(int index)
+    {
+        Node node = mRoot;
+        while (true)
+        {
+            final int leftSize = size(node.left);
+            if (index < leftSize)
+            {
+                node = node.left;
+            } else if (index == leftSize)
+            {
+                return node;
+            } else
+            {
+                index -= leftSize + 1;
+                node = node.right;
+            }
+        }
+    }
+
+    private static int rankOf(Node node)
+    {
+        int rank = size(node.left);
+        while (node.parent != null)
+        {
+            if (node == node.parent.right)
+                rank += size(node.parent.left) + 1;
+            node = node.parent;
+        }
+        return rank;
+    }
+
+    private void setRoot(Node root)
+    {
+        if (root != null)
+            root.parent = null;
+        mRoot = root;
+    }
+
+    /**
+     * 把node拆分成前count个节点和剩下的节点，返回前count个节点，剩下的保存在{@link #mSplitRight}
+     */
+    private Node split(Node node, int count)
+    {
+        if (node == null)
+        {
+            mSplitRight = null;
+            return null;
+        }
+
+        if (size(node.left) >= count)
+        {
+            final Node left = split(node.left, count);
+            node.left = mSplitRight;
+            update(node);
+            mSplitRight = node;
+            return left;
+        } else
+        {
+            node.right = split(node.right, count - size(node.left) - 1);
+            update(node);
+            return node;
+        }
+    }
+
+    private static Node merge(Node left, Node right)
+    {
+        if (left == null)
+            return right;
+        if (right == null)
+            return left;
+
+        if (left.priority > right.priority)
+        {
+            left.right = merge(left.right, right);
+            update(left);
+            return left;
+        } else
+        {
+            right.left = merge(left, right.left);
+            update(right);
+            return right;
+        }
+    }
+
+    private static int size(Node node)
+    {
+        return node == null ? 0 : node.size;
+    }
+
+    private static void update(Node node)
+    {
+        node.size = 1 + size(node.left) + size(node.right);
+        if (node.left != null)
+            node.left.parent = node;
+        if (node.right != null)
+            node.right.parent = node;
+    }
+
+    private static final class Node
+    {
+        final int priority;
+        Object key;
+        /** 相同key的下一个节点，没有顺序 */
+        Node nextSame;
+
+        Node left;
+        Node right;
+        Node parent;
+        int size = 1;
+
+        Node(int priority)
+        {
+            this.priority = priority;
+        }
+    }
+}
@@ -0,0 +1,529 @@
+package com.sd.lib.selectmanager;
+
+import java.util.Arrays;
+
+/**
+ * 按位置保存选中状态的位图
+ * <br>
+ * 选中的位置较少的时候用有序int数组保存(稀疏模式)，较多的时候用long数组按位保存(稠密模式)，
+ * 会根据选中的数量在两种模式之间自动切换
+ */
+final class PositionBitmap
+{
+    private static final int[] EMPTY_SPARSE = new int[0];
+    private static final long[] EMPTY_WORDS = new long[0];
+
+    /** 稀疏模式下，有序保存的位置 */
+    private int[] mSparse = EMPTY_SPARSE;
+    /** 稠密模式下，按位保存的位置，为null表示当前是稀疏模式 */
+    private long[] mWords;
+    /** 选中的数量 */
+    private int mCount;
+    /** 切换模式之后保留的另一种模式的数组，选中数量来回变化的时候复用，避免反复创建 */
+    private int[] mSpareSparse = EMPTY_SPARSE;
+    private long[] mSpareWords = EMPTY_WORDS;
+
+    /**
+     * 是否包含某个位置
+     *
+     * @param position
+     * @return
+     */
+    public boolean contains(int position)
+    {
+        if (position < 0)
+            return false;
+
+        if (mWords != null)
+        {
+            final int wordIndex = position >> 6;
+            return wordIndex < mWords.length && (mWords[wordIndex] & (1L << position)) != 0;
+        } else
+        {
+            return Arrays.binarySearch(mSparse, 0, mCount, position) >= 0;
+        }
+    }
+
+    /**
+     * 添加位置
+     *
+     * @param position
+     * @return true-添加成功，false-位置已经存在
+     */
+    public boolean add(int position)
+    {
+        if (position < 0)
+            throw new IllegalArgumentException("position < 0");
+
+        if (mWords != null)
+        {
+            final int wordIndex = position >> 6;
+            ensureWords(wordIndex + 1);
+
+            final long mask = 1L << position;
+            if ((mWords[wordIndex] & mask) != 0)
+                return false;
+
+            mWords[wordIndex] |= mask;
+            mCount++;
+            return true;
+        }
+
+        final int search = Arrays.binarySearch(mSparse, 0, mCount, position);
+        if (search >= 0)
+            return false;
+
+        final int insert = -(search + 1);
+        if (mCount == mSparse.length)
+            mSparse = Arrays.copyOf(mSparse, Math.max(4, mCount * 2));
+
+        System.arraycopy(mSparse, insert, mSparse, insert + 1, mCount - insert);
+        mSparse[insert] = position;
+        mCount++;
+
+        if (mCount > ((mSparse[mCount - 1] >> 6) + 1) * 2 + 32)
+            toDense();
+        return true;
+    }
+
+    /**
+     * 移除位置
+     *
+     * @param position
+     * @return true-移除成功，false-位置不存在
+     */
+    public boolean remove(int position)
+    {
+        if (position < 0)
+            return false;
+
+        if (mWords != null)
+        {
+            final int wordIndex = position >> 6;
+            if (wordIndex >= mWords.length)
+                return false;
+
+            final long mask = 1L << position;
+            if ((mWords[wordIndex] & mask) == 0)
+                return false;
+
+            mWords[wordIndex] &= ~mask;
+            mCount--;
+
+            if (mCount < mWords.length / 2)
+                toSparse();
+            return true;
+        }
+
+        final int search = Arrays.binarySearch(mSparse, 0, mCount, position);
+        if (search < 0)
+            return false;
+
+        System.arraycopy(mSparse, search + 1, mSparse, search, mCount - search - 1);
+        mCount--;
+        return true;
+    }
+
+    /**
+     * 添加[from, to)区间的所有位置
+     *
+     * @param from
+     * @param to
+     */
+    public void addRange(int from, int to)
+    {
+        if (from < 0)
+            throw new IllegalArgumentException("from < 0");
+        if (from >= to)
+            return;
+
+        if (mWords == null)
+        {
+            // 区间较小的时候逐个添加，不需要切换到稠密模式
+            if (to - from <= 64)
+            {
+                for (int i = from; i < to; i++)
+                {
+                    add(i);
+                }
+                return;
+            }
+            toDense();
+        }
+
+        ensureWords(((to - 1) >> 6) + 1);
+
+        final int startWord = from >> 6;
+        final int endWord = (to - 1) >> 6;
+        final long startMask = -1L << from;
+        final long endMask = -1L >>> -to;
+
+        for (int i = startWord; i <= endWord; i++)
+        {
+            long mask = -1L;
+            if (i == startWord)
+                mask &= startMask;
+            if (i == endWord)
+                mask &= endMask;
+
+            final long old = mWords[i];
+            mWords[i] = old | mask;
+            mCount += Long.bitCount(mWords[i]) - Long.bitCount(old);
+        }
+
+        if (mCount < mWords.length / 2)
+            toSparse();
+    }
+
+    /**
+     * 返回from位置及之后第一个存在的位置
+     *
+     * @param from
+     * @return -1表示不存在
+     */
+    public int nextSetBit(int from)
+    {
+        if (from < 0)
+            from = 0;
+
+        if (mWords != null)
+        {
+            int wordIndex = from >> 6;
+            if (wordIndex >= mWords.length)
+                return -1;
+
+            long word = mWords[wordIndex] & (-1L << from);
+            while (true)
+            {
+                if (word != 0)
+                    return (wordIndex << 6) + Long.numberOfTrailingZeros(word);
+
+                if (++wordIndex == mWords.length)
+                    return -1;
+
+                word = mWords[wordIndex];
+            }
+        }
+
+        int search = Arrays.binarySearch(mSparse, 0, mCount, from);
+        if (search < 0)
+            search = -(search + 1);
+
+        return search < mCount ? mSparse[search] : -1;
+    }
+
+    /**
+     * 返回from位置及之后第一个不存在的位置
+     *
+     * @param from
+     * @return
+     */
+    public int nextClearBit(int from)
+    {
+        if (from < 0)
+            from = 0;
+
+        if (mWords != null)
+        {
+            int wordIndex = from >> 6;
+            if (wordIndex >= mWords.length)
+                return from;
+
+            long word = ~mWords[wordIndex] & (-1L << from);
+            while (true)
+            {
+                if (word != 0)
+                    return (wordIndex << 6) + Long.numberOfTrailingZeros(word);
+
+                if (++wordIndex == mWords.length)
+                    return wordIndex << 6;
+
+                word = ~mWords[wordIndex];
+            }
+        }
+
+        int position = from;
+        for (int i = firstSparseIndex(from); i < mCount && mSparse[i] == position; i++)
+        {
+            position++;
+        }
+        return position;
+    }
+
+    /**
+     * 在index位置插入count个未选中的位置，原来index及之后的位置往后移动count
+     *
+     * @param index
+     * @param count
+     */
+    public void insert(int index, int count)
+    {
+        if (count <= 0 || mCount == 0)
+            return;
+
+        if (mWords != null)
+        {
+            mWords = shiftWords(mWords, index, count);
+            return;
+        }
+
+        for (int i = firstSparseIndex(index); i < mCount; i++)
+        {
+            mSparse[i] += count;
+        }
+    }
+
+    /**
+     * 删除index位置，原来index之后的位置往前移动1
+     *
+     * @param index
+     */
+    public void delete(int index)
+    {
+        if (mCount == 0)
+            return;
+
+        if (mWords != null)
+        {
+            final boolean contains = contains(index);
+            mWords = shiftWords(mWords, index, -1);
+            if (contains)
+            {
+                mCount--;
+                if (mCount < mWords.length / 2)
+                    toSparse();
+            }
+            return;
+        }
+
+        int start = firstSparseIndex(index);
+        if (start < mCount && mSparse[start] == index)
+        {
+            System.arraycopy(mSparse, start + 1, mSparse, start, mCount - start - 1);
+            mCount--;
+        }
+
+        for (int i = start; i < mCount; i++)
+        {
+            mSparse[i]--;
+        }
+    }
+
+    /**
+     * 返回一个内容相同的拷贝
+     *
+     * @return
+     */
+    public PositionBitmap copy()
+    {
+        final PositionBitmap copy = new PositionBitmap();
+        copy.mCount = mCount;
+        if (mWords != null)
+            copy.mWords = Arrays.copyOf(mWords, mWords.length);
+        else if (mCount > 0)
+            copy.mSparse = Arrays.copyOf(mSparse, mCount);
+        return copy;
+    }
+
+    /**
+     * 按顺序返回所有位置
+     *
+     * @return
+     */
+    public int[] toArray()
+    {
+        final int[] array = new int[mCount];
+        copyTo(array);
+        return array;
+    }
+
+    /**
+     * 按顺序把位置拷贝到out中，最多拷贝out.length个
+     *
+     * @param out
+     * @return 拷贝的数量
+     */
+    public int copyTo(int[] out)
+    {
+        final int max = Math.min(out.length, mCount);
+        if (mWords == null)
+        {
+            System.arraycopy(mSparse, 0, out, 0, max);
+            return max;
+        }
+
+        int index = 0;
+        for (int i = 0; i < mWords.length && index < max; i++)
+        {
+            long word = mWords[i];
+            while (word != 0 && index < max)
+            {
+                out[index++] = (i << 6) + Long.numberOfTrailingZeros(word);
+                word &= word - 1;
+            }
+        }
+        return index;
+    }
+
+    /**
+     * 返回位置的数量
+     *
+     * @return
+     */
+    public int cardinality()
+    {
+        return mCount;
+    }
+
+    /**
+     * 是否是稠密模式，包内使用
+     *
+     * @return
+     */
+    boolean isDense()
+    {
+        return mWords != null;
+    }
+
+    /**
+     * 清空
+     */
+    public void clear()
+    {
+        mSparse = EMPTY_SPARSE;
+        mWords = null;
+        mCount = 0;
+        mSpareSparse = EMPTY_SPARSE;
+        mSpareWords = EMPTY_WORDS;
+    }
+
+    private int firstSparseIndex(int position)
+    {
+        final int search = Arrays.binarySearch(mSparse, 0, mCount, position);
+        return search >= 0 ? search : -(search + 1);
+    }
+
+    private void ensureWords(int length)
+    {
+        if (mWords.length < length)
+            mWords = Arrays.copyOf(mWords, Math.max(length, mWords.length * 2));
+    }
+
+    private void toDense()
+    {
+        if (mWords != null)
+            return;
+
+        final int length = mCount > 0 ? (mSparse[mCount - 1] >> 6) + 1 : 0;
+        final long[] words;
+        if (length <= mSpareWords.length)
+        {
+            words = mSpareWords;
+            Arrays.fill(words, 0);
+        } else
+        {
+            words = new long[length];
+        }
+
+        for (int i = 0; i < mCount; i++)
+        {
+            final int position = mSparse[i];
+            words[position >> 6] |= 1L << position;
+        }
+
+        mWords = words;
+        mSpareSparse = mSparse;
+        mSparse = EMPTY_SPARSE;
+        mSpareWords = EMPTY_WORDS;
+    }
+
+    private void toSparse()
+    {
+        if (mWords == null)
+            return;
+
+        final int[] sparse = mCount <= mSpareSparse.length ? mSpareSparse : new int[mCount];
+        int index = 0;
+        for (int i = 0; i < mWords.length; i++)
+        {
+            long word = mWords[i];
+            while (word != 0)
+            {
+                sparse[index++] = (i << 6) + Long.numberOfTrailingZeros(word);
+                word &= word - 1;
+            }
+        }
+
+        mSparse = sparse;
+        mSpareWords = mWords;
+        mWords = null;
+        mSpareSparse = EMPTY_SPARSE;
+    }
+
+    /**
+     * 把index及之后的位平移delta位，delta大于0的时候在index处空出delta位，小于0的时候删除index开始的-delta位
+     */
+    private static long[] shiftWords(long[] words, int index, int delta)
+    {
+        int last = words.length - 1;
+        while (last >= 0 && words[last] == 0)
+        {
+            last--;
+        }
+        if (last < 0)
+            return EMPTY_WORDS;
+
+        // 平移之后最高位的下一个位置
+        final long totalBits = ((long) last << 6) + 64 - Long.numberOfLeadingZeros(words[last]) + Math.max(delta, 0);
+        final int length = (int) ((totalBits + 63) >> 6);
+        final long[] result = new long[length];
+
+        // 从index + max(delta, 0)开始的位来自原来的(p - delta)
+        final long start = index + Math.max(delta, 0);
+        for (int i = 0; i < length; i++)
+        {
+            final long base = (long) i << 6;
+
+            long value = 0;
+            if (base < index && i < words.length)
+                value = words[i] & lowMask(index - base);
+
+            if (base + 64 > start)
+                value |= readWord(words, base - delta) & ~lowMask(start - base);
+
+            result[i] = value;
+        }
+        return result;
+    }
+
+    /**
+     * 读取从bit位置开始的64位
+     */
+    private static long readWord(long[] words, long bit)
+    {
+        final long wordIndex = bit >> 6;
+        final int offset = (int) (bit & 63);
+
+        long value = wordAt(words, wordIndex) >>> offset;
+        if (offset != 0)
+            value |= wordAt(words, wordIndex + 1) << (64 - offset);
+        return value;
+    }
+
+    private static long wordAt(long[] words, long index)
+    {
+        return index >= 0 && index < words.length ? words[(int) index] : 0;
+    }
+
+    /**
+     * 低n位为1的掩码
+     */
+    private static long lowMask(long n)
+    {
+        if (n <= 0)
+            return 0;
+        if (n >= 64)
+            return -1L;
+        return (1L << n) - 1;
+    }
+}
@@ -0,0 +1,129 @@
+package com.sd.lib.selectmanager;
+
+/**
+ * 按分区保存数量，用树状数组维护前缀和，修改数量，查询前缀和，按位置查找所在分区都是O(log n)
+ */
+final class SectionIndex
+{
+    private int[] mCounts = new int[0];
+    /** 树状数组，下标从1开始，mTree[i]统计(i - lowbit(i), i]区间内分区的数量之和 */
+    private int[] mTree = new int[1];
+    private int mTotal;
+
+    /**
+     * 重置所有分区的数量，O(n)建树
+     *
+     * @param counts
+     */
+    public void reset(int[] counts)
+    {
+        final int size = counts.length;
+        final int[] tree = new int[size + 1];
+        int total = 0;
+        for (int i = 0; i < size; i++)
+        {
+            tree[i + 1] = counts[i];
+            total += counts[i];
+        }
+
+        for (int i = 1; i <= size; i++)
+        {
+            final int parent = i + (i & -i);
+            if (parent <= size)
+                tree[parent] += tree[i];
+        }
+
+        mCounts = counts.clone();
+        mTree = tree;
+        mTotal = total;
+    }
+
+    /**
+     * 返回分区的数量
+     *
+     * @return
+     */
+    public int size()
+    {
+        return mCounts.length;
+    }
+
+    /**
+     * 返回所有分区的数量之和
+     *
+     * @return
+     */
+    public int total()
+    {
+        return mTotal;
+    }
+
+    /**
+     * 返回某个分区的数量
+     *
+     * @param section
+     * @return
+     */
+    public int get(int section)
+    {
+        return mCounts[section];
+    }
+
+    /**
+     * 修改某个分区的数量
+     *
+     * @param section
+     * @param delta
+     */
+    public void add(int section, int delta)
+    {
+        mCounts[section] += delta;
+        mTotal += delta;
+        for (int i = section + 1; i < mTree.length; i += i & -i)
+        {
+            mTree[i] += delta;
+        }
+    }
+
+    /**
+     * 返回[0, section)区间内分区的数量之和
+     *
+     * @param section
+     * @return
+     */
+    public int prefix(int section)
+    {
+        int sum = 0;
+        for (int i = section; i > 0; i -= i & -i)
+        {
+            sum += mTree[i];
+        }
+        return sum;
+    }
+
+    /**
+     * 把所有分区的数量依次排开，返回index所在的分区
+     *
+     * @param index
+     * @return -1表示超出范围
+     */
+    public int find(int index)
+    {
+        if (index < 0 || index >= mTotal)
+            return -1;
+
+        // 在树状数组上二分，找到前缀和小于等于index的最大位置，数量为0的分区会被跳过
+        int position = 0;
+        int remain = index;
+        for (int step = Integer.highestOneBit(mCounts.length); step > 0; step >>= 1)
+        {
+            final int next = position + step;
+            if (next < mTree.length && mTree[next] <= remain)
+            {
+                position = next;
+                remain -= mTree[next];
+            }
+        }
+        return position;
+    }
+}
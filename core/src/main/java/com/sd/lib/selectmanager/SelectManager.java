@@ -0,0 +1,929 @@
+package com.sd.lib.selectmanager;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * 选择管理
+ * <br>
+ * 在最初版本之后新增的方法都有默认实现，默认实现只依赖原有的方法，无法实现的功能抛出{@link UnsupportedOperationException}，
+ * 所以已有的实现类不需要修改，{@link FSelectManager}实现了所有的方法
+ *
+ * @param <T>
+ */
+public interface SelectManager<T>
+{
+    /**
+     * 添加回调对象
+     *
+     * @param callback
+     */
+    void addCallback(Callback<T> callback);
+
+    /**
+     * 移除回调对象
+     *
+     * @param callback
+     */
+    void removeCallback(Callback<T> callback);
+
+    /**
+     * 设置item初始化回调对象
+     *
+     * @param callback
+     */
+    void setOnItemInitCallback(OnItemInitCallback<T> callback);
+
+    /**
+     * {@link #addStateInterceptor(StateInterceptor)}
+     *
+     * @param interceptor
+     */
+    @Deprecated
+    void setSelectedInterceptor(SelectedInterceptor<T> interceptor);
+
+    /**
+     * 添加拦截对象
+     *
+     * @param interceptor
+     */
+    void addStateInterceptor(StateInterceptor<T> interceptor);
+
+    /**
+     * 移除拦截对象
+     *
+     * @param interceptor
+     */
+    void removeStateInterceptor(StateInterceptor<T> interceptor);
+
+    /**
+     * 添加回调对象
+     *
+     * @param callback
+     */
+    void addSingleSelectCallback(SingleSelectCallback<T> callback);
+
+    /**
+     * 移除回调对象
+     *
+     * @param callback
+     */
+    void removeSingleSelectCallback(SingleSelectCallback<T> callback);
+
+    /**
+     * 添加批量变化回调对象
+     *
+     * @param callback
+     */
+    default void addSelectionChangeCallback(SelectionChangeCallback<T> callback)
+    {
+        throw new UnsupportedOperationException("selection change callback is not supported");
+    }
+
+    /**
+     * 移除批量变化回调对象
+     *
+     * @param callback
+     */
+    default void removeSelectionChangeCallback(SelectionChangeCallback<T> callback)
+    {
+
+    }
+
+    /**
+     * 设置回调的投递方式，{@link Callback}，{@link SingleSelectCallback}，{@link SelectionChangeCallback}都按此方式投递，
+     * 默认{@link CallbackDelivery#SYNC}
+     *
+     * @param executor {@link CallbackDelivery#SYNC}的时候可以为null
+     * @param delivery
+     */
+    default void setCallbackExecutor(Executor executor, CallbackDelivery delivery)
+    {
+        if (delivery != CallbackDelivery.SYNC)
+            throw new UnsupportedOperationException("callback executor is not supported");
+    }
+
+    /**
+     * 设置选择模式
+     *
+     * @param mode
+     */
+    void setMode(Mode mode);
+
+    /**
+     * 返回当前的选择模式
+     *
+     * @return
+     */
+    Mode getMode();
+
+    /**
+     * item是否被选中
+     *
+     * @param item
+     * @return
+     */
+    boolean isSelected(T item);
+
+    /**
+     * 返回当前选中的位置，{@link Mode#isSingleType()} == true 的时候才可以调用此方法
+     *
+     * @return
+     */
+    int getSelectedIndex();
+
+    /**
+     * 返回当前选中的位置，{@link Mode#isSingleType()} == false 的时候才可以调用此方法
+     *
+     * @return
+     */
+    List<Integer> getSelectedIndexs();
+
+    /**
+     * 返回选中的数量
+     *
+     * @return
+     */
+    default int getSelectedCount()
+    {
+        if (getMode().isSingleType())
+            return getSelectedItem() == null ? 0 : 1;
+        else
+            return getSelectedItems().size();
+    }
+
+    /**
+     * 按列表顺序返回选中的位置
+     *
+     * @return
+     */
+    default int[] getSelectedIndexArray()
+    {
+        final int[] array = new int[getSelectedCount()];
+        final int count = getSelectedIndexes(array);
+        return count == array.length ? array : Arrays.copyOf(array, count);
+    }
+
+    /**
+     * 按列表顺序把选中的位置拷贝到out中，最多拷贝out.length个，可以复用out避免每次创建数组
+     *
+     * @param out
+     * @return 拷贝的数量
+     */
+    default int getSelectedIndexes(int[] out)
+    {
+        if (out == null)
+            throw new NullPointerException("out is null");
+
+        if (getMode().isSingleType())
+        {
+            final int index = getSelectedIndex();
+            if (index < 0 || out.length <= 0)
+                return 0;
+
+            out[0] = index;
+            return 1;
+        }
+
+        final List<Integer> list = getSelectedIndexs();
+        final int count = Math.min(list.size(), out.length);
+        for (int i = 0; i < count; i++)
+        {
+            out[i] = list.get(i);
+        }
+        return count;
+    }
+
+    /**
+     * 返回当前选中的item，{@link Mode#isSingleType()} == true 的时候才可以调用此方法
+     *
+     * @return
+     */
+    T getSelectedItem();
+
+    /**
+     * 返回当前选中的item，{@link Mode#isSingleType()} == false 的时候才可以调用此方法
+     *
+     * @return
+     */
+    List<T> getSelectedItems();
+
+    /**
+     * 按指定的顺序返回当前选中的item，{@link Mode#isSingleType()} == false 的时候才可以调用此方法
+     *
+     * @param order {@link Order#SELECTION}需要先调用{@link #setSelectionOrderEnabled(boolean)}开启
+     * @return
+     */
+    default List<T> getSelectedItems(Order order)
+    {
+        if (order == null)
+            throw new NullPointerException("order is null");
+
+        if (order != Order.LIST)
+            throw new UnsupportedOperationException("selection order is not supported");
+        return getSelectedItems();
+    }
+
+    /**
+     * 返回item在选中顺序中的位置(第几个被选中，从0开始)，需要先调用{@link #setSelectionOrderEnabled(boolean)}开启
+     *
+     * @param item
+     * @return -1表示未选中
+     */
+    default int getSelectionRank(T item)
+    {
+        throw new UnsupportedOperationException("selection order is not supported");
+    }
+
+    /**
+     * 返回按列表顺序遍历选中item的只读视图，等价于{@link #selectedItemsView()}
+     *
+     * @return
+     */
+    default Iterable<T> selectedView()
+    {
+        return selectedItemsView();
+    }
+
+    /**
+     * 返回按列表顺序的选中item的只读视图，等价于{@link #selectedItemsView(Order)}传入{@link Order#LIST}
+     *
+     * @return
+     */
+    default Collection<T> selectedItemsView()
+    {
+        return selectedItemsView(Order.LIST);
+    }
+
+    /**
+     * 返回选中item的只读视图，视图直接读取当前的选中状态，不会拷贝数据，size()和contains()是O(1)
+     * <br>
+     * 单选模式下视图中最多只有一个item，遍历期间选中状态发生变化的时候抛出{@link java.util.ConcurrentModificationException}
+     *
+     * @param order {@link Order#SELECTION}需要先调用{@link #setSelectionOrderEnabled(boolean)}开启
+     * @return
+     */
+    default Collection<T> selectedItemsView(Order order)
+    {
+        if (getMode().isSingleType())
+        {
+            final T item = getSelectedItem();
+            return item == null ? Collections.<T>emptyList() : Collections.singletonList(item);
+        }
+        return Collections.unmodifiableList(getSelectedItems(order));
+    }
+
+    /**
+     * 按列表顺序遍历选中的item和位置，实现类遍历的时候不创建对象，遍历期间不能修改选中状态
+     *
+     * @param visitor
+     */
+    default void forEachSelected(SelectedVisitor<T> visitor)
+    {
+        if (visitor == null)
+            throw new NullPointerException("visitor is null");
+
+        if (getMode().isSingleType())
+        {
+            final T item = getSelectedItem();
+            if (item != null)
+                visitor.visit(indexOf(item), item);
+            return;
+        }
+
+        final int[] indexes = getSelectedIndexArray();
+        final List<T> listItem = getSelectedItems();
+        for (int i = 0; i < indexes.length; i++)
+        {
+            visitor.visit(indexes[i], listItem.get(i));
+        }
+    }
+
+    /**
+     * 返回当前选中状态的快照，快照创建之后不会再变化，可以在任意线程中读取
+     *
+     * @return
+     */
+    default SelectionSnapshot<T> snapshot()
+    {
+        throw new UnsupportedOperationException("snapshot is not supported");
+    }
+
+    /**
+     * 全部选中，{@link Mode#isSingleType()} == false 的时候才可以调用此方法
+     */
+    void selectAll();
+
+    /**
+     * 模拟点击该位置
+     *
+     * @param index
+     */
+    void performClick(int index);
+
+    /**
+     * 模拟点击该项
+     *
+     * @param item
+     */
+    void performClick(T item);
+
+    /**
+     * 设置该位置的选中状态
+     *
+     * @param index
+     * @param selected
+     */
+    void setSelected(int index, boolean selected);
+
+    /**
+     * 设置该项的选中状态
+     *
+     * @param item
+     * @param selected
+     */
+    void setSelected(T item, boolean selected);
+
+    /**
+     * 清空选中的项
+     */
+    void clearSelected();
+
+    /**
+     * 设置[fromIndex, toIndex)区间的选中状态，{@link Mode#isSingleType()} == false 的时候才可以调用此方法
+     * <br>
+     * 整个区间的变化只会触发一次批量回调，{@link Mode#MULTI_MUST_ONE_SELECTED}模式下会保留最后一个选中项
+     *
+     * @param fromIndex 开始位置(包含)
+     * @param toIndex   结束位置(不包含)
+     * @param selected
+     */
+    default void setSelected(int fromIndex, int toIndex, boolean selected)
+    {
+        throw new UnsupportedOperationException("range selection is not supported");
+    }
+
+    /**
+     * 反转[fromIndex, toIndex)区间的选中状态，{@link Mode#isSingleType()} == false 的时候才可以调用此方法
+     *
+     * @param fromIndex 开始位置(包含)
+     * @param toIndex   结束位置(不包含)
+     */
+    default void toggleRange(int fromIndex, int toIndex)
+    {
+        throw new UnsupportedOperationException("range selection is not supported");
+    }
+
+    /**
+     * 反转所有item的选中状态，{@link Mode#isSingleType()} == false 的时候才可以调用此方法
+     */
+    default void invertSelection()
+    {
+        throw new UnsupportedOperationException("invert selection is not supported");
+    }
+
+    /**
+     * 返回item的位置
+     *
+     * @param item
+     * @return
+     */
+    int indexOf(T item);
+
+    /**
+     * 设置key提取对象，设置之后可以通过key查找item，并且{@link #setItems(List)}的时候选中状态会保留到key相同的新item上
+     *
+     * @param extractor null-取消
+     */
+    default void setKeyExtractor(KeyExtractor<T, ?> extractor)
+    {
+        if (extractor != null)
+            throw new UnsupportedOperationException("key extractor is not supported");
+    }
+
+    /**
+     * 设置是否记录多选模式下的选中顺序，开启的时候已经选中的item按列表顺序作为初始顺序
+     *
+     * @param enabled
+     */
+    default void setSelectionOrderEnabled(boolean enabled)
+    {
+        if (enabled)
+            throw new UnsupportedOperationException("selection order is not supported");
+    }
+
+    /**
+     * 设置多选模式下最多可以选中的数量，已经选中的item不受影响，只限制之后的选中操作
+     * <br>
+     * {@link OverflowPolicy#EVICT_OLDEST}取消选中最早选中的item的时候不经过拦截对象
+     *
+     * @param max    小于等于0表示不限制
+     * @param policy 达到上限之后再选中的处理方式
+     */
+    default void setMaxSelected(int max, OverflowPolicy policy)
+    {
+        if (max > 0)
+            throw new UnsupportedOperationException("max selected is not supported");
+    }
+
+    /**
+     * 设置item是否可以被选中的判断对象，每个item在初始化的时候判断一次并缓存结果，{@link #updateItem(int, Object)}的时候重新判断
+     * <br>
+     * 不可选中的item直接拒绝选中，不会调用拦截对象，已经选中的item不受影响，可以正常取消选中
+     * <br>
+     * 设置了{@link ItemSource}的时候不缓存，每次都会调用判断对象
+     *
+     * @param filter null-取消
+     */
+    default void setSelectableFilter(SelectableFilter<T> filter)
+    {
+        if (filter != null)
+            throw new UnsupportedOperationException("selectable filter is not supported");
+    }
+
+    /**
+     * 返回key对应item的位置，需要先设置{@link KeyExtractor}
+     *
+     * @param key
+     * @return -1表示不存在
+     */
+    default int indexOfKey(Object key)
+    {
+        throw new UnsupportedOperationException("key extractor is not supported");
+    }
+
+    /**
+     * 设置key对应item的选中状态，需要先设置{@link KeyExtractor}
+     *
+     * @param key
+     * @param selected
+     */
+    default void setSelectedByKey(Object key, boolean selected)
+    {
+        throw new UnsupportedOperationException("key extractor is not supported");
+    }
+
+    /**
+     * 开始批量操作，在{@link #endBatch()}之前的状态变化不会立即回调，而是在{@link #endBatch()}的时候合并后一起回调，
+     * 批量操作期间先选中又取消选中(或者相反)的item不会回调
+     * <br>
+     * 可以嵌套调用，最外层的{@link #endBatch()}才会触发回调
+     */
+    default void beginBatch()
+    {
+
+    }
+
+    /**
+     * 结束批量操作，必须和{@link #beginBatch()}成对调用
+     */
+    default void endBatch()
+    {
+
+    }
+
+    /**
+     * 以批量操作的方式执行runnable，见{@link #beginBatch()}
+     *
+     * @param runnable
+     */
+    default void runInBatch(Runnable runnable)
+    {
+        if (runnable == null)
+            return;
+
+        beginBatch();
+        try
+        {
+            runnable.run();
+        } finally
+        {
+            endBatch();
+        }
+    }
+
+    /**
+     * 把选中状态编码保存，包括选择模式和选中的位置，结果可以直接放到Bundle中
+     *
+     * @return
+     */
+    default byte[] saveState()
+    {
+        throw new UnsupportedOperationException("save state is not supported");
+    }
+
+    /**
+     * 恢复{@link #saveState()}保存的选中状态，需要先恢复相同的数据
+     * <br>
+     * 恢复的是原有的选中状态，所以不经过拦截对象，不可选中的item会被跳过；
+     * 数据数量和保存时不同的说明数据已经变化，抛出{@link IllegalArgumentException}，不修改选中状态
+     *
+     * @param state
+     */
+    default void restoreState(byte[] state)
+    {
+        throw new UnsupportedOperationException("save state is not supported");
+    }
+
+    /**
+     * 设置撤销记录的上限，每次操作(包括一次批量操作)只记录最终发生了变化的位置，超过上限的时候丢弃最早的记录
+     * <br>
+     * 选择模式或者数据发生变化的时候清空撤销记录
+     *
+     * @param maxLevels 最多保存的操作次数，小于等于0表示关闭撤销并清空记录
+     * @param maxBytes  所有记录编码后最多占用的字节数，小于等于0表示不限制
+     */
+    default void setUndoLimit(int maxLevels, int maxBytes)
+    {
+        if (maxLevels > 0)
+            throw new UnsupportedOperationException("undo is not supported");
+    }
+
+    /**
+     * 是否有可以撤销的操作
+     *
+     * @return
+     */
+    default boolean canUndo()
+    {
+        return false;
+    }
+
+    /**
+     * 是否有可以重做的操作
+     *
+     * @return
+     */
+    default boolean canRedo()
+    {
+        return false;
+    }
+
+    /**
+     * 撤销最近一次操作，恢复的是原有的选中状态，所以不经过拦截对象和数量上限，不可选中的item会被跳过
+     * <br>
+     * 所有变化合并后一起回调，不能在批量操作中调用
+     *
+     * @return false-没有可以撤销的操作
+     */
+    default boolean undo()
+    {
+        return false;
+    }
+
+    /**
+     * 重做最近一次撤销的操作，见{@link #undo()}
+     *
+     * @return false-没有可以重做的操作
+     */
+    default boolean redo()
+    {
+        return false;
+    }
+
+    //---------- data start ----------
+
+    /**
+     * 设置数据
+     *
+     * @param items
+     */
+    void setItems(T... items);
+
+    /**
+     * 设置数据，原来选中的item不会触发{@link Callback}，只通过{@link SelectionChangeCallback}通知
+     * <br>
+     * 选中状态是按位置保存的，同一个item对象只能出现一次，重复的话抛出{@link IllegalArgumentException}，添加和更新数据的方法也一样
+     *
+     * @param items
+     */
+    void setItems(List<T> items);
+
+    /**
+     * 和当前数据对比后提交新的数据，适合刷新后大部分数据不变的场景
+     * <br>
+     * 按对象地址(设置了{@link KeyExtractor}的话按key)匹配新旧数据，匹配上的item保留选中状态，
+     * 只有新的item对象才会触发{@link OnItemInitCallback}，只有选中状态真正变化的item才会回调
+     *
+     * @param items
+     */
+    default void submitItems(List<T> items)
+    {
+        setItems(items);
+    }
+
+    /**
+     * 设置数据源，设置之后不会拷贝数据，也不会对数据源的item触发{@link OnItemInitCallback}，
+     * 只有用到的位置才会调用{@link ItemSource#get(int)}获取item
+     * <br>
+     * 数据源中同一个item对象只能出现一次；数据源只允许在末尾追加数据，其他的变化需要重新调用此方法；设置数据源之后不能调用add，remove，update相关的方法，
+     * 调用{@link #setItems(List)}会切换回普通的数据模式
+     *
+     * @param source
+     */
+    default void setItemSource(ItemSource<T> source)
+    {
+        if (source == null)
+            setItems((List<T>) null);
+        else
+            throw new UnsupportedOperationException("item source is not supported");
+    }
+
+    /**
+     * 在末尾添加数据
+     *
+     * @param item
+     */
+    void addItem(T item);
+
+    /**
+     * 在末尾添加数据
+     *
+     * @param items
+     */
+    void addItems(List<T> items);
+
+    /**
+     * 在index位置添加数据
+     *
+     * @param index
+     * @param item
+     */
+    void addItem(int index, T item);
+
+    /**
+     * 在index位置添加数据
+     *
+     * @param index
+     * @param items
+     */
+    void addItems(int index, List<T> items);
+
+    /**
+     * 移除数据
+     *
+     * @param item
+     */
+    void removeItem(T item);
+
+    /**
+     * 更新index位置的数据，新的item默认未选中，原来的item如果是选中状态会先取消选中并回调
+     *
+     * @param index
+     * @param item
+     */
+    void updateItem(int index, T item);
+
+    //---------- data end ----------
+
+    enum Mode
+    {
+        /**
+         * 单选，必须选中一项
+         */
+        SINGLE_MUST_ONE_SELECTED,
+        /**
+         * 单选，可以一项都没选中
+         */
+        SINGLE,
+        /**
+         * 多选，必须选中一项
+         */
+        MULTI_MUST_ONE_SELECTED,
+        /**
+         * 多选，可以一项都没选中
+         */
+        MULTI;
+
+        /**
+         * 是否是单选类型，{@link Mode#SINGLE}或者{@link Mode#SINGLE_MUST_ONE_SELECTED}
+         *
+         * @return
+         */
+        public boolean isSingleType()
+        {
+            return this == SINGLE || this == SINGLE_MUST_ONE_SELECTED;
+        }
+    }
+
+    /**
+     * 选中item的排列顺序
+     */
+    enum Order
+    {
+        /**
+         * 列表顺序
+         */
+        LIST,
+        /**
+         * 选中的先后顺序
+         */
+        SELECTION
+    }
+
+    /**
+     * 多选模式下达到数量上限之后再选中的处理方式
+     */
+    enum OverflowPolicy
+    {
+        /**
+         * 拒绝选中
+         */
+        REJECT,
+        /**
+         * 取消选中最早选中的item，再选中新的item
+         */
+        EVICT_OLDEST
+    }
+
+    enum CallbackDelivery
+    {
+        /**
+         * 在执行操作的线程中同步回调
+         */
+        SYNC,
+        /**
+         * 每次变化都投递到Executor中按顺序回调
+         */
+        POST,
+        /**
+         * 投递到Executor中，在回调执行之前发生的多次变化合并为一次，只回调最终发生了变化的item
+         */
+        CONFLATE
+    }
+
+    interface Callback<T>
+    {
+        /**
+         * 状态变化回调
+         *
+         * @param selected true-选中，false-未选中
+         * @param item
+         */
+        void onSelectedChanged(boolean selected, T item);
+    }
+
+    /**
+     * 批量变化回调，每次操作(例如{@link #selectAll()}，{@link #clearSelected()}，{@link #setItems(List)}，
+     * {@link #removeItem(Object)}，或者一次批量操作)只回调一次
+     *
+     * @param <T>
+     */
+    interface SelectionChangeCallback<T>
+    {
+        /**
+         * 选中状态变化回调，列表只在回调期间有效，并且不能修改，需要保存的话拷贝一份
+         *
+         * @param listSelected 本次操作新选中的item
+         * @param listNormal   本次操作取消选中的item
+         */
+        void onSelectionChanged(List<T> listSelected, List<T> listNormal);
+    }
+
+    /**
+     * 数据源，用于管理不方便全部加载到内存的数据(例如分页加载或者数据库中的数据)
+     *
+     * @param <T>
+     */
+    interface ItemSource<T>
+    {
+        /**
+         * 返回数据的数量
+         *
+         * @return
+         */
+        int size();
+
+        /**
+         * 返回index位置的item
+         *
+         * @param index
+         * @return
+         */
+        T get(int index);
+
+        /**
+         * 返回item的位置，数据源应该提供比遍历更快的实现，例如item自己记录位置
+         *
+         * @param item
+         * @return -1表示不存在
+         */
+        int indexOf(T item);
+    }
+
+    /**
+     * key提取，同一个item的key不能变化，key需要正确的实现equals和hashCode
+     *
+     * @param <T>
+     * @param <K>
+     */
+    interface KeyExtractor<T, K>
+    {
+        K getKey(T item);
+    }
+
+    /**
+     * 判断item是否可以被选中，结果需要是固定的(例如item被禁用，没有库存)，变化之后需要调用{@link #updateItem(int, Object)}
+     *
+     * @param <T>
+     */
+    interface SelectableFilter<T>
+    {
+        boolean isSelectable(T item);
+    }
+
+    /**
+     * 数据变更的时候会触发此回调来初始化item
+     *
+     * @param <T>
+     */
+    interface OnItemInitCallback<T>
+    {
+        void onInitItem(T item);
+    }
+
+    /**
+     * 状态拦截
+     *
+     * @param <T>
+     */
+    interface StateInterceptor<T>
+    {
+        /**
+         * 拦截
+         *
+         * @param item
+         * @param selected
+         * @return true-拦截掉，
+         */
+        boolean interceptItem(T item, boolean selected);
+    }
+
+    /**
+     * 批量状态拦截，{@link #selectAll()}，{@link #setSelected(int, int, boolean)}，{@link #toggleRange(int, int)}，
+     * {@link #invertSelection()}会一次性把所有要变化的item交给此对象，其他操作还是按单个item调用{@link #interceptItem(Object, boolean)}
+     * <br>
+     * 批量拦截的时候item的状态还没有变化，被前面的拦截对象拦截掉的item不会再交给后面的拦截对象
+     *
+     * @param <T>
+     */
+    interface BulkStateInterceptor<T> extends StateInterceptor<T>
+    {
+        /**
+         * 批量拦截
+         *
+         * @param items    要变化的item，只在本次调用中有效，不要保存
+         * @param selected
+         * @return 要拦截的item在items中的位置，null表示都不拦截
+         */
+        BitSet interceptItems(List<T> items, boolean selected);
+    }
+
+    /**
+     * 遍历选中的item，{@link #forEachSelected(SelectedVisitor)}
+     *
+     * @param <T>
+     */
+    interface SelectedVisitor<T>
+    {
+        /**
+         * @param index 选中item的位置
+         * @param item
+         */
+        void visit(int index, T item);
+    }
+
+    interface SingleSelectCallback<T>
+    {
+        /**
+         * 单选模式下，选中项回调
+         * <br>
+         * {@link Mode#SINGLE}或者{@link Mode#SINGLE_MUST_ONE_SELECTED}
+         *
+         * @param item
+         */
+        void onSelectedChanged(T item);
+    }
+
+    /**
+     * 用{@link StateInterceptor}替代
+     *
+     * @param <T>
+     */
+    @Deprecated
+    interface SelectedInterceptor<T>
+    {
+        /**
+         * 拦截
+         *
+         * @param item
+         * @param selected
+         * @return true-拦截掉，
+         */
+        boolean interceptItem(T item, boolean selected);
+    }
+}
@@ -0,0 +1,95 @@
+package com.sd.lib.selectmanager;
+
+/**
+ * 选择管理器的统计接口，通过{@link FSelectManager#setMetrics(SelectMetrics)}设置
+ * <br>
+ * {@link #onCallback(int, long)}在回调执行的线程中触发，设置了异步回调的时候需要保证线程安全
+ */
+public interface SelectMetrics
+{
+    /**
+     * 一次操作结束，嵌套的操作(例如{@link SelectManager#setMode(SelectManager.Mode)}内部的清空选中)只统计最外层的操作
+     *
+     * @param operation     操作类型
+     * @param callbackCount 本次操作派发的回调次数，即每个变化通知的回调对象数量之和
+     * @param durationNanos 操作耗时，包括同步回调的耗时
+     */
+    void onOperation(Operation operation, int callbackCount, long durationNanos);
+
+    /**
+     * 一次拦截检查
+     *
+     * @param intercepted true-被拦截
+     */
+    void onIntercept(boolean intercepted);
+
+    /**
+     * 一次变化通知执行完毕
+     *
+     * @param callbackCount 收到通知的回调对象数量
+     * @param durationNanos 所有回调对象的耗时
+     */
+    void onCallback(int callbackCount, long durationNanos);
+
+    enum Operation
+    {
+        /**
+         * {@link SelectManager#performClick(int)}，{@link SelectManager#performClick(Object)}
+         */
+        CLICK,
+        /**
+         * {@link SelectManager#setSelected(int, boolean)}，{@link SelectManager#setSelected(Object, boolean)}，
+         * {@link SelectManager#setSelectedByKey(Object, boolean)}
+         */
+        SET_SELECTED,
+        /**
+         * {@link SelectManager#selectAll()}
+         */
+        SELECT_ALL,
+        /**
+         * {@link SelectManager#clearSelected()}
+         */
+        CLEAR_SELECTED,
+        /**
+         * {@link SelectManager#setSelected(int, int, boolean)}，{@link SelectManager#toggleRange(int, int)}，
+         * {@link SelectManager#invertSelection()}
+         */
+        SET_RANGE,
+        /**
+         * {@link SelectManager#setMode(SelectManager.Mode)}
+         */
+        SET_MODE,
+        /**
+         * {@link SelectManager#restoreState(byte[])}
+         */
+        RESTORE_STATE,
+        /**
+         * {@link SelectManager#undo()}
+         */
+        UNDO,
+        /**
+         * {@link SelectManager#redo()}
+         */
+        REDO,
+        /**
+         * {@link SelectManager#setItems(java.util.List)}，{@link SelectManager#setItemSource(SelectManager.ItemSource)}
+         */
+        SET_ITEMS,
+        /**
+         * {@link SelectManager#submitItems(java.util.List)}
+         */
+        SUBMIT_ITEMS,
+        /**
+         * {@link SelectManager#addItem(Object)}等添加数据的方法
+         */
+        ADD_ITEMS,
+        /**
+         * {@link SelectManager#removeItem(Object)}
+         */
+        REMOVE_ITEM,
+        /**
+         * {@link SelectManager#updateItem(int, Object)}
+         */
+        UPDATE_ITEM
+    }
+}
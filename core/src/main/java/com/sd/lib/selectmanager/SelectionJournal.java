@@ -0,0 +1,166 @@
+package com.sd.lib.selectmanager;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * 选中状态变化的撤销记录，每次操作只记录发生变化的位置，按区间编码保存
+ * <br>
+ * 记录的数量和编码后占用的字节数超过上限的时候，丢弃最早的记录
+ */
+final class SelectionJournal
+{
+    private final Deque<Entry> mUndo = new ArrayDeque<>();
+    private final Deque<Entry> mRedo = new ArrayDeque<>();
+
+    private int mMaxLevels;
+    private int mMaxBytes;
+    /** 所有记录编码后占用的字节数 */
+    private int mBytes;
+
+    SelectionJournal(int maxLevels, int maxBytes)
+    {
+        setLimit(maxLevels, maxBytes);
+    }
+
+    public void setLimit(int maxLevels, int maxBytes)
+    {
+        mMaxLevels = maxLevels;
+        mMaxBytes = maxBytes;
+        trim();
+    }
+
+    /**
+     * 添加一次操作的记录，会清空可以重做的记录
+     *
+     * @param entry
+     */
+    public void push(Entry entry)
+    {
+        for (Entry item : mRedo)
+        {
+            mBytes -= item.data.length;
+        }
+        mRedo.clear();
+
+        mUndo.push(entry);
+        mBytes += entry.data.length;
+        trim();
+    }
+
+    /**
+     * 取出最近一次可以撤销的记录，并移动到重做记录中
+     *
+     * @return null表示没有
+     */
+    public Entry undo()
+    {
+        final Entry entry = mUndo.poll();
+        if (entry != null)
+            mRedo.push(entry);
+        return entry;
+    }
+
+    /**
+     * 取出最近一次可以重做的记录，并移动到撤销记录中
+     *
+     * @return null表示没有
+     */
+    public Entry redo()
+    {
+        final Entry entry = mRedo.poll();
+        if (entry != null)
+            mUndo.push(entry);
+        return entry;
+    }
+
+    public boolean canUndo()
+    {
+        return !mUndo.isEmpty();
+    }
+
+    public boolean canRedo()
+    {
+        return !mRedo.isEmpty();
+    }
+
+    public void clear()
+    {
+        mUndo.clear();
+        mRedo.clear();
+        mBytes = 0;
+    }
+
+    private void trim()
+    {
+        while (!mUndo.isEmpty() && (mUndo.size() + mRedo.size() > mMaxLevels || mBytes > mMaxBytes))
+        {
+            mBytes -= mUndo.removeLast().data.length;
+        }
+        while (!mRedo.isEmpty() && (mRedo.size() > mMaxLevels || mBytes > mMaxBytes))
+        {
+            mBytes -= mRedo.removeLast().data.length;
+        }
+    }
+
+    /**
+     * 单选模式下的记录
+     *
+     * @param oldIndex 变化前选中的位置，-1表示没有选中
+     * @param newIndex 变化后选中的位置，-1表示没有选中
+     * @return
+     */
+    public static Entry single(int oldIndex, int newIndex)
+    {
+        final SelectionStateCodec.Writer writer = new SelectionStateCodec.Writer();
+        writer.write(oldIndex + 1);
+        writer.write(newIndex + 1);
+        return new Entry(true, writer.toByteArray());
+    }
+
+    /**
+     * 多选模式下的记录
+     *
+     * @param selected      变为选中的位置，升序
+     * @param selectedCount
+     * @param normal        变为未选中的位置，升序
+     * @param normalCount
+     * @return
+     */
+    public static Entry multi(int[] selected, int selectedCount, int[] normal, int normalCount)
+    {
+        final SelectionStateCodec.Writer writer = new SelectionStateCodec.Writer();
+        SelectionStateCodec.writeRuns(writer, selected, selectedCount);
+        SelectionStateCodec.writeRuns(writer, normal, normalCount);
+        return new Entry(false, writer.toByteArray());
+    }
+
+    static final class Entry
+    {
+        final boolean single;
+        final byte[] data;
+
+        Entry(boolean single, byte[] data)
+        {
+            this.single = single;
+            this.data = data;
+        }
+
+        /**
+         * 单选模式下返回[变化前选中的位置, 变化后选中的位置]，
+         * 多选模式下返回[变为选中的区间, 变为未选中的区间]，区间依次是[start, end)
+         *
+         * @return
+         */
+        int[][] decode()
+        {
+            final SelectionStateCodec.Reader reader = new SelectionStateCodec.Reader(data);
+            if (single)
+                return new int[][]{{reader.read() - 1}, {reader.read() - 1}};
+
+            final int[] selected = SelectionStateCodec.readRuns(reader, data.length);
+            final int[] normal = SelectionStateCodec.readRuns(reader, data.length);
+            return new int[][]{selected, normal};
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package com.sd.lib.selectmanager;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 按选中的先后顺序保存多选模式下选中的item，添加，移除，查找最早选中的item都是O(1)
+ * <br>
+ * 每个item按添加顺序分配一个序号，用树状数组统计每个序号是否还存在，查询item排在第几位是O(log n)，
+ * 序号用完的时候重新编号
+ *
+ * @param <T>
+ */
+final class SelectionOrder<T>
+{
+    private static final int MIN_CAPACITY = 16;
+
+    private final Map<T, Node<T>> mMapNode = new IdentityHashMap<>();
+    private Node<T> mHead;
+    private Node<T> mTail;
+
+    /** 树状数组，下标从1开始，mTree[i]统计(i - lowbit(i), i]区间内还存在的序号数量 */
+    private int[] mTree = new int[MIN_CAPACITY + 1];
+    private int mNextSequence;
+
+    /**
+     * 添加到末尾，已经存在的话不处理
+     *
+     * @param item
+     * @return true-添加成功
+     */
+    public boolean add(T item)
+    {
+        if (mMapNode.containsKey(item))
+            return false;
+
+        if (mNextSequence >= mTree.length - 1)
+            renumber();
+
+        final Node<T> node = new Node<>(item, mNextSequence++);
+        mMapNode.put(item, node);
+        update(node.sequence, 1);
+
+        if (mTail == null)
+        {
+            mHead = node;
+        } else
+        {
+            mTail.next = node;
+            node.prev = mTail;
+        }
+        mTail = node;
+        return true;
+    }
+
+    /**
+     * 移除
+     *
+     * @param item
+     * @return true-移除成功
+     */
+    public boolean remove(T item)
+    {
+        final Node<T> node = mMapNode.remove(item);
+        if (node == null)
+            return false;
+
+        update(node.sequence, -1);
+
+        if (node.prev == null)
+            mHead = node.next;
+        else
+            node.prev.next = node.next;
+
+        if (node.next == null)
+            mTail = node.prev;
+        else
+            node.next.prev = node.prev;
+        return true;
+    }
+
+    /**
+     * 用item替换old，保留old的顺序
+     *
+     * @param old
+     * @param item
+     */
+    public void replace(T old, T item)
+    {
+        final Node<T> node = mMapNode.get(old);
+        if (node == null)
+            return;
+
+        if (mMapNode.containsKey(item))
+        {
+            // item已经存在，old的位置直接移除
+            remove(old);
+            return;
+        }
+
+        mMapNode.remove(old);
+        node.item = item;
+        mMapNode.put(item, node);
+    }
+
+    /**
+     * 返回item在选中顺序中的位置
+     *
+     * @param item
+     * @return -1表示不存在
+     */
+    public int rankOf(T item)
+    {
+        final Node<T> node = mMapNode.get(item);
+        if (node == null)
+            return -1;
+
+        // 序号小于node.sequence并且还存在的数量
+        int rank = 0;
+        for (int i = node.sequence; i > 0; i -= i & -i)
+        {
+            rank += mTree[i];
+        }
+        return rank;
+    }
+
+    /**
+     * 返回最早选中的item
+     *
+     * @return null表示没有
+     */
+    public T oldest()
+    {
+        return mHead == null ? null : mHead.item;
+    }
+
+    /**
+     * 按选中顺序返回所有item
+     *
+     * @return
+     */
+    public List<T> toList()
+    {
+        final List<T> list = new ArrayList<>(mMapNode.size());
+        for (Node<T> node = mHead; node != null; node = node.next)
+        {
+            list.add(node.item);
+        }
+        return list;
+    }
+
+    /**
+     * 返回最早选中的节点，通过{@link Node#next}按选中顺序遍历
+     *
+     * @return null表示没有
+     */
+    Node<T> first()
+    {
+        return mHead;
+    }
+
+    public int size()
+    {
+        return mMapNode.size();
+    }
+
+    public void clear()
+    {
+        mMapNode.clear();
+        mHead = null;
+        mTail = null;
+        mTree = new int[MIN_CAPACITY + 1];
+        mNextSequence = 0;
+    }
+
+    private void update(int sequence, int delta)
+    {
+        for (int i = sequence + 1; i < mTree.length; i += i & -i)
+        {
+            mTree[i] += delta;
+        }
+    }
+
+    /**
+     * 按当前顺序从0开始重新编号，容量不够的时候扩容，均摊O(1)
+     */
+    private void renumber()
+    {
+        final int size = mMapNode.size();
+        int capacity = mTree.length - 1;
+        while (size * 2 > capacity)
+        {
+            capacity *= 2;
+        }
+
+        final int[] tree = new int[capacity + 1];
+        int sequence = 0;
+        for (Node<T> node = mHead; node != null; node = node.next)
+        {
+            node.sequence = sequence;
+            tree[sequence + 1] = 1;
+            sequence++;
+        }
+
+        // O(n)建树
+        for (int i = 1; i <= capacity; i++)
+        {
+            final int parent = i + (i & -i);
+            if (parent <= capacity)
+                tree[parent] += tree[i];
+        }
+
+        mTree = tree;
+        mNextSequence = sequence;
+    }
+
+    static final class Node<T>
+    {
+        T item;
+        int sequence;
+        Node<T> prev;
+        Node<T> next;
+
+        Node(T item, int sequence)
+        {
+            this.item = item;
+            this.sequence = sequence;
+        }
+    }
+}
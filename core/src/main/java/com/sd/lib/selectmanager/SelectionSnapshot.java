@@ -0,0 +1,396 @@
+package com.sd.lib.selectmanager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * 选中状态的快照，创建之后不会再变化，可以在任意线程中读取
+ * <br>
+ * 快照和选择管理器共享数据，选择管理器在下一次修改的时候才会拷贝一份(写时复制)，所以创建快照的开销是O(1)
+ * <br>
+ * 设置了{@link SelectManager.ItemSource}的时候数据源会继续变化，创建快照的时候拷贝一份选中的item(O(选中数量))，
+ * 选中状态和遍历不受之后的修改影响，只有{@link #indexOf(Object)}是从数据源中查找的当前位置
+ *
+ * @param <T>
+ */
+public final class SelectionSnapshot<T> implements Iterable<T>
+{
+    private final SelectManager.Mode mMode;
+    private final T mCurrentItem;
+    /** 多选模式下选中的位置，单选模式下为null */
+    private final PositionBitmap mSelected;
+    private final Items<T> mItems;
+
+    SelectionSnapshot(SelectManager.Mode mode, T currentItem, PositionBitmap selected, Items<T> items)
+    {
+        mMode = mode;
+        mCurrentItem = currentItem;
+        mSelected = selected;
+        mItems = items;
+    }
+
+    /**
+     * 返回快照时的选择模式
+     *
+     * @return
+     */
+    public SelectManager.Mode getMode()
+    {
+        return mMode;
+    }
+
+    /**
+     * 返回选中的数量
+     *
+     * @return
+     */
+    public int size()
+    {
+        if (mSelected == null)
+            return mCurrentItem == null ? 0 : 1;
+        else
+            return mSelected.cardinality();
+    }
+
+    public boolean isEmpty()
+    {
+        return size() <= 0;
+    }
+
+    /**
+     * item是否被选中
+     *
+     * @param item
+     * @return
+     */
+    public boolean contains(T item)
+    {
+        if (item == null)
+            return false;
+
+        if (mSelected == null)
+            return item == mCurrentItem;
+        else
+            return mSelected.contains(mItems.find(item));
+    }
+
+    /**
+     * 返回快照时item的位置，设置了数据源的时候返回数据源中的当前位置
+     *
+     * @param item
+     * @return -1表示不存在
+     */
+    public int indexOf(T item)
+    {
+        return mItems.indexOf(item);
+    }
+
+    /**
+     * 返回快照时key对应item的位置，key索引在第一次查找的时候创建，设置了数据源的时候不能调用，包内使用
+     *
+     * @param key
+     * @param extractor
+     * @return -1表示不存在
+     */
+    int indexOfKey(Object key, SelectManager.KeyExtractor<T, ?> extractor)
+    {
+        return mItems.indexOfKey(key, extractor);
+    }
+
+    /**
+     * 多选模式下两个快照的选中状态和数据是否是同一份，包内使用
+     *
+     * @param other
+     * @return
+     */
+    boolean sharesSelection(SelectionSnapshot<T> other)
+    {
+        return other != null
+                && mSelected != null
+                && mMode == other.mMode
+                && mSelected == other.mSelected
+                && mItems == other.mItems;
+    }
+
+    /**
+     * 返回当前选中的item，{@link SelectManager.Mode#isSingleType()} == true 的时候才可以调用此方法
+     *
+     * @return
+     */
+    public T getSelectedItem()
+    {
+        if (mSelected == null)
+            return mCurrentItem;
+        else
+            throw new UnsupportedOperationException("this method is not supported for multi mode");
+    }
+
+    /**
+     * 按列表顺序返回选中的位置
+     *
+     * @return
+     */
+    public int[] getSelectedIndexArray()
+    {
+        final int[] array = new int[size()];
+        final int count = getSelectedIndexes(array);
+        return count == array.length ? array : Arrays.copyOf(array, count);
+    }
+
+    /**
+     * 按列表顺序把选中的位置拷贝到out中，最多拷贝out.length个
+     *
+     * @param out
+     * @return 拷贝的数量
+     */
+    public int getSelectedIndexes(int[] out)
+    {
+        if (out == null)
+            throw new NullPointerException("out is null");
+
+        if (mSelected != null)
+            return mSelected.copyTo(out);
+
+        final int index = mItems.find(mCurrentItem);
+        if (index < 0 || out.length <= 0)
+            return 0;
+
+        out[0] = index;
+        return 1;
+    }
+
+    /**
+     * 按列表顺序返回选中的item
+     *
+     * @return
+     */
+    public List<T> toList()
+    {
+        final List<T> list = new ArrayList<>(size());
+        for (T item : this)
+        {
+            list.add(item);
+        }
+        return list;
+    }
+
+    /**
+     * 按列表顺序遍历选中的item和位置，遍历过程不创建对象
+     *
+     * @param visitor
+     */
+    public void forEachSelected(SelectManager.SelectedVisitor<T> visitor)
+    {
+        if (visitor == null)
+            throw new NullPointerException("visitor is null");
+
+        if (mSelected == null)
+        {
+            if (mCurrentItem != null)
+                visitor.visit(mItems.find(mCurrentItem), mCurrentItem);
+            return;
+        }
+
+        for (int index = mSelected.nextSetBit(0); index >= 0; index = mSelected.nextSetBit(index + 1))
+        {
+            visitor.visit(index, mItems.itemAt(index));
+        }
+    }
+
+    /**
+     * 按列表顺序遍历选中的item
+     *
+     * @return
+     */
+    @Override
+    public Iterator<T> iterator()
+    {
+        return new Iterator<T>()
+        {
+            private int mNext = mSelected == null ? (mCurrentItem == null ? -1 : 0) : mSelected.nextSetBit(0);
+
+            @Override
+            public boolean hasNext()
+            {
+                return mNext >= 0;
+            }
+
+            @Override
+            public T next()
+            {
+                if (mNext < 0)
+                    throw new NoSuchElementException();
+
+                if (mSelected == null)
+                {
+                    mNext = -1;
+                    return mCurrentItem;
+                }
+
+                final T item = mItems.itemAt(mNext);
+                mNext = mSelected.nextSetBit(mNext + 1);
+                return item;
+            }
+
+            @Override
+            public void remove()
+            {
+                throw new UnsupportedOperationException("snapshot is read only");
+            }
+        };
+    }
+
+    /**
+     * 快照中的数据，多个快照在数据没有变化的时候共享同一个对象，位置索引在第一次查找的时候创建
+     * <br>
+     * 设置了数据源的时候只保存快照时选中的位置和item，每个快照单独创建
+     *
+     * @param <T>
+     */
+    static final class Items<T>
+    {
+        private final List<T> mList;
+        private final SelectManager.ItemSource<T> mSource;
+        /** 设置了数据源的时候快照时选中的位置，升序 */
+        private final int[] mPositions;
+        /** 设置了数据源的时候和{@link #mPositions}对应的item */
+        private final Object[] mCaptured;
+        private volatile Map<T, Integer> mIndex;
+        private volatile KeyTable mKeyTable;
+
+        /**
+         * @param list 不会再修改的数据
+         */
+        Items(List<T> list)
+        {
+            mList = list;
+            mSource = null;
+            mPositions = null;
+            mCaptured = null;
+        }
+
+        /**
+         * @param source    数据源
+         * @param positions 选中的位置，升序
+         */
+        Items(SelectManager.ItemSource<T> source, int[] positions)
+        {
+            mList = null;
+            mSource = source;
+            mPositions = positions;
+            mCaptured = new Object[positions.length];
+            for (int i = 0; i < positions.length; i++)
+            {
+                mCaptured[i] = source.get(positions[i]);
+            }
+        }
+
+        /**
+         * 返回快照时item的位置，设置了数据源的时候只查找快照时选中的item
+         */
+        int find(T item)
+        {
+            if (item == null)
+                return -1;
+
+            final Integer index = getIndex().get(item);
+            return index == null ? -1 : index;
+        }
+
+        int indexOf(T item)
+        {
+            if (item == null)
+                return -1;
+
+            if (mSource != null)
+                return mSource.indexOf(item);
+
+            return find(item);
+        }
+
+        int indexOfKey(Object key, SelectManager.KeyExtractor<T, ?> extractor)
+        {
+            if (key == null)
+                return -1;
+
+            if (mSource != null)
+                throw new IllegalStateException("key index is not supported for item source");
+
+            KeyTable table = mKeyTable;
+            if (table == null || table.extractor != extractor)
+            {
+                // 和位置索引一样，多个线程同时创建的结果是一样的，不需要加锁
+                final Map<Object, Integer> map = new HashMap<>(mList.size() * 4 / 3 + 1);
+                for (int i = mList.size() - 1; i >= 0; i--)
+                {
+                    final Object itemKey = extractor.getKey(mList.get(i));
+                    if (itemKey != null)
+                        map.put(itemKey, i);
+                }
+                table = new KeyTable(extractor, map);
+                mKeyTable = table;
+            }
+
+            final Integer index = table.map.get(key);
+            return index == null ? -1 : index;
+        }
+
+        @SuppressWarnings("unchecked")
+        T itemAt(int index)
+        {
+            if (mSource == null)
+                return mList.get(index);
+
+            final int i = Arrays.binarySearch(mPositions, index);
+            return i >= 0 ? (T) mCaptured[i] : mSource.get(index);
+        }
+
+        @SuppressWarnings("unchecked")
+        private Map<T, Integer> getIndex()
+        {
+            Map<T, Integer> map = mIndex;
+            if (map == null)
+            {
+                // 多个线程同时创建的结果是一样的，不需要加锁
+                if (mSource != null)
+                {
+                    map = new IdentityHashMap<>(mCaptured.length);
+                    for (int i = mCaptured.length - 1; i >= 0; i--)
+                    {
+                        map.put((T) mCaptured[i], mPositions[i]);
+                    }
+                } else
+                {
+                    map = new IdentityHashMap<>(mList.size());
+                    for (int i = mList.size() - 1; i >= 0; i--)
+                    {
+                        map.put(mList.get(i), i);
+                    }
+                }
+                mIndex = map;
+            }
+            return map;
+        }
+
+        /**
+         * key索引，同一个key出现多次的时候保存最小的位置
+         */
+        private static final class KeyTable
+        {
+            final SelectManager.KeyExtractor<?, ?> extractor;
+            final Map<Object, Integer> map;
+
+            KeyTable(SelectManager.KeyExtractor<?, ?> extractor, Map<Object, Integer> map)
+            {
+                this.extractor = extractor;
+                this.map = map;
+            }
+        }
+    }
+}
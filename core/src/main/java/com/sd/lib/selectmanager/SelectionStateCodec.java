@@ -0,0 +1,336 @@
+package com.sd.lib.selectmanager;
+
+import java.util.Arrays;
+
+/**
+ * 选中状态的编码
+ * <br>
+ * 格式：版本，模式，数据数量，然后单选模式下是选中的位置+1(0表示没有选中)，
+ * 多选模式下是格式标记，再按区间或者位图保存，两种格式取编码结果较小的一种：
+ * <br>
+ * 区间：区间数量，然后每个区间依次是(和上一个区间结尾的间隔 << 1 | 长度是否为1)，长度不为1的时候再写长度
+ * <br>
+ * 位图：字节数，然后每个字节按低位在前保存8个位置
+ * <br>
+ * 所有整数都是varint编码
+ */
+final class SelectionStateCodec
+{
+    private static final int VERSION = 1;
+
+    private static final int FORMAT_RUNS = 0;
+    private static final int FORMAT_BITS = 1;
+
+    private SelectionStateCodec()
+    {
+    }
+
+    public static byte[] encode(SelectManager.Mode mode, int itemCount, int currentIndex, PositionBitmap selected)
+    {
+        final Writer writer = new Writer();
+        writer.write(VERSION);
+        writer.write(mode.ordinal());
+        writer.write(itemCount);
+
+        if (mode.isSingleType())
+        {
+            writer.write(currentIndex + 1);
+            return writer.toByteArray();
+        }
+
+        // 先计算两种格式的大小
+        int runCount = 0;
+        long runBytes = 0;
+        int lastEnd = 0;
+        for (int start = selected.nextSetBit(0); start >= 0; )
+        {
+            final int end = selected.nextClearBit(start);
+            runCount++;
+            runBytes += runSize(start - lastEnd, end - start);
+            lastEnd = end;
+            start = selected.nextSetBit(end);
+        }
+        runBytes += varintSize(runCount);
+
+        final int bitBytes = (lastEnd + 7) >>> 3;
+        if (runBytes <= bitBytes + varintSize(bitBytes))
+        {
+            writer.write(FORMAT_RUNS);
+            writer.write(runCount);
+
+            int prevEnd = 0;
+            for (int start = selected.nextSetBit(0); start >= 0; )
+            {
+                final int end = selected.nextClearBit(start);
+                writeRun(writer, start - prevEnd, end - start);
+                prevEnd = end;
+                start = selected.nextSetBit(end);
+            }
+        } else
+        {
+            writer.write(FORMAT_BITS);
+            writer.write(bitBytes);
+
+            final byte[] bits = new byte[bitBytes];
+            for (int i = selected.nextSetBit(0); i >= 0; i = selected.nextSetBit(i + 1))
+            {
+                bits[i >>> 3] |= 1 << (i & 7);
+            }
+            writer.writeBytes(bits);
+        }
+        return writer.toByteArray();
+    }
+
+    /**
+     * 把升序的位置按区间写入，格式和多选模式下的区间格式相同
+     *
+     * @param writer
+     * @param indexes 升序的位置
+     * @param count   indexes中有效的数量
+     */
+    static void writeRuns(Writer writer, int[] indexes, int count)
+    {
+        int runCount = 0;
+        for (int i = 0; i < count; i++)
+        {
+            if (i == 0 || indexes[i] != indexes[i - 1] + 1)
+                runCount++;
+        }
+        writer.write(runCount);
+
+        int prevEnd = 0;
+        for (int i = 0; i < count; )
+        {
+            final int start = indexes[i];
+            int end = start + 1;
+            i++;
+            while (i < count && indexes[i] == end)
+            {
+                end++;
+                i++;
+            }
+            writeRun(writer, start - prevEnd, end - start);
+            prevEnd = end;
+        }
+    }
+
+    private static void writeRun(Writer writer, int gap, int length)
+    {
+        if (length == 1)
+        {
+            writer.write(gap << 1 | 1);
+        } else
+        {
+            writer.write(gap << 1);
+            writer.write(length);
+        }
+    }
+
+    private static int runSize(int gap, int length)
+    {
+        if (length == 1)
+            return varintSize((long) gap << 1 | 1);
+        else
+            return varintSize((long) gap << 1) + varintSize(length);
+    }
+
+    private static int varintSize(long value)
+    {
+        int size = 1;
+        while ((value & ~0x7FL) != 0)
+        {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+    public static State decode(byte[] data)
+    {
+        if (data == null)
+            throw new NullPointerException("state is null");
+
+        final Reader reader = new Reader(data);
+        if (reader.read() != VERSION)
+            throw new IllegalArgumentException("unsupported state version");
+
+        final SelectManager.Mode[] modes = SelectManager.Mode.values();
+        final int modeIndex = reader.read();
+        if (modeIndex >= modes.length)
+            throw new IllegalArgumentException("state is invalid");
+
+        final State state = new State();
+        state.mode = modes[modeIndex];
+        state.itemCount = reader.read();
+
+        if (state.mode.isSingleType())
+        {
+            state.currentIndex = reader.read() - 1;
+            state.runs = new int[0];
+        } else
+        {
+            final int format = reader.read();
+            if (format == FORMAT_RUNS)
+                state.runs = readRuns(reader, data.length);
+            else if (format == FORMAT_BITS)
+                state.runs = readBits(reader);
+            else
+                throw new IllegalArgumentException("state is invalid");
+
+            state.currentIndex = -1;
+        }
+
+        if (!reader.isEnd())
+            throw new IllegalArgumentException("state is invalid");
+        return state;
+    }
+
+    static int[] readRuns(Reader reader, int dataLength)
+    {
+        final int runCount = reader.read();
+        // 每个区间至少占一个字节，防止错误的数据申请过大的数组
+        if (runCount > dataLength)
+            throw new IllegalArgumentException("state is invalid");
+
+        final int[] runs = new int[runCount * 2];
+        long prevEnd = 0;
+        for (int i = 0; i < runCount; i++)
+        {
+            final int value = reader.read();
+            final long start = prevEnd + (value >>> 1);
+            final long end = start + ((value & 1) != 0 ? 1 : reader.read());
+            if (end > Integer.MAX_VALUE)
+                throw new IllegalArgumentException("state is invalid");
+
+            runs[i * 2] = (int) start;
+            runs[i * 2 + 1] = (int) end;
+            prevEnd = end;
+        }
+        return runs;
+    }
+
+    private static int[] readBits(Reader reader)
+    {
+        final byte[] bits = reader.readBytes(reader.read());
+
+        // 把位图转换成区间
+        int[] runs = new int[16];
+        int size = 0;
+        int start = -1;
+        final int total = bits.length << 3;
+        for (int i = 0; i <= total; i++)
+        {
+            final boolean set = i < total && (bits[i >>> 3] & (1 << (i & 7))) != 0;
+            if (set && start < 0)
+            {
+                start = i;
+            } else if (!set && start >= 0)
+            {
+                if (size + 2 > runs.length)
+                    runs = Arrays.copyOf(runs, runs.length * 2);
+                runs[size++] = start;
+                runs[size++] = i;
+                start = -1;
+            }
+        }
+        return Arrays.copyOf(runs, size);
+    }
+
+    static final class State
+    {
+        SelectManager.Mode mode;
+        /** 保存时的数据数量 */
+        int itemCount;
+        /** 单选模式下选中的位置，-1表示没有选中 */
+        int currentIndex;
+        /** 多选模式下选中的区间，依次是[start, end) */
+        int[] runs;
+    }
+
+    static final class Writer
+    {
+        private byte[] mBuffer = new byte[16];
+        private int mSize;
+
+        void write(int value)
+        {
+            if (value < 0)
+                throw new IllegalArgumentException("value < 0");
+
+            while (true)
+            {
+                if (mSize == mBuffer.length)
+                    mBuffer = Arrays.copyOf(mBuffer, mSize * 2);
+
+                if ((value & ~0x7F) == 0)
+                {
+                    mBuffer[mSize++] = (byte) value;
+                    return;
+                }
+
+                mBuffer[mSize++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+        }
+
+        void writeBytes(byte[] bytes)
+        {
+            if (mSize + bytes.length > mBuffer.length)
+                mBuffer = Arrays.copyOf(mBuffer, Math.max(mBuffer.length * 2, mSize + bytes.length));
+
+            System.arraycopy(bytes, 0, mBuffer, mSize, bytes.length);
+            mSize += bytes.length;
+        }
+
+        byte[] toByteArray()
+        {
+            return Arrays.copyOf(mBuffer, mSize);
+        }
+    }
+
+    static final class Reader
+    {
+        private final byte[] mData;
+        private int mPosition;
+
+        Reader(byte[] data)
+        {
+            mData = data;
+        }
+
+        int read()
+        {
+            int value = 0;
+            for (int shift = 0; shift < 32; shift += 7)
+            {
+                if (mPosition >= mData.length)
+                    throw new IllegalArgumentException("state is invalid");
+
+                final byte b = mData[mPosition++];
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0)
+                {
+                    if (value < 0)
+                        throw new IllegalArgumentException("state is invalid");
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("state is invalid");
+        }
+
+        byte[] readBytes(int length)
+        {
+            if (length > mData.length - mPosition)
+                throw new IllegalArgumentException("state is invalid");
+
+            final byte[] bytes = Arrays.copyOfRange(mData, mPosition, mPosition + length);
+            mPosition += length;
+            return bytes;
+        }
+
+        boolean isEnd()
+        {
+            return mPosition == mData.length;
+        }
+    }
+}
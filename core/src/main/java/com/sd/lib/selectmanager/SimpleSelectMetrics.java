@@ -0,0 +1,227 @@
+package com.sd.lib.selectmanager;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 简单的统计实现，按计数器和耗时直方图累计，可以随时读取或者通过{@link #toString()}输出
+ * <br>
+ * 耗时直方图按2的幂分桶，第i个桶统计耗时在[2^(i-1), 2^i)纳秒之间的次数
+ */
+public class SimpleSelectMetrics implements SelectMetrics
+{
+    private static final Operation[] OPERATIONS = Operation.values();
+    private static final int BUCKET_COUNT = 64;
+
+    private final AtomicLongArray mOperationCount = new AtomicLongArray(OPERATIONS.length);
+    private final AtomicLongArray mOperationCallbackCount = new AtomicLongArray(OPERATIONS.length);
+    private final AtomicInteger mMaxCallbackCount = new AtomicInteger();
+    private final AtomicLongArray mOperationDuration = new AtomicLongArray(BUCKET_COUNT);
+
+    private final AtomicLong mInterceptCount = new AtomicLong();
+    private final AtomicLong mInterceptedCount = new AtomicLong();
+
+    private final AtomicLong mCallbackCount = new AtomicLong();
+    private final AtomicLong mCallbackNanos = new AtomicLong();
+    private final AtomicLongArray mCallbackDuration = new AtomicLongArray(BUCKET_COUNT);
+
+    @Override
+    public void onOperation(Operation operation, int callbackCount, long durationNanos)
+    {
+        final int index = operation.ordinal();
+        mOperationCount.incrementAndGet(index);
+        mOperationCallbackCount.addAndGet(index, callbackCount);
+        mOperationDuration.incrementAndGet(bucketOf(durationNanos));
+
+        while (true)
+        {
+            final int max = mMaxCallbackCount.get();
+            if (callbackCount <= max || mMaxCallbackCount.compareAndSet(max, callbackCount))
+                break;
+        }
+    }
+
+    @Override
+    public void onIntercept(boolean intercepted)
+    {
+        mInterceptCount.incrementAndGet();
+        if (intercepted)
+            mInterceptedCount.incrementAndGet();
+    }
+
+    @Override
+    public void onCallback(int callbackCount, long durationNanos)
+    {
+        mCallbackCount.addAndGet(callbackCount);
+        mCallbackNanos.addAndGet(durationNanos);
+        mCallbackDuration.incrementAndGet(bucketOf(durationNanos));
+    }
+
+    /**
+     * 返回某类操作的次数
+     *
+     * @param operation
+     * @return
+     */
+    public long getOperationCount(Operation operation)
+    {
+        return mOperationCount.get(operation.ordinal());
+    }
+
+    /**
+     * 返回某类操作派发的回调总次数
+     *
+     * @param operation
+     * @return
+     */
+    public long getOperationCallbackCount(Operation operation)
+    {
+        return mOperationCallbackCount.get(operation.ordinal());
+    }
+
+    /**
+     * 返回单次操作派发的最大回调次数
+     *
+     * @return
+     */
+    public int getMaxCallbackCount()
+    {
+        return mMaxCallbackCount.get();
+    }
+
+    /**
+     * 返回拦截检查的次数
+     *
+     * @return
+     */
+    public long getInterceptCount()
+    {
+        return mInterceptCount.get();
+    }
+
+    /**
+     * 返回被拦截的次数
+     *
+     * @return
+     */
+    public long getInterceptedCount()
+    {
+        return mInterceptedCount.get();
+    }
+
+    /**
+     * 返回回调对象被调用的总次数
+     *
+     * @return
+     */
+    public long getCallbackCount()
+    {
+        return mCallbackCount.get();
+    }
+
+    /**
+     * 返回回调的总耗时(纳秒)
+     *
+     * @return
+     */
+    public long getCallbackNanos()
+    {
+        return mCallbackNanos.get();
+    }
+
+    /**
+     * 返回操作耗时的百分位数，结果是所在桶的上界
+     *
+     * @param percentile 0-1之间
+     * @return 纳秒
+     */
+    public long getOperationDurationPercentile(double percentile)
+    {
+        return percentileOf(mOperationDuration, percentile);
+    }
+
+    /**
+     * 返回每次通知回调耗时的百分位数，结果是所在桶的上界
+     *
+     * @param percentile 0-1之间
+     * @return 纳秒
+     */
+    public long getCallbackDurationPercentile(double percentile)
+    {
+        return percentileOf(mCallbackDuration, percentile);
+    }
+
+    /**
+     * 清空统计数据
+     */
+    public void reset()
+    {
+        for (int i = 0; i < OPERATIONS.length; i++)
+        {
+            mOperationCount.set(i, 0);
+            mOperationCallbackCount.set(i, 0);
+        }
+        for (int i = 0; i < BUCKET_COUNT; i++)
+        {
+            mOperationDuration.set(i, 0);
+            mCallbackDuration.set(i, 0);
+        }
+        mMaxCallbackCount.set(0);
+        mInterceptCount.set(0);
+        mInterceptedCount.set(0);
+        mCallbackCount.set(0);
+        mCallbackNanos.set(0);
+    }
+
+    @Override
+    public String toString()
+    {
+        final StringBuilder builder = new StringBuilder(getClass().getSimpleName()).append('{');
+        for (Operation operation : OPERATIONS)
+        {
+            final long count = getOperationCount(operation);
+            if (count <= 0)
+                continue;
+
+            builder.append(operation).append('=').append(count)
+                    .append("(callbacks=").append(getOperationCallbackCount(operation)).append("), ");
+        }
+        builder.append("maxCallbacks=").append(getMaxCallbackCount())
+                .append(", intercepted=").append(getInterceptedCount()).append('/').append(getInterceptCount())
+                .append(", callbackNanos=").append(getCallbackNanos())
+                .append(", operationP50=").append(getOperationDurationPercentile(0.5))
+                .append(", operationP99=").append(getOperationDurationPercentile(0.99))
+                .append(", callbackP99=").append(getCallbackDurationPercentile(0.99))
+                .append('}');
+        return builder.toString();
+    }
+
+    private static int bucketOf(long nanos)
+    {
+        if (nanos <= 0)
+            return 0;
+        return Math.min(BUCKET_COUNT - Long.numberOfLeadingZeros(nanos), BUCKET_COUNT - 1);
+    }
+
+    private static long percentileOf(AtomicLongArray buckets, double percentile)
+    {
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++)
+        {
+            total += buckets.get(i);
+        }
+        if (total <= 0)
+            return 0;
+
+        final long target = (long) Math.ceil(total * Math.max(0, Math.min(1, percentile)));
+        long count = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++)
+        {
+            count += buckets.get(i);
+            if (count >= target && count > 0)
+                return i == 0 ? 0 : (i >= BUCKET_COUNT - 1 ? Long.MAX_VALUE : 1L << i);
+        }
+        return Long.MAX_VALUE;
+    }
+}
@@ -0,0 +1,229 @@
+package com.sd.lib.selectmanager;
+
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class CallbackDispatcherTest
+{
+    /**
+     * 代替主线程的消息队列，手动执行投递的任务
+     */
+    private static final class QueueExecutor implements Executor
+    {
+        final ArrayDeque<Runnable> queue = new ArrayDeque<>();
+
+        @Override
+        public void execute(Runnable command)
+        {
+            queue.add(command);
+        }
+
+        void drain()
+        {
+            while (!queue.isEmpty())
+            {
+                queue.poll().run();
+            }
+        }
+    }
+
+    /**
+     * 记录所有回调，同时检查回调没有嵌套执行
+     */
+    private static final class Recorder
+    {
+        final FSelectManager<String> manager = new FSelectManager<>();
+        final List<String> log = new ArrayList<>();
+        Runnable onSelectedA;
+        private int mDepth;
+
+        Recorder(SelectManager.Mode mode, SelectManager.CallbackDelivery delivery, Executor executor)
+        {
+            manager.setMode(mode);
+            manager.setItems("a", "b", "c");
+            manager.addCallback(new SelectManager.Callback<String>()
+            {
+                @Override
+                public void onSelectedChanged(boolean selected, String item)
+                {
+                    enter();
+                    log.add(selected + ":" + item);
+                    if (selected && "a".equals(item) && onSelectedA != null)
+                        onSelectedA.run();
+                    mDepth--;
+                }
+            });
+            manager.addSingleSelectCallback(new SelectManager.SingleSelectCallback<String>()
+            {
+                @Override
+                public void onSelectedChanged(String item)
+                {
+                    enter();
+                    log.add("single " + item);
+                    mDepth--;
+                }
+            });
+            manager.addSelectionChangeCallback(new SelectManager.SelectionChangeCallback<String>()
+            {
+                @Override
+                public void onSelectionChanged(List<String> listSelected, List<String> listNormal)
+                {
+                    enter();
+                    log.add("bulk " + listSelected + "/" + listNormal);
+                    mDepth--;
+                }
+            });
+            manager.setCallbackExecutor(executor, delivery);
+        }
+
+        private void enter()
+        {
+            assertEquals("callback is nested", 0, mDepth);
+            mDepth++;
+        }
+    }
+
+    @Test
+    public void testPostKeepsOrder()
+    {
+        final QueueExecutor executor = new QueueExecutor();
+        final Recorder recorder = new Recorder(SelectManager.Mode.MULTI, SelectManager.CallbackDelivery.POST, executor);
+        final FSelectManager<String> manager = recorder.manager;
+
+        manager.performClick(0);
+        manager.performClick(1);
+        manager.performClick(0);
+        manager.selectAll();
+        assertTrue(recorder.log.isEmpty());
+
+        executor.drain();
+        assertEquals(Arrays.asList(
+                "true:a", "bulk [a]/[]",
+                "true:b", "bulk [b]/[]",
+                "false:a", "bulk []/[a]",
+                "true:a", "true:c", "bulk [a, c]/[]"), recorder.log);
+    }
+
+    @Test
+    public void testConflateMulti()
+    {
+        final QueueExecutor executor = new QueueExecutor();
+        final Recorder recorder = new Recorder(SelectManager.Mode.MULTI, SelectManager.CallbackDelivery.CONFLATE, executor);
+        final FSelectManager<String> manager = recorder.manager;
+
+        manager.performClick(0);
+        manager.performClick(1);
+        manager.performClick(0);
+        manager.selectAll();
+        assertTrue(recorder.log.isEmpty());
+        assertEquals(1, executor.queue.size());
+
+        executor.drain();
+        assertEquals(Arrays.asList("true:a", "true:b", "true:c", "bulk [a, b, c]/[]"), recorder.log);
+
+        // 选中又取消选中，最终没有变化
+        recorder.log.clear();
+        manager.performClick(0);
+        manager.performClick(0);
+        executor.drain();
+        assertTrue(recorder.log.isEmpty());
+    }
+
+    @Test
+    public void testConflateSingleABA()
+    {
+        final QueueExecutor executor = new QueueExecutor();
+        final Recorder recorder = new Recorder(SelectManager.Mode.SINGLE, SelectManager.CallbackDelivery.CONFLATE, executor);
+        final FSelectManager<String> manager = recorder.manager;
+
+        manager.performClick(0);
+        executor.drain();
+        assertEquals(Arrays.asList("single a", "true:a", "bulk [a]/[]"), recorder.log);
+
+        // A->B->A
+        recorder.log.clear();
+        manager.performClick(1);
+        manager.performClick(0);
+        assertEquals(1, executor.queue.size());
+        executor.drain();
+        assertTrue(recorder.log.isEmpty());
+
+        // A->B->C
+        manager.performClick(1);
+        manager.performClick(2);
+        executor.drain();
+        assertEquals(Arrays.asList("single c", "false:a", "true:c", "bulk [c]/[a]"), recorder.log);
+    }
+
+    @Test
+    public void testPostReentrant()
+    {
+        final QueueExecutor executor = new QueueExecutor();
+        final Recorder recorder = new Recorder(SelectManager.Mode.MULTI, SelectManager.CallbackDelivery.POST, executor);
+        final FSelectManager<String> manager = recorder.manager;
+        recorder.onSelectedA = new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                // 在回调中修改，新的回调排在后面，不会嵌套执行
+                manager.performClick(1);
+            }
+        };
+
+        manager.performClick(0);
+        executor.drain();
+        assertEquals(Arrays.asList("true:a", "bulk [a]/[]", "true:b", "bulk [b]/[]"), recorder.log);
+        assertEquals(Arrays.asList(0, 1), manager.getSelectedIndexs());
+    }
+
+    @Test
+    public void testConflateReentrant()
+    {
+        final QueueExecutor executor = new QueueExecutor();
+        final Recorder recorder = new Recorder(SelectManager.Mode.MULTI, SelectManager.CallbackDelivery.CONFLATE, executor);
+        final FSelectManager<String> manager = recorder.manager;
+        recorder.onSelectedA = new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                manager.performClick(1);
+                manager.performClick(2);
+                assertEquals(1, executor.queue.size());
+            }
+        };
+
+        manager.performClick(0);
+        assertEquals(1, executor.queue.size());
+
+        // 投递过程中的修改合并到下一次投递
+        executor.queue.poll().run();
+        assertEquals(Arrays.asList("true:a", "bulk [a]/[]"), recorder.log);
+        assertEquals(1, executor.queue.size());
+
+        executor.drain();
+        assertEquals(Arrays.asList("true:a", "bulk [a]/[]", "true:b", "true:c", "bulk [b, c]/[]"), recorder.log);
+    }
+
+    @Test
+    public void testSyncDelivery()
+    {
+        final QueueExecutor executor = new QueueExecutor();
+        final Recorder recorder = new Recorder(SelectManager.Mode.MULTI, SelectManager.CallbackDelivery.POST, executor);
+        final FSelectManager<String> manager = recorder.manager;
+        manager.setCallbackExecutor(null, SelectManager.CallbackDelivery.SYNC);
+
+        manager.performClick(0);
+        assertEquals(Arrays.asList("true:a", "bulk [a]/[]"), recorder.log);
+        assertTrue(executor.queue.isEmpty());
+    }
+}
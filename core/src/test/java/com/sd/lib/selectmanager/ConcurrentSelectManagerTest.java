@@ -0,0 +1,446 @@
+package com.sd.lib.selectmanager;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ConcurrentSelectManagerTest
+{
+    private static final int WRITERS = 4;
+    private static final int READERS = 4;
+    private static final int PAIRS_PER_WRITER = 8;
+    private static final int ITERATIONS = 20000;
+
+    private static List<String> newItems(int size)
+    {
+        final List<String> list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++)
+        {
+            list.add(new String("item" + i));
+        }
+        return list;
+    }
+
+    /**
+     * 每个写线程成对的修改自己的item，读线程任何时候都不应该看到只修改了一半的状态
+     */
+    @Test
+    public void testStress() throws Exception
+    {
+        final List<String> items = newItems(WRITERS * PAIRS_PER_WRITER * 2);
+        final ConcurrentSelectManager<String> manager = new ConcurrentSelectManager<>();
+        manager.setMode(SelectManager.Mode.MULTI);
+        manager.setItems(items);
+
+        final AtomicReference<Throwable> error = new AtomicReference<>();
+        final AtomicBoolean writing = new AtomicBoolean(true);
+        final CountDownLatch start = new CountDownLatch(1);
+        final boolean[][] expected = new boolean[WRITERS][PAIRS_PER_WRITER];
+        final List<Thread> listWriter = new ArrayList<>();
+        final List<Thread> listReader = new ArrayList<>();
+
+        for (int w = 0; w < WRITERS; w++)
+        {
+            final int writer = w;
+            listWriter.add(new Thread(new Guard(error, start, new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    final boolean[] state = expected[writer];
+                    for (int i = 0; i < ITERATIONS; i++)
+                    {
+                        final int pair = i % PAIRS_PER_WRITER;
+                        final int first = (writer * PAIRS_PER_WRITER + pair) * 2;
+                        final boolean selected = !state[pair];
+                        state[pair] = selected;
+                        manager.runInBatch(new Runnable()
+                        {
+                            @Override
+                            public void run()
+                            {
+                                manager.setSelected(first, selected);
+                                manager.setSelected(items.get(first + 1), selected);
+                            }
+                        });
+                    }
+                }
+            })));
+        }
+
+        for (int r = 0; r < READERS; r++)
+        {
+            listReader.add(new Thread(new Guard(error, start, new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    while (writing.get())
+                    {
+                        assertEquals(0, manager.getSelectedCount() % 2);
+
+                        final SelectionSnapshot<String> snapshot = manager.snapshot();
+                        int count = 0;
+                        for (int i = 0; i < items.size(); i += 2)
+                        {
+                            final boolean selected = snapshot.contains(items.get(i));
+                            assertEquals(selected, snapshot.contains(items.get(i + 1)));
+                            if (selected)
+                                count += 2;
+                        }
+                        assertEquals(count, snapshot.size());
+                    }
+                }
+            })));
+        }
+
+        for (Thread thread : listWriter)
+        {
+            thread.start();
+        }
+        for (Thread thread : listReader)
+        {
+            thread.start();
+        }
+        start.countDown();
+
+        for (Thread thread : listWriter)
+        {
+            thread.join();
+        }
+        writing.set(false);
+        for (Thread thread : listReader)
+        {
+            thread.join();
+        }
+
+        if (error.get() != null)
+            throw new AssertionError(error.get());
+
+        for (int w = 0; w < WRITERS; w++)
+        {
+            for (int pair = 0; pair < PAIRS_PER_WRITER; pair++)
+            {
+                final int first = (w * PAIRS_PER_WRITER + pair) * 2;
+                assertEquals(expected[w][pair], manager.isSelected(items.get(first)));
+                assertEquals(expected[w][pair], manager.isSelected(items.get(first + 1)));
+            }
+        }
+    }
+
+    /**
+     * 一个写线程按顺序选中，读线程看到的数量不会减少，并且看到的数量之前的item都已经选中
+     */
+    @Test
+    public void testMonotonicReads() throws Exception
+    {
+        final int size = 5000;
+        final List<String> items = newItems(size);
+        final ConcurrentSelectManager<String> manager = new ConcurrentSelectManager<>();
+        manager.setMode(SelectManager.Mode.MULTI);
+        manager.setItems(items);
+
+        final AtomicReference<Throwable> error = new AtomicReference<>();
+        final CountDownLatch start = new CountDownLatch(1);
+        final Thread writer = new Thread(new Guard(error, start, new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                for (int i = 0; i < size; i++)
+                {
+                    manager.setSelected(i, true);
+                }
+            }
+        }));
+
+        final List<Thread> listReader = new ArrayList<>();
+        for (int r = 0; r < READERS; r++)
+        {
+            listReader.add(new Thread(new Guard(error, start, new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    int last = 0;
+                    while (last < size && error.get() == null)
+                    {
+                        final int count = manager.getSelectedCount();
+                        assertTrue(count >= last);
+                        if (count > 0)
+                            assertTrue(manager.isSelected(items.get(count - 1)));
+                        last = count;
+                    }
+                }
+            })));
+        }
+
+        writer.start();
+        for (Thread thread : listReader)
+        {
+            thread.start();
+        }
+        start.countDown();
+
+        writer.join();
+        for (Thread thread : listReader)
+        {
+            thread.join();
+        }
+
+        if (error.get() != null)
+            throw new AssertionError(error.get());
+        assertEquals(size, manager.getSelectedCount());
+    }
+
+    /**
+     * 同步回调中查询到的是本次操作之后的状态，和FSelectManager一致
+     */
+    @Test
+    public void testCallbackReadsLatestState()
+    {
+        final List<String> items = newItems(3);
+        final ConcurrentSelectManager<String> manager = new ConcurrentSelectManager<>();
+        manager.setMode(SelectManager.Mode.MULTI);
+        manager.setItems(items);
+        // 先发布一份快照，回调中不能读到它
+        assertEquals(0, manager.getSelectedCount());
+
+        final List<String> events = new ArrayList<>();
+        manager.addCallback(new SelectManager.Callback<String>()
+        {
+            @Override
+            public void onSelectedChanged(boolean selected, String item)
+            {
+                events.add(selected + ":" + manager.isSelected(item) + ":" + manager.getSelectedCount());
+            }
+        });
+
+        manager.performClick(1);
+        manager.selectAll();
+        manager.performClick(0);
+        assertEquals("[true:true:1, true:true:3, true:true:3, false:false:2]", events.toString());
+        assertEquals(2, manager.getSelectedCount());
+    }
+
+    @Test
+    public void testReadAfterWrite()
+    {
+        final List<String> items = newItems(4);
+        final ConcurrentSelectManager<String> manager = new ConcurrentSelectManager<>();
+        manager.setMode(SelectManager.Mode.SINGLE);
+        manager.setItems(items);
+
+        for (int i = 0; i < items.size(); i++)
+        {
+            manager.performClick(i);
+            assertEquals(i, manager.getSelectedIndex());
+            assertEquals(items.get(i), manager.getSelectedItem());
+        }
+
+        manager.removeItem(items.get(0));
+        assertEquals(2, manager.indexOf(items.get(3)));
+        assertEquals(2, manager.getSelectedIndex());
+    }
+
+    @Test
+    public void testForEachSelected()
+    {
+        final List<String> items = newItems(4);
+        final ConcurrentSelectManager<String> manager = new ConcurrentSelectManager<>();
+        manager.setMode(SelectManager.Mode.MULTI);
+        manager.setItems(items);
+        manager.setSelected(2, true);
+        manager.setSelected(0, true);
+
+        // 遍历的是快照，遍历期间可以修改
+        final List<String> list = new ArrayList<>();
+        manager.forEachSelected(new SelectManager.SelectedVisitor<String>()
+        {
+            @Override
+            public void visit(int index, String item)
+            {
+                list.add(index + ":" + item);
+                manager.setSelected(item, false);
+            }
+        });
+        assertEquals("[0:item0, 2:item2]", list.toString());
+        assertEquals(0, manager.getSelectedCount());
+    }
+
+    /**
+     * 写线程在回调中持有锁的时候，其他线程的查询不需要等待，读取的是上一次发布的状态
+     */
+    @Test
+    public void testReadsDoNotWaitForWriter() throws Exception
+    {
+        final List<String> items = newItems(4);
+        final ConcurrentSelectManager<String> manager = new ConcurrentSelectManager<>();
+        manager.setMode(SelectManager.Mode.MULTI);
+        manager.setKeyExtractor(new SelectManager.KeyExtractor<String, String>()
+        {
+            @Override
+            public String getKey(String item)
+            {
+                return item;
+            }
+        });
+        manager.setSelectionOrderEnabled(true);
+        manager.setItems(items);
+        manager.setSelected(2, true);
+        manager.setSelected(0, true);
+
+        final CountDownLatch entered = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        manager.addCallback(new SelectManager.Callback<String>()
+        {
+            @Override
+            public void onSelectedChanged(boolean selected, String item)
+            {
+                entered.countDown();
+                try
+                {
+                    release.await();
+                } catch (InterruptedException e)
+                {
+
+                }
+            }
+        });
+
+        final AtomicReference<Throwable> error = new AtomicReference<>();
+        final CountDownLatch start = new CountDownLatch(1);
+        final Thread writer = new Thread(new Guard(error, start, new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                manager.performClick(3);
+            }
+        }));
+        final Thread reader = new Thread(new Guard(error, new CountDownLatch(0), new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                assertTrue(manager.isSelected(items.get(2)));
+                assertFalse(manager.isSelected(items.get(3)));
+                assertEquals(2, manager.getSelectedCount());
+                assertEquals(1, manager.indexOfKey("item1"));
+                assertEquals(1, manager.getSelectionRank(items.get(0)));
+                assertEquals(-1, manager.getSelectionRank(items.get(3)));
+                assertEquals(Arrays.asList(items.get(2), items.get(0)), manager.getSelectedItems(SelectManager.Order.SELECTION));
+                assertEquals(Arrays.asList(items.get(2), items.get(0)), new ArrayList<>(manager.selectedItemsView(SelectManager.Order.SELECTION)));
+            }
+        }));
+
+        writer.start();
+        start.countDown();
+        entered.await();
+
+        reader.start();
+        reader.join(10000);
+        final boolean waiting = reader.isAlive();
+        release.countDown();
+        writer.join();
+        reader.join();
+
+        assertFalse(waiting);
+        if (error.get() != null)
+            throw new AssertionError(error.get());
+        assertEquals(Arrays.asList(items.get(2), items.get(0), items.get(3)), manager.getSelectedItems(SelectManager.Order.SELECTION));
+        assertEquals(2, manager.getSelectionRank(items.get(3)));
+    }
+
+    /**
+     * 每次写操作之后重新发布选中顺序和key索引
+     */
+    @Test
+    public void testPublishAfterWrites()
+    {
+        final List<String> items = newItems(3);
+        final ConcurrentSelectManager<String> manager = new ConcurrentSelectManager<>();
+        manager.setMode(SelectManager.Mode.MULTI);
+        manager.setKeyExtractor(new SelectManager.KeyExtractor<String, String>()
+        {
+            @Override
+            public String getKey(String item)
+            {
+                return item;
+            }
+        });
+        manager.setSelectionOrderEnabled(true);
+        manager.setItems(items);
+        manager.setSelected(1, true);
+        manager.setSelected(0, true);
+        assertEquals(1, manager.getSelectionRank(items.get(0)));
+        assertEquals(2, manager.indexOfKey("item2"));
+
+        // 选中状态没有变化，只有数据变化
+        final String replace = "replace";
+        manager.updateItem(2, replace);
+        assertEquals(2, manager.indexOfKey(replace));
+        assertEquals(-1, manager.indexOfKey("item2"));
+        assertEquals(Arrays.asList(items.get(1), items.get(0)), manager.getSelectedItems(SelectManager.Order.SELECTION));
+
+        manager.setSelected(1, false);
+        manager.setSelected(replace, true);
+        assertEquals(Arrays.asList(items.get(0), replace), manager.getSelectedItems(SelectManager.Order.SELECTION));
+        assertEquals(1, manager.getSelectionRank(replace));
+        assertEquals(-1, manager.getSelectionRank(items.get(1)));
+
+        manager.removeItem(items.get(0));
+        assertEquals(1, manager.indexOfKey(replace));
+        assertEquals(0, manager.getSelectionRank(replace));
+
+        manager.setSelectionOrderEnabled(false);
+        try
+        {
+            manager.getSelectionRank(replace);
+            fail();
+        } catch (IllegalStateException e)
+        {
+
+        }
+    }
+
+    /**
+     * 记录线程中的异常，所有线程等待同时开始
+     */
+    private static final class Guard implements Runnable
+    {
+        private final AtomicReference<Throwable> mError;
+        private final CountDownLatch mStart;
+        private final Runnable mRunnable;
+
+        Guard(AtomicReference<Throwable> error, CountDownLatch start, Runnable runnable)
+        {
+            mError = error;
+            mStart = start;
+            mRunnable = runnable;
+        }
+
+        @Override
+        public void run()
+        {
+            try
+            {
+                mStart.await();
+                mRunnable.run();
+            } catch (Throwable e)
+            {
+                mError.compareAndSet(null, e);
+            }
+        }
+    }
+}
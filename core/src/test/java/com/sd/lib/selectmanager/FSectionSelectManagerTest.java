@@ -0,0 +1,130 @@
+package com.sd.lib.selectmanager;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class FSectionSelectManagerTest
+{
+    private static FSectionSelectManager<String> newManager()
+    {
+        final FSectionSelectManager<String> manager = new FSectionSelectManager<>();
+        manager.setSections(Arrays.asList(
+                Arrays.asList("a", "b"),
+                Arrays.asList("c", "d")));
+        return manager;
+    }
+
+    private static void assertCounts(FSectionSelectManager<String> manager, int... counts)
+    {
+        int total = 0;
+        for (int i = 0; i < counts.length; i++)
+        {
+            assertEquals(counts[i], manager.getSectionSelectedCount(i));
+            assertEquals(counts[i], manager.getSelectedItems(i).size());
+            total += counts[i];
+        }
+        assertEquals(total, manager.getSelectedCount());
+    }
+
+    @Test
+    public void testRemoveSelected()
+    {
+        final FSectionSelectManager<String> manager = newManager();
+        manager.setSelected("a", true);
+        manager.setSelected("c", true);
+        manager.setSelected("d", true);
+
+        manager.removeItem("c");
+        assertCounts(manager, 1, 1);
+        assertEquals(1, manager.getSectionSize(1));
+        assertEquals(Arrays.asList("d"), manager.getSelectedItems(1));
+    }
+
+    /**
+     * 取消选中被拦截之后会清空所有选中，每个分区的选中数量都要同步更新
+     */
+    @Test
+    public void testRemoveWithVetoInterceptor()
+    {
+        final FSectionSelectManager<String> manager = newManager();
+        manager.setSelected("a", true);
+        manager.setSelected("c", true);
+        manager.setSelected("d", true);
+        manager.addStateInterceptor(new SelectManager.StateInterceptor<String>()
+        {
+            @Override
+            public boolean interceptItem(String item, boolean selected)
+            {
+                return "c".equals(item) && !selected;
+            }
+        });
+
+        manager.removeItem("c");
+        assertCounts(manager, 0, 0);
+        assertEquals(2, manager.getSectionSize(0));
+        assertEquals(1, manager.getSectionSize(1));
+        assertEquals("d", manager.getItem(2));
+    }
+
+    /**
+     * 回调触发的时候分区数量已经更新
+     */
+    @Test
+    public void testRemoveCallbackSeesSections()
+    {
+        final FSectionSelectManager<String> manager = newManager();
+        manager.setSelected("d", true);
+
+        final List<String> events = new ArrayList<>();
+        manager.addCallback(new SelectManager.Callback<String>()
+        {
+            @Override
+            public void onSelectedChanged(boolean selected, String item)
+            {
+                events.add(item + ":" + selected
+                        + ":" + manager.getItemCount()
+                        + ":" + manager.getSectionSize(1)
+                        + ":" + manager.getSectionSelectedCount(1));
+            }
+        });
+
+        manager.removeItem("d");
+        assertEquals(Arrays.asList("d:false:3:1:0"), events);
+    }
+
+    /**
+     * 重新设置分区的时候回调中查询到的是新的分区
+     */
+    @Test
+    public void testSetSectionsCallbackSeesSections()
+    {
+        final FSectionSelectManager<String> manager = newManager();
+        manager.setSelected("b", true);
+        manager.setSelected("d", true);
+
+        final List<String> events = new ArrayList<>();
+        manager.addSelectionChangeCallback(new SelectManager.SelectionChangeCallback<String>()
+        {
+            @Override
+            public void onSelectionChanged(List<String> listSelected, List<String> listNormal)
+            {
+                events.add(listSelected + "/" + listNormal
+                        + ":" + manager.getSectionCount()
+                        + ":" + manager.getSectionSize(0)
+                        + ":" + manager.getSectionSelectedCount(0));
+            }
+        });
+
+        manager.setSections(Arrays.asList(
+                Arrays.asList("a", "b", "c"),
+                Arrays.asList("e")));
+        assertEquals(Arrays.asList("[]/[b, d]:2:3:0"), events);
+        assertCounts(manager, 0, 0);
+        assertEquals(4, manager.getItemCount());
+    }
+}
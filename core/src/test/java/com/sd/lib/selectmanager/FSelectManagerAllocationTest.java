@@ -0,0 +1,179 @@
+package com.sd.lib.selectmanager;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 稳定状态下的点击操作不创建对象
+ */
+public class FSelectManagerAllocationTest
+{
+    private static final int SIZE = 1000;
+    private static final int ITERATIONS = 20000;
+    private static final int ROUNDS = 5;
+
+    private long mCallbackCount;
+
+    private static com.sun.management.ThreadMXBean threadBean()
+    {
+        final ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+
+        final com.sun.management.ThreadMXBean result = (com.sun.management.ThreadMXBean) bean;
+        Assume.assumeTrue(result.isThreadAllocatedMemorySupported());
+        result.setThreadAllocatedMemoryEnabled(true);
+        return result;
+    }
+
+    private FSelectManager<Object> newManager(SelectManager.Mode mode, Object[] items)
+    {
+        final FSelectManager<Object> manager = new FSelectManager<>();
+        manager.setMode(mode);
+        manager.setItems(items);
+        manager.addCallback(new SelectManager.Callback<Object>()
+        {
+            @Override
+            public void onSelectedChanged(boolean selected, Object item)
+            {
+                mCallbackCount++;
+            }
+        });
+        manager.addSingleSelectCallback(new SelectManager.SingleSelectCallback<Object>()
+        {
+            @Override
+            public void onSelectedChanged(Object item)
+            {
+                mCallbackCount++;
+            }
+        });
+        manager.addStateInterceptor(new SelectManager.StateInterceptor<Object>()
+        {
+            @Override
+            public boolean interceptItem(Object item, boolean selected)
+            {
+                return false;
+            }
+        });
+        return manager;
+    }
+
+    /**
+     * 返回多轮测量中最少的分配字节数，排除偶然的干扰
+     */
+    private static long measure(com.sun.management.ThreadMXBean bean, Runnable runnable)
+    {
+        final long thread = Thread.currentThread().getId();
+        long min = Long.MAX_VALUE;
+        for (int i = 0; i < ROUNDS; i++)
+        {
+            final long before = bean.getThreadAllocatedBytes(thread);
+            runnable.run();
+            min = Math.min(min, bean.getThreadAllocatedBytes(thread) - before);
+        }
+        return min;
+    }
+
+    private void assertClickAllocationFree(final FSelectManager<Object> manager, final Object[] items)
+    {
+        final com.sun.management.ThreadMXBean bean = threadBean();
+        final Runnable clicks = new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                for (int i = 0; i < ITERATIONS; i++)
+                {
+                    manager.performClick(i % SIZE);
+                    manager.performClick(items[(i * 7) % SIZE]);
+                }
+            }
+        };
+
+        // 预热，让所有复用的对象都创建出来
+        clicks.run();
+        assertEquals(0, measure(bean, clicks));
+    }
+
+    private static Object[] newItems()
+    {
+        final Object[] items = new Object[SIZE];
+        for (int i = 0; i < SIZE; i++)
+        {
+            items[i] = new Object();
+        }
+        return items;
+    }
+
+    @Test
+    public void testMultiClick()
+    {
+        final Object[] items = newItems();
+        final FSelectManager<Object> manager = newManager(SelectManager.Mode.MULTI, items);
+        assertClickAllocationFree(manager, items);
+    }
+
+    @Test
+    public void testSingleClick()
+    {
+        final Object[] items = newItems();
+        final FSelectManager<Object> manager = newManager(SelectManager.Mode.SINGLE, items);
+        assertClickAllocationFree(manager, items);
+    }
+
+    @Test
+    public void testMultiClickWithSelectionChangeCallback()
+    {
+        final Object[] items = newItems();
+        final FSelectManager<Object> manager = newManager(SelectManager.Mode.MULTI, items);
+        manager.addSelectionChangeCallback(new SelectManager.SelectionChangeCallback<Object>()
+        {
+            @Override
+            public void onSelectionChanged(List<Object> listSelected, List<Object> listNormal)
+            {
+                mCallbackCount += listSelected.size() + listNormal.size();
+            }
+        });
+        assertClickAllocationFree(manager, items);
+    }
+
+    @Test
+    public void testForEachSelected()
+    {
+        final com.sun.management.ThreadMXBean bean = threadBean();
+        final Object[] items = newItems();
+        final FSelectManager<Object> manager = newManager(SelectManager.Mode.MULTI, items);
+        for (int i = 0; i < SIZE; i += 3)
+        {
+            manager.setSelected(i, true);
+        }
+
+        final SelectManager.SelectedVisitor<Object> visitor = new SelectManager.SelectedVisitor<Object>()
+        {
+            @Override
+            public void visit(int index, Object item)
+            {
+                mCallbackCount += index;
+            }
+        };
+        final Runnable forEach = new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                for (int i = 0; i < ITERATIONS; i++)
+                {
+                    manager.forEachSelected(visitor);
+                }
+            }
+        };
+
+        forEach.run();
+        assertEquals(0, measure(bean, forEach));
+    }
+}
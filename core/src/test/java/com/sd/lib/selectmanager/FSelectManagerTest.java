@@ -0,0 +1,1288 @@
+package com.sd.lib.selectmanager;
+
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class FSelectManagerTest
+{
+    /**
+     * 记录所有回调，立即回调的时候同时记录item当时的位置
+     */
+    private static class RecordManager extends FSelectManager<String>
+    {
+        final List<String> events = new ArrayList<>();
+        final List<String> changes = new ArrayList<>();
+        final List<Integer> immediateIndexes = new ArrayList<>();
+
+        RecordManager(Mode mode)
+        {
+            setMode(mode);
+            addCallback(new Callback<String>()
+            {
+                @Override
+                public void onSelectedChanged(boolean selected, String item)
+                {
+                    events.add((selected ? "+" : "-") + item);
+                }
+            });
+            addSelectionChangeCallback(new SelectionChangeCallback<String>()
+            {
+                @Override
+                public void onSelectionChanged(List<String> listSelected, List<String> listNormal)
+                {
+                    changes.add(listSelected + "/" + listNormal);
+                }
+            });
+        }
+
+        @Override
+        void onSelectedChangedImmediately(boolean selected, String item)
+        {
+            immediateIndexes.add(indexOf(item));
+        }
+
+        void reset()
+        {
+            events.clear();
+            changes.clear();
+            immediateIndexes.clear();
+        }
+    }
+
+    @Test
+    public void testUpdateSelectedItemMulti()
+    {
+        final RecordManager manager = new RecordManager(SelectManager.Mode.MULTI);
+        manager.setItems(Arrays.asList("a", "b", "c"));
+        manager.setSelected("b", true);
+        manager.reset();
+
+        manager.updateItem(1, "x");
+        assertEquals(Arrays.asList("-b"), manager.events);
+        assertEquals(Arrays.asList("[]/[b]"), manager.changes);
+        assertEquals(Arrays.asList(1), manager.immediateIndexes);
+        assertFalse(manager.isSelected("x"));
+        assertEquals(0, manager.getSelectedItems().size());
+        assertEquals(1, manager.indexOf("x"));
+
+        manager.reset();
+        manager.updateItem(0, "y");
+        assertTrue(manager.events.isEmpty());
+        assertTrue(manager.changes.isEmpty());
+    }
+
+    @Test
+    public void testUpdateSelectedItemSingle()
+    {
+        final RecordManager manager = new RecordManager(SelectManager.Mode.SINGLE);
+        manager.setItems(Arrays.asList("a", "b", "c"));
+        manager.setSelected("b", true);
+        manager.reset();
+
+        manager.updateItem(1, "x");
+        assertEquals(Arrays.asList("-b"), manager.events);
+        assertEquals(Arrays.asList("[]/[b]"), manager.changes);
+        assertEquals(Arrays.asList(1), manager.immediateIndexes);
+        assertNull(manager.getSelectedItem());
+    }
+
+    @Test
+    public void testSetItemsDoesNotNotifyEachItem()
+    {
+        final RecordManager manager = new RecordManager(SelectManager.Mode.MULTI);
+        manager.setItems(Arrays.asList("a", "b", "c"));
+        manager.selectAll();
+        manager.reset();
+
+        manager.setItems(Arrays.asList("x", "y"));
+        assertTrue(manager.events.isEmpty());
+        assertEquals(Arrays.asList("[]/[a, b, c]"), manager.changes);
+        assertEquals(0, manager.getSelectedCount());
+
+        manager.setSelected("x", true);
+        manager.reset();
+        manager.setItems(Arrays.asList("x", "y"));
+        assertTrue(manager.events.isEmpty());
+        assertEquals(Arrays.asList("[]/[x]"), manager.changes);
+    }
+
+    @Test
+    public void testSetItemsDoesNotNotifyEachItemSingle()
+    {
+        final RecordManager manager = new RecordManager(SelectManager.Mode.SINGLE);
+        final List<String> singles = new ArrayList<>();
+        manager.addSingleSelectCallback(new SelectManager.SingleSelectCallback<String>()
+        {
+            @Override
+            public void onSelectedChanged(String item)
+            {
+                singles.add(String.valueOf(item));
+            }
+        });
+        manager.setItems(Arrays.asList("a", "b"));
+        manager.setSelected("a", true);
+        manager.reset();
+        singles.clear();
+
+        manager.setItems(Arrays.asList("x"));
+        assertTrue(manager.events.isEmpty());
+        assertEquals(Arrays.asList("[]/[a]"), manager.changes);
+        assertEquals(Arrays.asList("null"), singles);
+    }
+
+    @Test
+    public void testSetItemsDoesNotNotifyEachItemConflated()
+    {
+        final ArrayDeque<Runnable> queue = new ArrayDeque<>();
+        final RecordManager manager = new RecordManager(SelectManager.Mode.MULTI);
+        manager.setCallbackExecutor(new Executor()
+        {
+            @Override
+            public void execute(Runnable command)
+            {
+                queue.add(command);
+            }
+        }, SelectManager.CallbackDelivery.CONFLATE);
+        manager.setItems(Arrays.asList("a", "b"));
+        manager.selectAll();
+        manager.setItems(Arrays.asList("x"));
+        while (!queue.isEmpty())
+        {
+            queue.poll().run();
+        }
+
+        assertTrue(manager.events.isEmpty());
+        assertTrue(manager.changes.isEmpty());
+
+        manager.setSelected("x", true);
+        manager.setItems(Arrays.asList("y"));
+        manager.selectAll();
+        while (!queue.isEmpty())
+        {
+            queue.poll().run();
+        }
+
+        assertEquals(Arrays.asList("+y"), manager.events);
+        assertEquals(Arrays.asList("[y]/[]"), manager.changes);
+
+        manager.reset();
+        manager.setItems(Arrays.asList("z"));
+        while (!queue.isEmpty())
+        {
+            queue.poll().run();
+        }
+
+        assertTrue(manager.events.isEmpty());
+        assertEquals(Arrays.asList("[]/[y]"), manager.changes);
+    }
+
+    @Test
+    public void testClearSelectedStillNotifiesEachItem()
+    {
+        final RecordManager manager = new RecordManager(SelectManager.Mode.MULTI);
+        manager.setItems(Arrays.asList("a", "b"));
+        manager.selectAll();
+        manager.reset();
+
+        manager.clearSelected();
+        assertEquals(Arrays.asList("-a", "-b"), manager.events);
+    }
+
+    private static final SelectManager.KeyExtractor<String, String> FIRST_CHAR = new SelectManager.KeyExtractor<String, String>()
+    {
+        @Override
+        public String getKey(String item)
+        {
+            return item.substring(0, 1);
+        }
+    };
+
+    @Test
+    public void testSubmitItemsNotifiesAtPositions()
+    {
+        final RecordManager manager = new RecordManager(SelectManager.Mode.MULTI);
+        manager.setKeyExtractor(FIRST_CHAR);
+        manager.setItems(Arrays.asList("1a", "2a", "3a"));
+        manager.setSelected(1, true);
+        manager.setSelected(2, true);
+        manager.reset();
+
+        // 2被替换为新对象并移动到0，3被移除
+        manager.submitItems(Arrays.asList("2b", "1a"));
+        assertEquals(Arrays.asList("-2a", "-3a", "+2b"), manager.events);
+        assertEquals(Arrays.asList(1, 2, 0), manager.immediateIndexes);
+        assertEquals(Arrays.asList(0), manager.getSelectedIndexs());
+    }
+
+    @Test
+    public void testSubmitItemsNotifiesAtPositionsSingle()
+    {
+        final RecordManager manager = new RecordManager(SelectManager.Mode.SINGLE);
+        manager.setKeyExtractor(FIRST_CHAR);
+        manager.setItems(Arrays.asList("1a", "2a"));
+        manager.setSelected(1, true);
+        manager.reset();
+
+        manager.submitItems(Arrays.asList("2b", "1a"));
+        assertEquals(Arrays.asList("-2a", "+2b"), manager.events);
+        assertEquals(Arrays.asList(1, 0), manager.immediateIndexes);
+        assertEquals("2b", manager.getSelectedItem());
+    }
+
+    /**
+     * 遍历到最后一个item之后修改，hasNext()也要检查到变化
+     */
+    @Test
+    public void testViewHasNextAfterModification()
+    {
+        final FSelectManager<String> manager = new FSelectManager<>();
+        manager.setMode(SelectManager.Mode.MULTI);
+        manager.setItems("a", "b", "c");
+        manager.setSelected(0, true);
+
+        final Iterator<String> iterator = manager.selectedItemsView().iterator();
+        assertEquals("a", iterator.next());
+        manager.setSelected(2, true);
+        try
+        {
+            iterator.hasNext();
+            fail();
+        } catch (ConcurrentModificationException e)
+        {
+
+        }
+    }
+
+    @Test
+    public void testForEachSelected()
+    {
+        final FSelectManager<String> manager = new FSelectManager<>();
+        manager.setMode(SelectManager.Mode.MULTI);
+        manager.setItems("a", "b", "c", "d");
+        manager.setSelected(3, true);
+        manager.setSelected(1, true);
+
+        final List<String> list = new ArrayList<>();
+        final SelectManager.SelectedVisitor<String> visitor = new SelectManager.SelectedVisitor<String>()
+        {
+            @Override
+            public void visit(int index, String item)
+            {
+                list.add(index + ":" + item);
+            }
+        };
+        manager.forEachSelected(visitor);
+        assertEquals(Arrays.asList("1:b", "3:d"), list);
+
+        list.clear();
+        manager.setMode(SelectManager.Mode.SINGLE);
+        manager.forEachSelected(visitor);
+        assertTrue(list.isEmpty());
+
+        manager.setSelected(2, true);
+        manager.forEachSelected(visitor);
+        assertEquals(Arrays.asList("2:c"), list);
+    }
+
+    @Test
+    public void testForEachSelectedModification()
+    {
+        final FSelectManager<String> manager = new FSelectManager<>();
+        manager.setMode(SelectManager.Mode.MULTI);
+        manager.setItems("a", "b", "c");
+        manager.selectAll();
+
+        try
+        {
+            manager.forEachSelected(new SelectManager.SelectedVisitor<String>()
+            {
+                @Override
+                public void visit(int index, String item)
+                {
+                    manager.setSelected(item, false);
+                }
+            });
+            fail();
+        } catch (ConcurrentModificationException e)
+        {
+
+        }
+    }
+
+    /**
+     * 选中状态按位置保存，同一个对象不能出现多次，否则isSelected(item)和选中的位置可能对应不上
+     */
+    @Test
+    public void testDuplicateItemsRejected()
+    {
+        final String a = new String("a");
+        final String x = new String("x");
+        final String b = new String("b");
+        final FSelectManager<String> manager = new FSelectManager<>();
+        manager.setMode(SelectManager.Mode.MULTI);
+        manager.setItems(a, x);
+        manager.setSelected(x, true);
+
+        try
+        {
+            manager.setItems(a, x, b, x);
+            fail();
+        } catch (IllegalArgumentException e)
+        {
+            assertTrue(e.getMessage().contains("3"));
+        }
+        try
+        {
+            manager.submitItems(Arrays.asList(b, b));
+            fail();
+        } catch (IllegalArgumentException e)
+        {
+
+        }
+        try
+        {
+            manager.addItem(0, x);
+            fail();
+        } catch (IllegalArgumentException e)
+        {
+
+        }
+        try
+        {
+            manager.addItems(Arrays.asList(b, b));
+            fail();
+        } catch (IllegalArgumentException e)
+        {
+
+        }
+        try
+        {
+            manager.updateItem(0, x);
+            fail();
+        } catch (IllegalArgumentException e)
+        {
+
+        }
+
+        // 失败的操作不会改变原来的数据和选中状态
+        assertEquals(-1, manager.indexOf(b));
+        assertEquals(1, manager.indexOf(x));
+        assertTrue(manager.isSelected(x));
+        assertEquals(Arrays.asList(1), manager.getSelectedIndexs());
+
+        // 替换成同一个对象是允许的
+        manager.updateItem(1, x);
+        manager.addItem(b);
+        assertEquals(2, manager.indexOf(b));
+    }
+
+    /**
+     * 没有拦截对象的时候按字填充，跳过不可选中的位置，回调和立即回调都是逐个的
+     */
+    @Test
+    public void testSelectAllFillsRange()
+    {
+        final RecordManager manager = new RecordManager(SelectManager.Mode.MULTI);
+        manager.setSelectableFilter(new SelectManager.SelectableFilter<String>()
+        {
+            @Override
+            public boolean isSelectable(String item)
+            {
+                return !"c".equals(item);
+            }
+        });
+        manager.setItems(Arrays.asList("a", "b", "c", "d", "e"));
+        manager.setSelected(1, true);
+        manager.reset();
+
+        manager.selectAll();
+        assertEquals(Arrays.asList(0, 1, 3, 4), manager.getSelectedIndexs());
+        assertEquals(Arrays.asList("+a", "+d", "+e"), manager.events);
+        assertEquals(Arrays.asList("[a, d, e]/[]"), manager.changes);
+        assertEquals(Arrays.asList(0, 3, 4), manager.immediateIndexes);
+
+        manager.reset();
+        manager.selectAll();
+        assertTrue(manager.events.isEmpty());
+        assertTrue(manager.changes.isEmpty());
+    }
+
+    @Test
+    public void testSelectAllWithoutObservers()
+    {
+        final List<Integer> items = new ArrayList<>();
+        for (int i = 0; i < 1000; i++)
+        {
+            items.add(Integer.valueOf(i));
+        }
+
+        final FSelectManager<Integer> manager = new FSelectManager<>();
+        manager.setMode(SelectManager.Mode.MULTI);
+        manager.setSelectableFilter(new SelectManager.SelectableFilter<Integer>()
+        {
+            @Override
+            public boolean isSelectable(Integer item)
+            {
+                return item % 10 != 0;
+            }
+        });
+        manager.setItems(items);
+
+        manager.setSelected(5, 25, true);
+        assertEquals(18, manager.getSelectedCount());
+        assertFalse(manager.isSelected(items.get(10)));
+        assertTrue(manager.isSelected(items.get(24)));
+        assertFalse(manager.isSelected(items.get(25)));
+
+        manager.selectAll();
+        assertEquals(900, manager.getSelectedCount());
+        for (int i = 0; i < items.size(); i++)
+        {
+            assertEquals(i % 10 != 0, manager.isSelected(items.get(i)));
+        }
+    }
+
+    /**
+     * 有数量上限的时候反选先取消原来的选中，不会因为上限选不中
+     */
+    @Test
+    public void testInvertSelectionWithMaxSelected()
+    {
+        final RecordManager manager = new RecordManager(SelectManager.Mode.MULTI);
+        manager.setItems(Arrays.asList("a", "b", "c", "d"));
+        manager.setMaxSelected(2, SelectManager.OverflowPolicy.REJECT);
+        manager.setSelected("a", true);
+        manager.setSelected("b", true);
+        manager.reset();
+
+        manager.invertSelection();
+        assertEquals(Arrays.asList(2, 3), manager.getSelectedIndexs());
+        assertEquals(Arrays.asList("-a", "-b", "+c", "+d"), manager.events);
+        assertEquals(Arrays.asList("[c, d]/[a, b]"), manager.changes);
+
+        manager.toggleRange(1, 3);
+        assertEquals(Arrays.asList(1, 3), manager.getSelectedIndexs());
+
+        final RecordManager mustOne = new RecordManager(SelectManager.Mode.MULTI_MUST_ONE_SELECTED);
+        mustOne.setItems(Arrays.asList("a", "b", "c", "d"));
+        mustOne.setMaxSelected(2, SelectManager.OverflowPolicy.REJECT);
+        mustOne.setSelected("a", true);
+        mustOne.setSelected("b", true);
+
+        mustOne.invertSelection();
+        assertEquals(Arrays.asList(2, 3), mustOne.getSelectedIndexs());
+
+        // 最后一个不能取消选中
+        mustOne.toggleRange(2, 4);
+        assertEquals(Arrays.asList(3), mustOne.getSelectedIndexs());
+    }
+
+    /**
+     * 恢复不经过拦截对象，跳过不可选中的item
+     */
+    @Test
+    public void testSaveRestoreState()
+    {
+        final List<String> items = Arrays.asList("a", "b", "c", "d", "e");
+        final RecordManager manager = new RecordManager(SelectManager.Mode.MULTI);
+        manager.setItems(items);
+        manager.setSelected(1, true);
+        manager.setSelected(2, true);
+        manager.setSelected(4, true);
+        final byte[] state = manager.saveState();
+
+        final RecordManager restore = new RecordManager(SelectManager.Mode.SINGLE);
+        restore.setItems(items);
+        restore.addStateInterceptor(new SelectManager.StateInterceptor<String>()
+        {
+            @Override
+            public boolean interceptItem(String item, boolean selected)
+            {
+                return true;
+            }
+        });
+        restore.setSelectableFilter(new SelectManager.SelectableFilter<String>()
+        {
+            @Override
+            public boolean isSelectable(String item)
+            {
+                return !"c".equals(item);
+            }
+        });
+        restore.reset();
+
+        restore.restoreState(state);
+        assertEquals(SelectManager.Mode.MULTI, restore.getMode());
+        assertEquals(Arrays.asList(1, 4), restore.getSelectedIndexs());
+        assertEquals(Arrays.asList("+b", "+e"), restore.events);
+        assertEquals(Arrays.asList("[b, e]/[]"), restore.changes);
+
+        // 空的选中状态
+        manager.clearSelected();
+        restore.restoreState(manager.saveState());
+        assertEquals(0, restore.getSelectedCount());
+
+        // 单选
+        final FSelectManager<String> single = new FSelectManager<>();
+        single.setMode(SelectManager.Mode.SINGLE_MUST_ONE_SELECTED);
+        single.setItems(items);
+        single.performClick(3);
+        restore.restoreState(single.saveState());
+        assertEquals(SelectManager.Mode.SINGLE_MUST_ONE_SELECTED, restore.getMode());
+        assertEquals("d", restore.getSelectedItem());
+    }
+
+    /**
+     * 数据数量不同或者数据损坏的时候抛出异常，不修改选中状态
+     */
+    @Test
+    public void testRestoreStateRejected()
+    {
+        final FSelectManager<String> manager = new FSelectManager<>();
+        manager.setMode(SelectManager.Mode.MULTI);
+        manager.setItems(Arrays.asList("a", "b", "c"));
+        manager.selectAll();
+        final byte[] state = manager.saveState();
+
+        final RecordManager other = new RecordManager(SelectManager.Mode.SINGLE);
+        other.setItems(Arrays.asList("x", "y", "z", "w"));
+        other.performClick(3);
+        other.reset();
+
+        try
+        {
+            other.restoreState(state);
+            fail();
+        } catch (IllegalArgumentException e)
+        {
+
+        }
+        try
+        {
+            other.restoreState(Arrays.copyOf(state, state.length - 1));
+            fail();
+        } catch (IllegalArgumentException e)
+        {
+
+        }
+
+        assertEquals(SelectManager.Mode.SINGLE, other.getMode());
+        assertEquals("w", other.getSelectedItem());
+        assertTrue(other.events.isEmpty());
+        assertTrue(other.changes.isEmpty());
+    }
+
+    @Test
+    public void testUndoRedo()
+    {
+        final RecordManager manager = new RecordManager(SelectManager.Mode.MULTI);
+        manager.setItems(Arrays.asList("a", "b", "c", "d", "e"));
+        manager.setUndoLimit(10, 0);
+        assertFalse(manager.canUndo());
+
+        manager.performClick(1);
+        manager.setSelected(2, 4, true);
+        manager.selectAll();
+        manager.invertSelection();
+        manager.runInBatch(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                manager.performClick(0);
+                manager.performClick(4);
+                manager.performClick(4);
+            }
+        });
+        assertEquals(Arrays.asList(0), manager.getSelectedIndexs());
+
+        final List<List<Integer>> history = Arrays.asList(
+                Arrays.asList(0, 1, 2, 3, 4),
+                Arrays.asList(1, 2, 3),
+                Arrays.asList(1),
+                Arrays.<Integer>asList());
+
+        // 批量操作只记录一次，回调合并
+        manager.reset();
+        assertTrue(manager.undo());
+        assertEquals(Arrays.<Integer>asList(), manager.getSelectedIndexs());
+        assertEquals(Arrays.asList("[]/[a]"), manager.changes);
+
+        for (List<Integer> expected : history)
+        {
+            assertTrue(manager.undo());
+            assertEquals(expected, manager.getSelectedIndexs());
+        }
+        assertFalse(manager.canUndo());
+        assertFalse(manager.undo());
+
+        assertTrue(manager.redo());
+        assertTrue(manager.redo());
+        assertEquals(Arrays.asList(1, 2, 3), manager.getSelectedIndexs());
+
+        // 新的操作清空重做记录
+        manager.performClick(4);
+        assertFalse(manager.canRedo());
+        assertTrue(manager.undo());
+        assertEquals(Arrays.asList(1, 2, 3), manager.getSelectedIndexs());
+    }
+
+    /**
+     * 撤销不经过拦截对象，数据变化之后清空撤销记录
+     */
+    @Test
+    public void testUndoClearedBySetItems()
+    {
+        final FSelectManager<String> manager = new FSelectManager<>();
+        manager.setMode(SelectManager.Mode.MULTI);
+        manager.setItems(Arrays.asList("a", "b", "c"));
+        manager.setUndoLimit(10, 0);
+        manager.performClick(0);
+        manager.addStateInterceptor(new SelectManager.StateInterceptor<String>()
+        {
+            @Override
+            public boolean interceptItem(String item, boolean selected)
+            {
+                return true;
+            }
+        });
+
+        assertTrue(manager.undo());
+        assertEquals(0, manager.getSelectedCount());
+        assertTrue(manager.redo());
+        assertTrue(manager.isSelected("a"));
+
+        manager.setItems(Arrays.asList("a", "b", "c"));
+        assertFalse(manager.canUndo());
+        assertFalse(manager.canRedo());
+        assertFalse(manager.undo());
+    }
+
+    /**
+     * 有重复item的setItems直接抛出异常，撤销记录和选中状态不变
+     */
+    @Test
+    public void testUndoAfterDuplicateSetItems()
+    {
+        final FSelectManager<String> manager = new FSelectManager<>();
+        manager.setMode(SelectManager.Mode.MULTI);
+        manager.setItems(Arrays.asList("a", "b", "c"));
+        manager.setUndoLimit(10, 0);
+        manager.performClick(0);
+        manager.performClick(2);
+
+        try
+        {
+            manager.setItems(Arrays.asList("x", "y", "x"));
+            fail();
+        } catch (IllegalArgumentException e)
+        {
+
+        }
+
+        assertEquals(2, manager.indexOf("c"));
+        assertEquals(-1, manager.indexOf("x"));
+        assertEquals(Arrays.asList(0, 2), manager.getSelectedIndexs());
+        assertTrue(manager.undo());
+        assertEquals(Arrays.asList(0), manager.getSelectedIndexs());
+        assertTrue(manager.undo());
+        assertFalse(manager.canUndo());
+    }
+
+    @Test
+    public void testUndoLimit()
+    {
+        final FSelectManager<Integer> manager = new FSelectManager<>();
+        manager.setMode(SelectManager.Mode.SINGLE);
+        final List<Integer> items = new ArrayList<>();
+        for (int i = 0; i < 10; i++)
+        {
+            items.add(Integer.valueOf(i));
+        }
+        manager.setItems(items);
+        manager.setUndoLimit(3, 0);
+
+        for (int i = 0; i < 10; i++)
+        {
+            manager.performClick(i);
+        }
+        assertTrue(manager.undo());
+        assertTrue(manager.undo());
+        assertTrue(manager.undo());
+        assertFalse(manager.undo());
+        assertEquals(6, manager.getSelectedIndex());
+
+        manager.setUndoLimit(0, 0);
+        assertFalse(manager.canRedo());
+        assertFalse(manager.redo());
+    }
+
+    /**
+     * 区间操作超出范围的部分被忽略，整个区间只触发一次批量回调
+     */
+    @Test
+    public void testRangeSelect()
+    {
+        final RecordManager manager = new RecordManager(SelectManager.Mode.MULTI);
+        manager.setItems(Arrays.asList("a", "b", "c", "d", "e", "f"));
+
+        manager.setSelected(1, 4, true);
+        assertEquals(Arrays.asList(1, 2, 3), manager.getSelectedIndexs());
+        assertEquals(Arrays.asList("+b", "+c", "+d"), manager.events);
+        assertEquals(Arrays.asList("[b, c, d]/[]"), manager.changes);
+
+        manager.reset();
+        manager.setSelected(2, 100, false);
+        assertEquals(Arrays.asList(1), manager.getSelectedIndexs());
+        assertEquals(Arrays.asList("[]/[c, d]"), manager.changes);
+
+        manager.reset();
+        manager.toggleRange(-1, 3);
+        assertEquals(Arrays.asList(0, 2), manager.getSelectedIndexs());
+        assertEquals(Arrays.asList("[a, c]/[b]"), manager.changes);
+
+        manager.reset();
+        manager.invertSelection();
+        assertEquals(Arrays.asList(1, 3, 4, 5), manager.getSelectedIndexs());
+        assertEquals(Arrays.asList("[b, d, e, f]/[a, c]"), manager.changes);
+
+        // 没有变化的区间不回调
+        manager.reset();
+        manager.setSelected(3, 6, true);
+        manager.setSelected(4, 4, false);
+        assertTrue(manager.events.isEmpty());
+        assertTrue(manager.changes.isEmpty());
+    }
+
+    @Test
+    public void testRangeClearKeepsMustOne()
+    {
+        final RecordManager manager = new RecordManager(SelectManager.Mode.MULTI_MUST_ONE_SELECTED);
+        manager.setItems(Arrays.asList("a", "b", "c", "d"));
+        manager.selectAll();
+        manager.reset();
+
+        manager.setSelected(0, 4, false);
+        assertEquals(1, manager.getSelectedCount());
+        assertEquals(Arrays.asList("[]/[a, b, c]"), manager.changes);
+
+        final FSelectManager<String> single = new FSelectManager<>();
+        single.setMode(SelectManager.Mode.SINGLE);
+        single.setItems(Arrays.asList("a", "b"));
+        try
+        {
+            single.setSelected(0, 2, true);
+            fail();
+        } catch (UnsupportedOperationException e)
+        {
+
+        }
+    }
+
+    /** 以x结尾的item不可以选中 */
+    private static final SelectManager.SelectableFilter<String> NOT_X = new SelectManager.SelectableFilter<String>()
+    {
+        @Override
+        public boolean isSelectable(String item)
+        {
+            return !item.endsWith("x");
+        }
+    };
+
+    @Test
+    public void testSelectableFilter()
+    {
+        final List<String> intercepted = new ArrayList<>();
+        final RecordManager manager = new RecordManager(SelectManager.Mode.MULTI);
+        manager.setItems(Arrays.asList("a", "bx", "c", "dx"));
+        manager.setSelectableFilter(NOT_X);
+        manager.addStateInterceptor(new SelectManager.StateInterceptor<String>()
+        {
+            @Override
+            public boolean interceptItem(String item, boolean selected)
+            {
+                intercepted.add(item);
+                return false;
+            }
+        });
+
+        // 不可以选中的item直接忽略，不经过拦截对象
+        manager.performClick("bx");
+        assertFalse(manager.isSelected("bx"));
+        assertTrue(manager.events.isEmpty());
+        assertTrue(intercepted.isEmpty());
+
+        manager.selectAll();
+        assertEquals(Arrays.asList("a", "c"), manager.getSelectedItems());
+        assertEquals(Arrays.asList("a", "c"), intercepted);
+
+        // 替换之后重新判断
+        manager.updateItem(1, "b");
+        manager.performClick("b");
+        assertTrue(manager.isSelected("b"));
+        manager.updateItem(0, "ax");
+        assertFalse(manager.isSelected("ax"));
+        manager.performClick("ax");
+        assertFalse(manager.isSelected("ax"));
+        assertEquals(Arrays.asList("b", "c"), manager.getSelectedItems());
+    }
+
+    /**
+     * key相同的新对象不可以选中的时候，submitItems和setItems一样不保留选中状态
+     */
+    @Test
+    public void testSubmitItemsDropsDisabledSelection()
+    {
+        final RecordManager manager = new RecordManager(SelectManager.Mode.MULTI);
+        manager.setKeyExtractor(FIRST_CHAR);
+        manager.setSelectableFilter(NOT_X);
+        manager.setItems(Arrays.asList("1a", "2a", "3a"));
+        manager.selectAll();
+        manager.reset();
+
+        manager.submitItems(Arrays.asList("1a", "2x", "3b"));
+        assertEquals(Arrays.asList("-2a", "-3a", "+3b"), manager.events);
+        assertEquals(Arrays.asList("1a", "3b"), manager.getSelectedItems());
+        assertFalse(manager.isSelected("2x"));
+        manager.performClick("2x");
+        assertFalse(manager.isSelected("2x"));
+
+        // 同一个对象沿用原来的判断结果，变为可以选中的新对象重新判断
+        manager.submitItems(Arrays.asList("1a", "2b", "3b"));
+        manager.performClick("2b");
+        assertEquals(Arrays.asList("1a", "2b", "3b"), manager.getSelectedItems());
+    }
+
+    @Test
+    public void testSelectionOrder()
+    {
+        final FSelectManager<String> manager = new FSelectManager<>();
+        manager.setMode(SelectManager.Mode.MULTI);
+        manager.setItems(Arrays.asList("a", "b", "c", "d", "e"));
+        manager.setSelected(2, true);
+        manager.setSelected(0, true);
+
+        // 开启之前选中的item按列表顺序作为初始顺序
+        manager.setSelectionOrderEnabled(true);
+        assertEquals(Arrays.asList("a", "c"), manager.getSelectedItems(SelectManager.Order.SELECTION));
+
+        manager.performClick("e");
+        manager.performClick("b");
+        assertEquals(Arrays.asList("a", "c", "e", "b"), manager.getSelectedItems(SelectManager.Order.SELECTION));
+        assertEquals(Arrays.asList("a", "b", "c", "e"), manager.getSelectedItems(SelectManager.Order.LIST));
+        assertEquals(3, manager.getSelectionRank("b"));
+        assertEquals(-1, manager.getSelectionRank("d"));
+
+        // 取消选中之后后面的排名前移，重新选中排到最后
+        manager.performClick("a");
+        assertEquals(0, manager.getSelectionRank("c"));
+        assertEquals(2, manager.getSelectionRank("b"));
+        manager.performClick("a");
+        assertEquals(3, manager.getSelectionRank("a"));
+
+        // 区间选中按列表顺序排在后面
+        manager.setSelected(2, 5, true);
+        assertEquals(Arrays.asList("c", "e", "b", "a", "d"), manager.getSelectedItems(SelectManager.Order.SELECTION));
+
+        manager.removeItem("e");
+        assertEquals(-1, manager.getSelectionRank("e"));
+        assertEquals(Arrays.asList("c", "b", "a", "d"), new ArrayList<>(manager.selectedItemsView(SelectManager.Order.SELECTION)));
+
+        manager.setItems(Arrays.asList("x", "y"));
+        assertTrue(manager.getSelectedItems(SelectManager.Order.SELECTION).isEmpty());
+
+        manager.setSelectionOrderEnabled(false);
+        try
+        {
+            manager.getSelectionRank("x");
+            fail();
+        } catch (IllegalStateException e)
+        {
+
+        }
+
+        manager.setMode(SelectManager.Mode.SINGLE);
+        try
+        {
+            manager.getSelectedItems(SelectManager.Order.SELECTION);
+            fail();
+        } catch (UnsupportedOperationException e)
+        {
+
+        }
+    }
+
+    @Test
+    public void testMetrics()
+    {
+        final SimpleSelectMetrics metrics = new SimpleSelectMetrics();
+        final FSelectManager<String> manager = new FSelectManager<>();
+        manager.setMode(SelectManager.Mode.MULTI);
+        manager.setItems(Arrays.asList("a", "b", "c", "d", "e"));
+        manager.addCallback(new SelectManager.Callback<String>()
+        {
+            @Override
+            public void onSelectedChanged(boolean selected, String item)
+            {
+            }
+        });
+        manager.addStateInterceptor(new SelectManager.StateInterceptor<String>()
+        {
+            @Override
+            public boolean interceptItem(String item, boolean selected)
+            {
+                return "c".equals(item);
+            }
+        });
+        manager.setMetrics(metrics);
+
+        manager.performClick("a");
+        assertEquals(1, metrics.getOperationCount(SelectMetrics.Operation.CLICK));
+        assertEquals(1, metrics.getOperationCallbackCount(SelectMetrics.Operation.CLICK));
+
+        // 区间中的每个item都检查一次拦截，被拦截的item没有回调
+        manager.setSelected(1, 5, true);
+        assertEquals(1, metrics.getOperationCount(SelectMetrics.Operation.SET_RANGE));
+        assertEquals(3, metrics.getOperationCallbackCount(SelectMetrics.Operation.SET_RANGE));
+        assertEquals(3, metrics.getMaxCallbackCount());
+        assertEquals(5, metrics.getInterceptCount());
+        assertEquals(1, metrics.getInterceptedCount());
+        assertEquals(4, metrics.getCallbackCount());
+
+        // 没有变化的操作也统计次数
+        manager.setSelected("a", true);
+        assertEquals(1, metrics.getOperationCount(SelectMetrics.Operation.SET_SELECTED));
+        assertEquals(0, metrics.getOperationCallbackCount(SelectMetrics.Operation.SET_SELECTED));
+
+        // 嵌套的清空选中只统计最外层的操作
+        manager.setMode(SelectManager.Mode.SINGLE);
+        assertEquals(1, metrics.getOperationCount(SelectMetrics.Operation.SET_MODE));
+        assertEquals(4, metrics.getOperationCallbackCount(SelectMetrics.Operation.SET_MODE));
+        assertEquals(0, metrics.getOperationCount(SelectMetrics.Operation.CLEAR_SELECTED));
+        assertEquals(8, metrics.getCallbackCount());
+
+        metrics.reset();
+        assertEquals(0, metrics.getOperationCount(SelectMetrics.Operation.SET_MODE));
+        assertEquals(0, metrics.getInterceptCount());
+        assertEquals(0, metrics.getMaxCallbackCount());
+
+        manager.setMetrics(null);
+        manager.performClick("b");
+        assertEquals(0, metrics.getOperationCount(SelectMetrics.Operation.CLICK));
+        assertEquals(0, metrics.getCallbackCount());
+    }
+
+    /**
+     * 批量拦截返回的位置保持原来的状态，被拦截的item不会再交给后面的拦截对象
+     */
+    @Test
+    public void testBulkStateInterceptor()
+    {
+        final List<String> bulk = new ArrayList<>();
+        final List<String> single = new ArrayList<>();
+        final List<String> after = new ArrayList<>();
+        final RecordManager manager = new RecordManager(SelectManager.Mode.MULTI);
+        manager.setItems(Arrays.asList("a", "b", "c", "d", "e"));
+        manager.addStateInterceptor(new SelectManager.BulkStateInterceptor<String>()
+        {
+            @Override
+            public BitSet interceptItems(List<String> items, boolean selected)
+            {
+                bulk.add(items + ":" + selected);
+                if (!selected)
+                    return null;
+
+                final BitSet bitSet = new BitSet();
+                for (int i = 0; i < items.size(); i++)
+                {
+                    if (items.get(i).equals("b") || items.get(i).equals("d"))
+                        bitSet.set(i);
+                }
+                return bitSet;
+            }
+
+            @Override
+            public boolean interceptItem(String item, boolean selected)
+            {
+                single.add(item);
+                return selected && item.equals("b");
+            }
+        });
+        manager.addStateInterceptor(new SelectManager.StateInterceptor<String>()
+        {
+            @Override
+            public boolean interceptItem(String item, boolean selected)
+            {
+                after.add(item);
+                return false;
+            }
+        });
+
+        manager.selectAll();
+        assertEquals(Arrays.asList("[a, b, c, d, e]:true"), bulk);
+        assertEquals(Arrays.asList("a", "c", "e"), after);
+        assertTrue(single.isEmpty());
+        assertEquals(Arrays.asList("a", "c", "e"), manager.getSelectedItems());
+        assertEquals(Arrays.asList("+a", "+c", "+e"), manager.events);
+
+        // 单个item的操作按单个item拦截
+        manager.performClick("b");
+        manager.performClick("d");
+        assertEquals(Arrays.asList("b", "d"), single);
+        assertEquals(1, bulk.size());
+        assertEquals(Arrays.asList("a", "c", "d", "e"), manager.getSelectedItems());
+
+        // 只把要变化的item交给拦截对象
+        bulk.clear();
+        after.clear();
+        manager.toggleRange(1, 4);
+        assertEquals(Arrays.asList("[b]:true", "[c, d]:false"), bulk);
+        assertEquals(Arrays.asList("c", "d"), after);
+        assertEquals(Arrays.asList("a", "e"), manager.getSelectedItems());
+    }
+
+    /**
+     * 批量操作中同一个item的多次变化合并，最终状态没有变化的item不回调
+     */
+    @Test
+    public void testBatchNetsChanges()
+    {
+        final RecordManager manager = new RecordManager(SelectManager.Mode.MULTI);
+        manager.setItems(Arrays.asList("a", "b", "c"));
+        manager.performClick("c");
+        manager.reset();
+
+        manager.runInBatch(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                manager.performClick("a");
+                manager.performClick("a");
+                manager.setSelected("b", true);
+                manager.performClick("c");
+                manager.selectAll();
+                manager.setSelected("a", false);
+                // 批量中的回调都延迟到结束的时候
+                assertTrue(manager.events.isEmpty());
+                assertTrue(manager.changes.isEmpty());
+            }
+        });
+        assertEquals(Arrays.asList("+b"), manager.events);
+        assertEquals(Arrays.asList("[b]/[]"), manager.changes);
+
+        // 选中之后又取消选中，没有任何回调
+        manager.reset();
+        manager.beginBatch();
+        manager.beginBatch();
+        manager.performClick("a");
+        manager.endBatch();
+        manager.performClick("a");
+        manager.endBatch();
+        assertTrue(manager.events.isEmpty());
+        assertTrue(manager.changes.isEmpty());
+        assertFalse(manager.isSelected("a"));
+    }
+
+    /**
+     * setItems清空选中是静默的，批量中同一个item以最后一次记录决定是否触发单个item的回调
+     */
+    @Test
+    public void testBatchSilentSetItems()
+    {
+        final RecordManager manager = new RecordManager(SelectManager.Mode.MULTI);
+        final List<String> items = Arrays.asList("a", "b", "c");
+        manager.setItems(items);
+        manager.performClick("a");
+        manager.reset();
+
+        // 先正常取消选中再重新选中，最后被setItems静默清空，只有批量回调
+        manager.beginBatch();
+        manager.performClick("a");
+        manager.performClick("a");
+        manager.setItems(items);
+        manager.endBatch();
+        assertTrue(manager.events.isEmpty());
+        assertEquals(Arrays.asList("[]/[a]"), manager.changes);
+
+        // 静默清空之后又正常选中，最终状态没有变化
+        manager.performClick("a");
+        manager.performClick("b");
+        manager.reset();
+        manager.beginBatch();
+        manager.setItems(items);
+        manager.performClick("a");
+        manager.endBatch();
+        assertTrue(manager.events.isEmpty());
+        assertEquals(Arrays.asList("[]/[b]"), manager.changes);
+
+        // 静默清空之后的最后一次记录是正常选中，按正常的变化回调
+        manager.reset();
+        manager.beginBatch();
+        manager.setItems(items);
+        manager.performClick("c");
+        manager.endBatch();
+        assertEquals(Arrays.asList("+c"), manager.events);
+        assertEquals(Arrays.asList("[c]/[a]"), manager.changes);
+    }
+
+    /**
+     * 记录{@link #get(int)}调用次数的数据源
+     */
+    private static final class CountSource implements SelectManager.ItemSource<String>
+    {
+        final List<String> list = new ArrayList<>();
+        int getCount;
+
+        CountSource(String... items)
+        {
+            list.addAll(Arrays.asList(items));
+        }
+
+        @Override
+        public int size()
+        {
+            return list.size();
+        }
+
+        @Override
+        public String get(int index)
+        {
+            getCount++;
+            return list.get(index);
+        }
+
+        @Override
+        public int indexOf(String item)
+        {
+            return list.indexOf(item);
+        }
+    }
+
+    @Test
+    public void testItemSource()
+    {
+        final CountSource source = new CountSource("a", "b", "c");
+        final RecordManager manager = new RecordManager(SelectManager.Mode.MULTI);
+        manager.setItemSource(source);
+        assertEquals(0, source.getCount);
+
+        manager.performClick(1);
+        manager.performClick("c");
+        assertEquals(Arrays.asList("+b", "+c"), manager.events);
+        assertEquals(Arrays.asList(1, 2), manager.getSelectedIndexs());
+        assertEquals(2, manager.indexOf("c"));
+        assertEquals(-1, manager.indexOf("x"));
+
+        // 只读取选中状态的时候不访问数据源
+        source.getCount = 0;
+        assertTrue(manager.isSelected("c"));
+        assertEquals(2, manager.getSelectedCount());
+        assertEquals(0, source.getCount);
+
+        // 末尾追加的数据可以直接使用
+        source.list.add("d");
+        manager.setSelected(2, 4, true);
+        assertEquals(Arrays.asList("b", "c", "d"), manager.getSelectedItems());
+
+        manager.setSelectableFilter(NOT_X);
+        source.list.add("ex");
+        manager.selectAll();
+        assertFalse(manager.isSelected("ex"));
+        assertEquals(4, manager.getSelectedCount());
+
+        try
+        {
+            manager.addItem("f");
+            fail();
+        } catch (UnsupportedOperationException e)
+        {
+
+        }
+        try
+        {
+            manager.removeItem("a");
+            fail();
+        } catch (UnsupportedOperationException e)
+        {
+
+        }
+
+        // 重新设置数据源清空选中状态，只有批量回调
+        manager.reset();
+        manager.setItemSource(new CountSource("z"));
+        assertTrue(manager.events.isEmpty());
+        assertEquals(Arrays.asList("[]/[a, b, c, d]"), manager.changes);
+        assertEquals(0, manager.getSelectedCount());
+
+        // 设置普通数据之后切换回普通的数据模式
+        manager.setItems(Arrays.asList("a", "b"));
+        manager.addItem("c");
+        manager.performClick("c");
+        assertEquals(Arrays.asList(2), manager.getSelectedIndexs());
+    }
+
+    /**
+     * 设置了key提取的时候，setItems之后key相同的新对象沿用选中状态
+     */
+    @Test
+    public void testKeyExtractorKeepsSelectionAcrossSetItems()
+    {
+        final RecordManager manager = new RecordManager(SelectManager.Mode.MULTI);
+        manager.setKeyExtractor(FIRST_CHAR);
+        manager.setItems(Arrays.asList("1a", "2a", "3a"));
+        manager.setSelectedByKey("1", true);
+        manager.setSelectedByKey("3", true);
+        assertEquals(2, manager.indexOfKey("3"));
+        manager.reset();
+
+        manager.setItems(Arrays.asList("3b", "4b", "1b"));
+        assertEquals(Arrays.asList("3b", "1b"), manager.getSelectedItems());
+        assertEquals(Arrays.asList(0, 2), manager.getSelectedIndexs());
+        assertEquals(Arrays.asList("+1b", "+3b"), manager.events);
+        assertEquals(Arrays.asList("[1b, 3b]/[1a, 3a]"), manager.changes);
+        assertEquals(0, manager.indexOfKey("3"));
+
+        // 不可以选中的新对象不保留选中状态
+        manager.setSelectableFilter(NOT_X);
+        manager.setItems(Arrays.asList("1x", "3c"));
+        assertEquals(Arrays.asList("3c"), manager.getSelectedItems());
+
+        // 取消key提取之后按对象地址查找，不再保留
+        manager.setKeyExtractor(null);
+        manager.setItems(Arrays.asList("3d"));
+        assertEquals(0, manager.getSelectedCount());
+    }
+
+    @Test
+    public void testKeyExtractorKeepsSelectionAcrossSetItemsSingle()
+    {
+        final RecordManager manager = new RecordManager(SelectManager.Mode.SINGLE_MUST_ONE_SELECTED);
+        manager.setKeyExtractor(FIRST_CHAR);
+        manager.setItems(Arrays.asList("1a", "2a"));
+        manager.performClick("2a");
+        manager.reset();
+
+        manager.setItems(Arrays.asList("1b", "2b"));
+        assertEquals("2b", manager.getSelectedItem());
+        assertEquals(Arrays.asList("+2b"), manager.events);
+
+        // key不存在的时候不选中
+        manager.setItems(Arrays.asList("3b"));
+        assertNull(manager.getSelectedItem());
+    }
+}
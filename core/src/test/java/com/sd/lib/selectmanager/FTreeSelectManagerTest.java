@@ -0,0 +1,242 @@
+package com.sd.lib.selectmanager;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class FTreeSelectManagerTest
+{
+    /**
+     * root
+     * ├─ A
+     * │  ├─ a1
+     * │  └─ a2
+     * ├─ B
+     * │  ├─ b1
+     * │  └─ B2
+     * │     ├─ b21
+     * │     └─ b22
+     * └─ c
+     */
+    private static final Map<String, List<String>> TREE = new HashMap<>();
+
+    static
+    {
+        TREE.put("root", Arrays.asList("A", "B", "c"));
+        TREE.put("A", Arrays.asList("a1", "a2"));
+        TREE.put("B", Arrays.asList("b1", "B2"));
+        TREE.put("B2", Arrays.asList("b21", "b22"));
+    }
+
+    private static final List<String> PREORDER = Arrays.asList("root", "A", "a1", "a2", "B", "b1", "B2", "b21", "b22", "c");
+
+    /**
+     * 记录选中回调和三态变化回调
+     */
+    private static final class RecordManager extends FTreeSelectManager<String>
+    {
+        final List<String> events = new ArrayList<>();
+        final List<List<String>> states = new ArrayList<>();
+
+        RecordManager()
+        {
+            setTree(Collections.singletonList("root"), new ChildrenProvider<String>()
+            {
+                @Override
+                public List<String> getChildren(String item)
+                {
+                    return TREE.get(item);
+                }
+            });
+            addCallback(new SelectManager.Callback<String>()
+            {
+                @Override
+                public void onSelectedChanged(boolean selected, String item)
+                {
+                    events.add((selected ? "+" : "-") + item);
+                }
+            });
+            addStateChangeCallback(new StateChangeCallback<String>()
+            {
+                @Override
+                public void onStateChanged(List<String> items)
+                {
+                    states.add(new ArrayList<>(items));
+                }
+            });
+        }
+
+        void reset()
+        {
+            events.clear();
+            states.clear();
+        }
+    }
+
+    private static void assertPreorder(FTreeSelectManager<String> manager, List<String> expected)
+    {
+        assertEquals(expected.size(), manager.getItemCount());
+        for (int i = 0; i < expected.size(); i++)
+        {
+            assertEquals(expected.get(i), manager.getItem(i));
+            assertEquals(i, manager.indexOf(expected.get(i)));
+        }
+    }
+
+    @Test
+    public void testPreorderMapping()
+    {
+        final RecordManager manager = new RecordManager();
+        assertPreorder(manager, PREORDER);
+        assertEquals(-1, manager.indexOf("x"));
+
+        assertNull(manager.getParent("root"));
+        assertEquals("root", manager.getParent("B"));
+        assertEquals("B2", manager.getParent("b21"));
+        assertNull(manager.getParent("x"));
+
+        assertEquals(6, manager.getLeafCount("root"));
+        assertEquals(3, manager.getLeafCount("B"));
+        assertEquals(1, manager.getLeafCount("c"));
+    }
+
+    @Test
+    public void testSelectParentSelectsSubtree()
+    {
+        final RecordManager manager = new RecordManager();
+        manager.performClick("B");
+
+        assertEquals(FTreeSelectManager.CheckState.CHECKED, manager.getState("B"));
+        assertEquals(FTreeSelectManager.CheckState.CHECKED, manager.getState("B2"));
+        assertEquals(FTreeSelectManager.CheckState.INDETERMINATE, manager.getState("root"));
+        assertEquals(FTreeSelectManager.CheckState.UNCHECKED, manager.getState("A"));
+        assertEquals(3, manager.getSelectedCount());
+        assertEquals(3, manager.getSelectedLeafCount("root"));
+        assertEquals(Arrays.asList("b1", "b21", "b22"), manager.getSelectedLeaves());
+        assertEquals(Arrays.asList("B", "b1", "B2", "b21", "b22"), manager.getSelectedItems());
+        // 每次操作只回调一次三态变化
+        assertEquals(1, manager.states.size());
+        assertEquals(Arrays.asList("B", "b1", "B2", "b21", "b22", "root"), manager.states.get(0));
+
+        manager.reset();
+        manager.performClick("b21");
+        assertEquals(Arrays.asList("-b21", "-B2", "-B"), manager.events);
+        assertEquals(FTreeSelectManager.CheckState.INDETERMINATE, manager.getState("B2"));
+        assertEquals(FTreeSelectManager.CheckState.INDETERMINATE, manager.getState("B"));
+        assertFalse(manager.isSelected("B"));
+        assertEquals(Arrays.asList(Arrays.asList("b21", "B2", "B")), manager.states);
+
+        manager.setSelected("root", true);
+        assertEquals(FTreeSelectManager.CheckState.CHECKED, manager.getState("root"));
+        assertEquals(6, manager.getSelectedCount());
+        assertEquals(PREORDER, manager.getSelectedItems());
+
+        manager.performClick("root");
+        assertEquals(0, manager.getSelectedCount());
+        assertTrue(manager.getSelectedItems().isEmpty());
+    }
+
+    /**
+     * 拦截对象只检查叶子节点，被拦截的叶子节点保持原来的状态
+     */
+    @Test
+    public void testInterceptLeaf()
+    {
+        final RecordManager manager = new RecordManager();
+        manager.addStateInterceptor(new SelectManager.StateInterceptor<String>()
+        {
+            @Override
+            public boolean interceptItem(String item, boolean selected)
+            {
+                return "b22".equals(item);
+            }
+        });
+
+        manager.performClick("B2");
+        assertTrue(manager.isSelected("b21"));
+        assertFalse(manager.isSelected("b22"));
+        assertEquals(FTreeSelectManager.CheckState.INDETERMINATE, manager.getState("B2"));
+        assertEquals(Arrays.asList("+b21"), manager.events);
+    }
+
+    /**
+     * 移除选中的子树，祖先节点重新统计，后面节点的位置前移
+     */
+    @Test
+    public void testRemoveWithSelectedDescendants()
+    {
+        final RecordManager manager = new RecordManager();
+        manager.performClick("b1");
+        manager.performClick("b21");
+        assertEquals(FTreeSelectManager.CheckState.INDETERMINATE, manager.getState("B"));
+        manager.reset();
+
+        // 剩下的叶子节点都是选中的，父节点自动选中
+        manager.removeItem("B2");
+        assertEquals(Arrays.asList("-b21", "+B"), manager.events);
+        assertEquals(Arrays.asList(Arrays.asList("B")), manager.states);
+        assertEquals(FTreeSelectManager.CheckState.CHECKED, manager.getState("B"));
+        assertEquals(FTreeSelectManager.CheckState.INDETERMINATE, manager.getState("root"));
+        assertEquals(1, manager.getSelectedCount());
+        assertEquals(4, manager.getLeafCount("root"));
+        assertEquals(Arrays.asList("B", "b1"), manager.getSelectedItems());
+        assertPreorder(manager, Arrays.asList("root", "A", "a1", "a2", "B", "b1", "c"));
+        assertEquals("root", manager.getParent("c"));
+        assertEquals(FTreeSelectManager.CheckState.UNCHECKED, manager.getState("b21"));
+
+        // 移除整个选中的子树
+        manager.reset();
+        manager.removeItem("B");
+        assertEquals(Arrays.asList("-B", "-b1"), manager.events);
+        assertEquals(Arrays.asList(Arrays.asList("root")), manager.states);
+        assertEquals(0, manager.getSelectedCount());
+        assertEquals(FTreeSelectManager.CheckState.UNCHECKED, manager.getState("root"));
+        assertPreorder(manager, Arrays.asList("root", "A", "a1", "a2", "c"));
+
+        manager.performClick("c");
+        assertEquals(FTreeSelectManager.CheckState.INDETERMINATE, manager.getState("root"));
+    }
+
+    /**
+     * 子节点全部被移除之后父节点变为叶子节点
+     */
+    @Test
+    public void testRemoveLastChild()
+    {
+        final RecordManager manager = new RecordManager();
+        manager.performClick("A");
+        assertEquals(2, manager.getSelectedCount());
+
+        manager.removeItem("a1");
+        assertEquals(FTreeSelectManager.CheckState.CHECKED, manager.getState("A"));
+        assertEquals(5, manager.getLeafCount("root"));
+
+        manager.reset();
+        manager.removeItem("a2");
+        assertEquals(Arrays.asList("-a2", "-A"), manager.events);
+        assertEquals(FTreeSelectManager.CheckState.UNCHECKED, manager.getState("A"));
+        assertEquals(1, manager.getLeafCount("A"));
+        assertEquals(5, manager.getLeafCount("root"));
+        assertEquals(0, manager.getSelectedCount());
+        assertPreorder(manager, Arrays.asList("root", "A", "B", "b1", "B2", "b21", "b22", "c"));
+
+        manager.performClick("A");
+        assertTrue(manager.isSelected("A"));
+        assertEquals(1, manager.getSelectedCount());
+        assertEquals(Arrays.asList("A"), manager.getSelectedLeaves());
+
+        manager.removeItem("root");
+        assertEquals(0, manager.getItemCount());
+        assertEquals(0, manager.getSelectedCount());
+    }
+}
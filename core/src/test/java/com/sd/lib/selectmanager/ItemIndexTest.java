@@ -0,0 +1,209 @@
+package com.sd.lib.selectmanager;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class ItemIndexTest
+{
+    private static <T> SelectManager.ItemSource<T> sourceOf(final List<T> list)
+    {
+        return new SelectManager.ItemSource<T>()
+        {
+            @Override
+            public int size()
+            {
+                return list.size();
+            }
+
+            @Override
+            public T get(int index)
+            {
+                return list.get(index);
+            }
+
+            @Override
+            public int indexOf(T item)
+            {
+                return list.indexOf(item);
+            }
+        };
+    }
+
+    @Test
+    public void testReplaceFirstDuplicate()
+    {
+        final String a = new String("a");
+        final String b = new String("b");
+        final String c = new String("c");
+        final List<String> list = new ArrayList<>(Arrays.asList(a, b, a));
+        final ItemIndex<String> index = new ItemIndex<>(sourceOf(list));
+
+        assertEquals(0, index.indexOf(a));
+        assertEquals(1, index.indexOf(b));
+
+        list.set(0, c);
+        index.onReplaced(0, a, c);
+        assertEquals(2, index.indexOf(a));
+        assertEquals(0, index.indexOf(c));
+        assertEquals(1, index.indexOf(b));
+    }
+
+    @Test
+    public void testReplaceWithDuplicate()
+    {
+        final String a = new String("a");
+        final String b = new String("b");
+        final List<String> list = new ArrayList<>(Arrays.asList(a, b));
+        final ItemIndex<String> index = new ItemIndex<>(sourceOf(list));
+
+        assertEquals(1, index.indexOf(b));
+
+        // b同时出现在0和1的位置，替换掉0位置之后应该回到1
+        list.set(0, b);
+        index.onReplaced(0, a, b);
+        assertEquals(0, index.indexOf(b));
+        assertEquals(-1, index.indexOf(a));
+
+        list.set(0, a);
+        index.onReplaced(0, b, a);
+        assertEquals(0, index.indexOf(a));
+        assertEquals(1, index.indexOf(b));
+    }
+
+    @Test
+    public void testRemoveFirstDuplicate()
+    {
+        final String a = new String("a");
+        final String b = new String("b");
+        final List<String> list = new ArrayList<>(Arrays.asList(a, b, a));
+        final ItemIndex<String> index = new ItemIndex<>(sourceOf(list));
+
+        assertEquals(0, index.indexOf(a));
+
+        list.remove(0);
+        index.onRemoved(0, a);
+        assertEquals(1, index.indexOf(a));
+        assertEquals(0, index.indexOf(b));
+    }
+
+    @Test
+    public void testReplaceFirstDuplicateKey()
+    {
+        final List<String> list = new ArrayList<>(Arrays.asList("1-a", "2-b", "1-c"));
+        final ItemIndex<String> index = new ItemIndex<>(sourceOf(list), new SelectManager.KeyExtractor<String, String>()
+        {
+            @Override
+            public String getKey(String item)
+            {
+                return item.substring(0, 1);
+            }
+        });
+
+        assertEquals(0, index.indexOfKey("1"));
+        assertEquals(1, index.indexOfKey("2"));
+
+        list.set(0, "3-d");
+        index.onReplaced(0, "1-a", "3-d");
+        assertEquals(2, index.indexOfKey("1"));
+        assertEquals(2, index.indexOf("1-x"));
+        assertEquals(0, index.indexOfKey("3"));
+        assertEquals(1, index.indexOfKey("2"));
+    }
+
+    /**
+     * 线性查找第一次出现的位置，作为对照
+     */
+    private static int scan(List<String> list, Object item)
+    {
+        for (int i = 0; i < list.size(); i++)
+        {
+            if (list.get(i) == item)
+                return i;
+        }
+        return -1;
+    }
+
+    /**
+     * 随机插入，移除，替换，末尾追加，每一步之后和线性查找的结果对比
+     */
+    @Test
+    public void testRandomChanges()
+    {
+        final Random random = new Random(1);
+        final List<String> pool = new ArrayList<>();
+        for (int i = 0; i < 50; i++)
+        {
+            pool.add(new String("i" + i));
+        }
+
+        final List<String> list = new ArrayList<>();
+        final ItemIndex<String> index = new ItemIndex<>(sourceOf(list));
+        for (int step = 0; step < 5000; step++)
+        {
+            final String item = pool.get(random.nextInt(pool.size()));
+            final int op = random.nextInt(5);
+            if (op == 0 || list.isEmpty())
+            {
+                // 末尾追加，不通知索引
+                list.add(item);
+            } else if (op == 1)
+            {
+                final int position = random.nextInt(list.size() + 1);
+                final int count = 1 + random.nextInt(3);
+                for (int i = 0; i < count; i++)
+                {
+                    list.add(position, pool.get(random.nextInt(pool.size())));
+                }
+                index.onInserted(position, count);
+            } else if (op == 2)
+            {
+                final int position = random.nextInt(list.size());
+                index.onRemoved(position, list.remove(position));
+            } else if (op == 3)
+            {
+                final int position = random.nextInt(list.size());
+                index.onReplaced(position, list.set(position, item), item);
+            }
+
+            final String query = pool.get(random.nextInt(pool.size()));
+            assertEquals("step " + step, scan(list, query), index.indexOf(query));
+        }
+
+        for (String item : pool)
+        {
+            assertEquals(scan(list, item), index.indexOf(item));
+        }
+    }
+
+    /**
+     * 头部插入会让后面所有位置平移，之后的查找不需要重建索引
+     */
+    @Test
+    public void testInsertHeadThenLookup()
+    {
+        final int size = 50000;
+        final List<String> list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++)
+        {
+            list.add(new String("i" + i));
+        }
+        final ItemIndex<String> index = new ItemIndex<>(sourceOf(list));
+        assertEquals(size - 1, index.indexOf(list.get(size - 1)));
+
+        for (int i = 1; i <= 2000; i++)
+        {
+            list.add(0, new String("head" + i));
+            index.onInserted(0, 1);
+
+            final String last = list.get(list.size() - 1);
+            assertEquals(list.size() - 1, index.indexOf(last));
+            assertEquals(0, index.indexOf(list.get(0)));
+        }
+    }
+}
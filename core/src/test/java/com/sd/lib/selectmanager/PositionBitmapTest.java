@@ -0,0 +1,223 @@
+package com.sd.lib.selectmanager;
+
+import org.junit.Test;
+
+import java.util.BitSet;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PositionBitmapTest
+{
+    private static int[] toArray(BitSet set)
+    {
+        return set.stream().toArray();
+    }
+
+    private static void assertSame(String message, BitSet expected, PositionBitmap bitmap, int max)
+    {
+        assertEquals(message, expected.cardinality(), bitmap.cardinality());
+        assertArrayEquals(message, toArray(expected), bitmap.toArray());
+        for (int i = 0; i <= max; i++)
+        {
+            assertEquals(message, expected.get(i), bitmap.contains(i));
+            assertEquals(message, expected.nextSetBit(i), bitmap.nextSetBit(i));
+            assertEquals(message, expected.nextClearBit(i), bitmap.nextClearBit(i));
+        }
+    }
+
+    /**
+     * 在BitSet上做同样的平移
+     */
+    private static BitSet shift(BitSet set, int index, int delta)
+    {
+        final BitSet result = new BitSet();
+        for (int i = set.nextSetBit(0); i >= 0; i = set.nextSetBit(i + 1))
+        {
+            if (i < index)
+                result.set(i);
+            else if (delta > 0)
+                result.set(i + delta);
+            else if (i >= index - delta)
+                result.set(i + delta);
+        }
+        return result;
+    }
+
+    @Test
+    public void testSparseToDenseAndBack()
+    {
+        final PositionBitmap bitmap = new PositionBitmap();
+        for (int i = 0; i < 10; i++)
+        {
+            bitmap.add(i * 100);
+        }
+        assertFalse(bitmap.isDense());
+
+        for (int i = 0; i < 200; i++)
+        {
+            bitmap.add(i);
+        }
+        assertTrue(bitmap.isDense());
+        assertEquals(208, bitmap.cardinality());
+
+        // 数量少于字数的一半才回到稀疏模式，避免在阈值附近来回切换
+        for (int i = 0; i < 200; i++)
+        {
+            bitmap.remove(i);
+        }
+        assertTrue(bitmap.isDense());
+        for (int i = 200; i < 900; i += 100)
+        {
+            bitmap.remove(i);
+        }
+        assertFalse(bitmap.isDense());
+        assertArrayEquals(new int[]{900}, bitmap.toArray());
+    }
+
+    @Test
+    public void testAddRange()
+    {
+        final PositionBitmap bitmap = new PositionBitmap();
+        bitmap.add(5);
+        bitmap.addRange(3, 10);
+        assertFalse(bitmap.isDense());
+        assertArrayEquals(new int[]{3, 4, 5, 6, 7, 8, 9}, bitmap.toArray());
+
+        bitmap.addRange(60, 1000);
+        assertTrue(bitmap.isDense());
+        assertEquals(7 + 940, bitmap.cardinality());
+        assertEquals(10, bitmap.nextClearBit(3));
+        assertEquals(60, bitmap.nextSetBit(10));
+        assertEquals(1000, bitmap.nextClearBit(60));
+        assertEquals(-1, bitmap.nextSetBit(1000));
+
+        // 较大的区间离其他位置很远，填充之后数量少于字数的一半，回到稀疏模式
+        final PositionBitmap far = new PositionBitmap();
+        far.addRange(100000, 100100);
+        assertFalse(far.isDense());
+        assertEquals(100, far.cardinality());
+        assertEquals(100000, far.nextSetBit(0));
+        assertEquals(100100, far.nextClearBit(100000));
+    }
+
+    @Test
+    public void testInsertDelete()
+    {
+        final PositionBitmap sparse = new PositionBitmap();
+        sparse.add(1);
+        sparse.add(4);
+        sparse.add(6);
+        sparse.insert(4, 3);
+        assertArrayEquals(new int[]{1, 7, 9}, sparse.toArray());
+        sparse.delete(7);
+        assertArrayEquals(new int[]{1, 8}, sparse.toArray());
+        sparse.delete(0);
+        assertArrayEquals(new int[]{0, 7}, sparse.toArray());
+
+        final PositionBitmap dense = new PositionBitmap();
+        dense.addRange(0, 300);
+        assertTrue(dense.isDense());
+        dense.insert(64, 70);
+        assertEquals(300, dense.cardinality());
+        assertEquals(64, dense.nextClearBit(0));
+        assertEquals(134, dense.nextSetBit(64));
+        assertEquals(370, dense.nextClearBit(134));
+        dense.delete(0);
+        assertEquals(63, dense.nextClearBit(0));
+        assertEquals(299, dense.cardinality());
+    }
+
+    @Test
+    public void testCopyIsIndependent()
+    {
+        final PositionBitmap bitmap = new PositionBitmap();
+        bitmap.addRange(0, 200);
+        final PositionBitmap copy = bitmap.copy();
+
+        bitmap.remove(10);
+        bitmap.insert(0, 5);
+        assertEquals(200, copy.cardinality());
+        assertTrue(copy.contains(10));
+        assertEquals(0, copy.nextSetBit(0));
+    }
+
+    /**
+     * 随机操作，数量在两种模式的切换阈值附近来回变化，每一步之后和BitSet对比
+     */
+    @Test
+    public void testRandomAgainstBitSet()
+    {
+        final Random random = new Random(2);
+        final int max = 700;
+        final PositionBitmap bitmap = new PositionBitmap();
+        BitSet expected = new BitSet();
+        boolean dense = false;
+        int switches = 0;
+
+        for (int step = 0; step < 3000; step++)
+        {
+            // 交替的增长和收缩阶段，让两种模式来回切换
+            final boolean grow = (step / 300) % 2 == 0;
+            final int op = random.nextInt(10);
+            int position = random.nextInt(max / 2);
+            if (!grow && op < 8)
+            {
+                final int exist = expected.nextSetBit(position);
+                position = exist >= 0 ? exist : expected.nextSetBit(0);
+            }
+
+            if (grow && op < 5)
+            {
+                assertEquals(!expected.get(position), bitmap.add(position));
+                expected.set(position);
+            } else if (grow && op < 7)
+            {
+                final int to = position + random.nextInt(150);
+                bitmap.addRange(position, to);
+                expected.set(position, to);
+            } else if (op < 8)
+            {
+                // 收缩阶段一次移除几个已有的位置
+                final int count = grow ? 1 : 4;
+                for (int i = 0; i < count && position >= 0; i++)
+                {
+                    assertEquals(expected.get(position), bitmap.remove(position));
+                    expected.clear(position);
+                    position = grow ? -1 : expected.nextSetBit(position);
+                }
+            } else if (op == 8)
+            {
+                final int index = random.nextInt(max / 2);
+                final int count = 1 + random.nextInt(3);
+                bitmap.insert(index, count);
+                expected = shift(expected, index, count);
+            } else
+            {
+                final int index = random.nextInt(max / 2);
+                bitmap.delete(index);
+                expected = shift(expected, index, -1);
+            }
+
+            if (bitmap.isDense() != dense)
+            {
+                dense = bitmap.isDense();
+                switches++;
+            }
+
+            // 超出范围的位置清理掉，保持在切换阈值附近
+            for (int i = expected.nextSetBit(max); i >= 0; i = expected.nextSetBit(i + 1))
+            {
+                bitmap.remove(i);
+                expected.clear(i);
+            }
+
+            assertSame("step " + step, expected, bitmap, max);
+        }
+
+        assertTrue("switches " + switches, switches >= 4);
+    }
+}
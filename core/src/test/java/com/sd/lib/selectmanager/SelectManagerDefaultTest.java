@@ -0,0 +1,290 @@
+package com.sd.lib.selectmanager;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class SelectManagerDefaultTest
+{
+    /**
+     * 只实现了最初版本方法的实现类
+     */
+    private static class LegacyManager implements SelectManager<String>
+    {
+        private final FSelectManager<String> mManager = new FSelectManager<>();
+
+        @Override
+        public void addCallback(Callback<String> callback)
+        {
+            mManager.addCallback(callback);
+        }
+
+        @Override
+        public void removeCallback(Callback<String> callback)
+        {
+            mManager.removeCallback(callback);
+        }
+
+        @Override
+        public void setOnItemInitCallback(OnItemInitCallback<String> callback)
+        {
+            mManager.setOnItemInitCallback(callback);
+        }
+
+        @Deprecated
+        @Override
+        public void setSelectedInterceptor(SelectedInterceptor<String> interceptor)
+        {
+            mManager.setSelectedInterceptor(interceptor);
+        }
+
+        @Override
+        public void addStateInterceptor(StateInterceptor<String> interceptor)
+        {
+            mManager.addStateInterceptor(interceptor);
+        }
+
+        @Override
+        public void removeStateInterceptor(StateInterceptor<String> interceptor)
+        {
+            mManager.removeStateInterceptor(interceptor);
+        }
+
+        @Override
+        public void addSingleSelectCallback(SingleSelectCallback<String> callback)
+        {
+            mManager.addSingleSelectCallback(callback);
+        }
+
+        @Override
+        public void removeSingleSelectCallback(SingleSelectCallback<String> callback)
+        {
+            mManager.removeSingleSelectCallback(callback);
+        }
+
+        @Override
+        public void setMode(Mode mode)
+        {
+            mManager.setMode(mode);
+        }
+
+        @Override
+        public Mode getMode()
+        {
+            return mManager.getMode();
+        }
+
+        @Override
+        public boolean isSelected(String item)
+        {
+            return mManager.isSelected(item);
+        }
+
+        @Override
+        public int getSelectedIndex()
+        {
+            return mManager.getSelectedIndex();
+        }
+
+        @Override
+        public List<Integer> getSelectedIndexs()
+        {
+            return mManager.getSelectedIndexs();
+        }
+
+        @Override
+        public String getSelectedItem()
+        {
+            return mManager.getSelectedItem();
+        }
+
+        @Override
+        public List<String> getSelectedItems()
+        {
+            return mManager.getSelectedItems();
+        }
+
+        @Override
+        public void selectAll()
+        {
+            mManager.selectAll();
+        }
+
+        @Override
+        public void performClick(int index)
+        {
+            mManager.performClick(index);
+        }
+
+        @Override
+        public void performClick(String item)
+        {
+            mManager.performClick(item);
+        }
+
+        @Override
+        public void setSelected(int index, boolean selected)
+        {
+            mManager.setSelected(index, selected);
+        }
+
+        @Override
+        public void setSelected(String item, boolean selected)
+        {
+            mManager.setSelected(item, selected);
+        }
+
+        @Override
+        public void clearSelected()
+        {
+            mManager.clearSelected();
+        }
+
+        @Override
+        public int indexOf(String item)
+        {
+            return mManager.indexOf(item);
+        }
+
+        @Override
+        public void setItems(String... items)
+        {
+            mManager.setItems(items);
+        }
+
+        @Override
+        public void setItems(List<String> items)
+        {
+            mManager.setItems(items);
+        }
+
+        @Override
+        public void addItem(String item)
+        {
+            mManager.addItem(item);
+        }
+
+        @Override
+        public void addItems(List<String> items)
+        {
+            mManager.addItems(items);
+        }
+
+        @Override
+        public void addItem(int index, String item)
+        {
+            mManager.addItem(index, item);
+        }
+
+        @Override
+        public void addItems(int index, List<String> items)
+        {
+            mManager.addItems(index, items);
+        }
+
+        @Override
+        public void removeItem(String item)
+        {
+            mManager.removeItem(item);
+        }
+
+        @Override
+        public void updateItem(int index, String item)
+        {
+            mManager.updateItem(index, item);
+        }
+    }
+
+    @Test
+    public void testDefaultQueries()
+    {
+        final LegacyManager manager = new LegacyManager();
+        manager.setMode(SelectManager.Mode.MULTI);
+        manager.setItems(Arrays.asList("a", "b", "c"));
+        manager.setSelected(0, true);
+        manager.setSelected(2, true);
+
+        assertEquals(2, manager.getSelectedCount());
+        assertArrayEquals(new int[]{0, 2}, manager.getSelectedIndexArray());
+        assertEquals(1, manager.getSelectedIndexes(new int[1]));
+        assertEquals(Arrays.asList("a", "c"), manager.getSelectedItems(SelectManager.Order.LIST));
+        assertEquals(Arrays.asList("a", "c"), new ArrayList<>(manager.selectedItemsView()));
+
+        final List<String> list = new ArrayList<>();
+        final SelectManager.SelectedVisitor<String> visitor = new SelectManager.SelectedVisitor<String>()
+        {
+            @Override
+            public void visit(int index, String item)
+            {
+                list.add(index + ":" + item);
+            }
+        };
+        manager.forEachSelected(visitor);
+        assertEquals(Arrays.asList("0:a", "2:c"), list);
+
+        manager.setMode(SelectManager.Mode.SINGLE);
+        manager.setSelected(1, true);
+        assertEquals(1, manager.getSelectedCount());
+        assertArrayEquals(new int[]{1}, manager.getSelectedIndexArray());
+        assertEquals(Arrays.asList("b"), new ArrayList<>(manager.selectedItemsView()));
+
+        list.clear();
+        manager.forEachSelected(visitor);
+        assertEquals(Arrays.asList("1:b"), list);
+    }
+
+    @Test
+    public void testDefaultOperations()
+    {
+        final LegacyManager manager = new LegacyManager();
+        manager.setMode(SelectManager.Mode.MULTI);
+        manager.submitItems(Arrays.asList("a", "b"));
+        manager.runInBatch(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                manager.selectAll();
+            }
+        });
+        assertEquals(2, manager.getSelectedCount());
+
+        assertFalse(manager.canUndo());
+        assertFalse(manager.undo());
+        manager.setUndoLimit(0, 0);
+        manager.setKeyExtractor(null);
+        manager.setMaxSelected(0, SelectManager.OverflowPolicy.REJECT);
+        manager.setCallbackExecutor(null, SelectManager.CallbackDelivery.SYNC);
+    }
+
+    @Test
+    public void testDefaultUnsupported()
+    {
+        final LegacyManager manager = new LegacyManager();
+        try
+        {
+            manager.snapshot();
+            fail();
+        } catch (UnsupportedOperationException e)
+        {
+            assertTrue(e.getMessage().contains("not supported"));
+        }
+
+        try
+        {
+            manager.setSelectionOrderEnabled(true);
+            fail();
+        } catch (UnsupportedOperationException e)
+        {
+            assertTrue(e.getMessage().contains("not supported"));
+        }
+    }
+}
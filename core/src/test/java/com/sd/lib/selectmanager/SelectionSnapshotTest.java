@@ -0,0 +1,167 @@
+package com.sd.lib.selectmanager;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SelectionSnapshotTest
+{
+    /**
+     * 按对象地址查找的数据源，数据可以在外部修改
+     */
+    private static final class ListSource implements SelectManager.ItemSource<String>
+    {
+        final List<String> list = new ArrayList<>();
+
+        @Override
+        public int size()
+        {
+            return list.size();
+        }
+
+        @Override
+        public String get(int index)
+        {
+            return list.get(index);
+        }
+
+        @Override
+        public int indexOf(String item)
+        {
+            for (int i = 0; i < list.size(); i++)
+            {
+                if (list.get(i) == item)
+                    return i;
+            }
+            return -1;
+        }
+    }
+
+    private static List<String> visit(SelectionSnapshot<String> snapshot)
+    {
+        final List<String> list = new ArrayList<>();
+        snapshot.forEachSelected(new SelectManager.SelectedVisitor<String>()
+        {
+            @Override
+            public void visit(int index, String item)
+            {
+                list.add(index + ":" + item);
+            }
+        });
+        return list;
+    }
+
+    @Test
+    public void testMultiNotAffectedByWrites()
+    {
+        final List<String> items = Arrays.asList("a", "b", "c", "d", "e");
+        final FSelectManager<String> manager = new FSelectManager<>();
+        manager.setMode(SelectManager.Mode.MULTI);
+        manager.setItems(items);
+        manager.setSelected(1, true);
+        manager.setSelected(3, true);
+
+        final SelectionSnapshot<String> snapshot = manager.snapshot();
+        manager.performClick(0);
+        manager.setSelected(3, false);
+        manager.removeItem("b");
+        manager.addItem(0, "z");
+        manager.updateItem(1, "y");
+        manager.selectAll();
+
+        assertEquals(2, snapshot.size());
+        assertTrue(snapshot.contains("b"));
+        assertTrue(snapshot.contains("d"));
+        assertFalse(snapshot.contains("a"));
+        assertFalse(snapshot.contains("z"));
+        assertEquals(2, snapshot.indexOf("c"));
+        assertEquals(-1, snapshot.indexOf("z"));
+        assertArrayEquals(new int[]{1, 3}, snapshot.getSelectedIndexArray());
+        assertEquals(Arrays.asList("b", "d"), snapshot.toList());
+        assertEquals(Arrays.asList("1:b", "3:d"), visit(snapshot));
+
+        manager.setItems(Arrays.asList("x"));
+        assertEquals(Arrays.asList("b", "d"), snapshot.toList());
+        assertEquals(SelectManager.Mode.MULTI, snapshot.getMode());
+    }
+
+    @Test
+    public void testSingleNotAffectedByWrites()
+    {
+        final FSelectManager<String> manager = new FSelectManager<>();
+        manager.setMode(SelectManager.Mode.SINGLE);
+        manager.setItems(Arrays.asList("a", "b", "c"));
+        manager.performClick(1);
+
+        final SelectionSnapshot<String> snapshot = manager.snapshot();
+        manager.performClick(2);
+        manager.removeItem("a");
+        manager.setMode(SelectManager.Mode.MULTI);
+
+        assertEquals(SelectManager.Mode.SINGLE, snapshot.getMode());
+        assertEquals("b", snapshot.getSelectedItem());
+        assertTrue(snapshot.contains("b"));
+        assertFalse(snapshot.contains("c"));
+        assertArrayEquals(new int[]{1}, snapshot.getSelectedIndexArray());
+        assertEquals(Arrays.asList("1:b"), visit(snapshot));
+    }
+
+    /**
+     * 设置了数据源的时候数据源会继续变化，快照中的选中状态不受影响
+     */
+    @Test
+    public void testItemSourceNotAffectedByWrites()
+    {
+        final ListSource source = new ListSource();
+        source.list.addAll(Arrays.asList("a", "b", "c"));
+        final FSelectManager<String> manager = new FSelectManager<>();
+        manager.setMode(SelectManager.Mode.MULTI);
+        manager.setItemSource(source);
+        manager.setSelected(0, true);
+        manager.setSelected(2, true);
+
+        final SelectionSnapshot<String> snapshot = manager.snapshot();
+        source.list.clear();
+        source.list.addAll(Arrays.asList("x", "y", "z", "w"));
+        manager.setItemSource(source);
+        manager.selectAll();
+
+        assertEquals(2, snapshot.size());
+        assertTrue(snapshot.contains("a"));
+        assertTrue(snapshot.contains("c"));
+        assertFalse(snapshot.contains("x"));
+        assertFalse(snapshot.contains("y"));
+        assertArrayEquals(new int[]{0, 2}, snapshot.getSelectedIndexArray());
+        assertEquals(Arrays.asList("a", "c"), snapshot.toList());
+        assertEquals(Arrays.asList("0:a", "2:c"), visit(snapshot));
+        // 位置是从数据源中查找的当前位置
+        assertEquals(1, snapshot.indexOf("y"));
+        assertEquals(-1, snapshot.indexOf("a"));
+    }
+
+    @Test
+    public void testItemSourceSingle()
+    {
+        final ListSource source = new ListSource();
+        source.list.addAll(Arrays.asList("a", "b"));
+        final FSelectManager<String> manager = new FSelectManager<>();
+        manager.setMode(SelectManager.Mode.SINGLE);
+        manager.setItemSource(source);
+        manager.performClick(1);
+
+        final SelectionSnapshot<String> snapshot = manager.snapshot();
+        source.list.add(0, "x");
+        manager.setItemSource(source);
+
+        assertEquals("b", snapshot.getSelectedItem());
+        assertArrayEquals(new int[]{1}, snapshot.getSelectedIndexArray());
+        assertEquals(Arrays.asList("1:b"), visit(snapshot));
+    }
+}
@@ -0,0 +1,223 @@
+package com.sd.lib.selectmanager;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class SelectionStateCodecTest
+{
+    /** 版本，模式，数据数量之后的格式标记，数据数量小于128的时候在第4个字节 */
+    private static final int FORMAT_OFFSET = 3;
+
+    private static PositionBitmap bitmapOf(BitSet set)
+    {
+        final PositionBitmap bitmap = new PositionBitmap();
+        for (int i = set.nextSetBit(0); i >= 0; i = set.nextSetBit(i + 1))
+        {
+            bitmap.add(i);
+        }
+        return bitmap;
+    }
+
+    private static BitSet toBitSet(int[] runs)
+    {
+        final BitSet set = new BitSet();
+        for (int i = 0; i < runs.length; i += 2)
+        {
+            set.set(runs[i], runs[i + 1]);
+        }
+        return set;
+    }
+
+    private static SelectionStateCodec.State roundTrip(int itemCount, BitSet set)
+    {
+        final byte[] data = SelectionStateCodec.encode(SelectManager.Mode.MULTI, itemCount, -1, bitmapOf(set));
+        final SelectionStateCodec.State state = SelectionStateCodec.decode(data);
+        assertEquals(SelectManager.Mode.MULTI, state.mode);
+        assertEquals(itemCount, state.itemCount);
+        assertEquals(set, toBitSet(state.runs));
+        return state;
+    }
+
+    private static void assertInvalid(byte[] data)
+    {
+        try
+        {
+            SelectionStateCodec.decode(data);
+            fail("decoded " + Arrays.toString(data));
+        } catch (IllegalArgumentException e)
+        {
+
+        }
+    }
+
+    @Test
+    public void testRunsFormat()
+    {
+        final BitSet set = new BitSet();
+        set.set(3, 10);
+        set.set(20);
+        set.set(60, 100);
+
+        final byte[] data = SelectionStateCodec.encode(SelectManager.Mode.MULTI, 100, -1, bitmapOf(set));
+        assertEquals(0, data[FORMAT_OFFSET]);
+        assertArrayEquals(new int[]{3, 10, 20, 21, 60, 100}, roundTrip(100, set).runs);
+    }
+
+    @Test
+    public void testBitsFormat()
+    {
+        final BitSet set = new BitSet();
+        for (int i = 0; i < 100; i += 2)
+        {
+            set.set(i);
+        }
+
+        final byte[] data = SelectionStateCodec.encode(SelectManager.Mode.MULTI, 100, -1, bitmapOf(set));
+        assertEquals(1, data[FORMAT_OFFSET]);
+        assertEquals(50, roundTrip(100, set).runs.length / 2);
+    }
+
+    @Test
+    public void testEmptyAndFull()
+    {
+        assertEquals(0, roundTrip(0, new BitSet()).runs.length);
+        assertEquals(0, roundTrip(100, new BitSet()).runs.length);
+
+        final BitSet full = new BitSet();
+        full.set(0, 100000);
+        assertArrayEquals(new int[]{0, 100000}, roundTrip(100000, full).runs);
+    }
+
+    @Test
+    public void testSingle()
+    {
+        for (int index = -1; index < 300; index += 150)
+        {
+            final byte[] data = SelectionStateCodec.encode(SelectManager.Mode.SINGLE_MUST_ONE_SELECTED, 300, index, null);
+            final SelectionStateCodec.State state = SelectionStateCodec.decode(data);
+            assertEquals(SelectManager.Mode.SINGLE_MUST_ONE_SELECTED, state.mode);
+            assertEquals(300, state.itemCount);
+            assertEquals(index, state.currentIndex);
+            assertEquals(0, state.runs.length);
+        }
+    }
+
+    /**
+     * 不同的密度下两种格式都要能还原
+     */
+    @Test
+    public void testRandomRoundTrip()
+    {
+        final Random random = new Random(3);
+        final int[] percents = {1, 10, 50, 90, 99};
+        for (int percent : percents)
+        {
+            for (int round = 0; round < 20; round++)
+            {
+                final int itemCount = 1 + random.nextInt(5000);
+                final BitSet set = new BitSet();
+                for (int i = 0; i < itemCount; i++)
+                {
+                    if (random.nextInt(100) < percent)
+                        set.set(i);
+                }
+                roundTrip(itemCount, set);
+            }
+        }
+    }
+
+    /**
+     * 截断或者损坏的数据只抛出{@link IllegalArgumentException}
+     */
+    @Test
+    public void testInvalidData()
+    {
+        final BitSet runs = new BitSet();
+        runs.set(5, 500);
+        runs.set(1000);
+        final BitSet bits = new BitSet();
+        for (int i = 0; i < 1000; i += 3)
+        {
+            bits.set(i);
+        }
+
+        final byte[][] valid = {
+                SelectionStateCodec.encode(SelectManager.Mode.MULTI, 2000, -1, bitmapOf(runs)),
+                SelectionStateCodec.encode(SelectManager.Mode.MULTI, 2000, -1, bitmapOf(bits)),
+                SelectionStateCodec.encode(SelectManager.Mode.MULTI, 2000, -1, new PositionBitmap()),
+                SelectionStateCodec.encode(SelectManager.Mode.SINGLE, 2000, 1500, null),
+        };
+        for (byte[] data : valid)
+        {
+            for (int length = 0; length < data.length; length++)
+            {
+                assertInvalid(Arrays.copyOf(data, length));
+            }
+            // 末尾多余的数据
+            assertInvalid(Arrays.copyOf(data, data.length + 1));
+        }
+
+        // 版本
+        final byte[] version = valid[0].clone();
+        version[0] = 2;
+        assertInvalid(version);
+        // 模式
+        final byte[] mode = valid[0].clone();
+        mode[1] = 100;
+        assertInvalid(mode);
+        // 格式标记
+        final byte[] format = valid[2].clone();
+        format[FORMAT_OFFSET + 1] = 2;
+        assertInvalid(format);
+        // 区间数量远大于数据长度
+        assertInvalid(new byte[]{1, (byte) SelectManager.Mode.MULTI.ordinal(), 1, 0, (byte) 0xFF, (byte) 0xFF, 0x7F});
+        // 超出int范围的varint
+        assertInvalid(new byte[]{1, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x0F});
+
+        try
+        {
+            SelectionStateCodec.decode(null);
+            fail();
+        } catch (NullPointerException e)
+        {
+
+        }
+    }
+
+    /**
+     * 随机数据不会抛出{@link IllegalArgumentException}以外的异常
+     */
+    @Test
+    public void testRandomData()
+    {
+        final Random random = new Random(4);
+        for (int round = 0; round < 5000; round++)
+        {
+            final byte[] data = new byte[1 + random.nextInt(12)];
+            random.nextBytes(data);
+            data[0] = 1;
+            if (data.length > 1)
+                data[1] = (byte) random.nextInt(SelectManager.Mode.values().length);
+
+            try
+            {
+                final SelectionStateCodec.State state = SelectionStateCodec.decode(data);
+                for (int i = 0; i < state.runs.length; i += 2)
+                {
+                    if (state.runs[i] < 0 || state.runs[i] > state.runs[i + 1])
+                        fail("invalid runs " + Arrays.toString(state.runs));
+                }
+            } catch (IllegalArgumentException e)
+            {
+
+            }
+        }
+    }
+}